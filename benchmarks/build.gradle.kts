@@ -0,0 +1,36 @@
+val jmhVersion = "1.37"
+
+dependencies {
+    implementation(project(":common"))
+    implementation(project(":server"))
+    implementation("org.openjdk.jmh:jmh-core:$jmhVersion")
+    annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+    compileOnly("org.jetbrains:annotations:24.0.0")
+    compileOnly("com.fasterxml.jackson.core:jackson-annotations:2.14.2") // Annotations on the models of :common
+}
+
+// Runs every benchmark, or only those matching -Pjmh="<regex> [jmh options]", and writes the results as JSON
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    dependsOn("classes")
+
+    val results = layout.buildDirectory.file("results/jmh/results.json")
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args = listOf("-rf", "json", "-rff", results.get().asFile.path) +
+            (project.findProperty("jmh")?.toString()?.split(" ")?.filter { it.isNotEmpty() } ?: emptyList())
+
+    doFirst {
+        results.get().asFile.parentFile.mkdirs()
+    }
+}
+
+// Runs a single arena headless as fast as possible, with options from -Psimulation="snakes=5000 board=512"
+tasks.register<JavaExec>("simulate") {
+    group = "benchmark"
+    dependsOn("classes")
+
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("apcs.snakebattlearena.benchmarks.HeadlessSimulation")
+    args = project.findProperty("simulation")?.toString()?.split(" ")?.filter { it.isNotEmpty() } ?: emptyList()
+}
@@ -0,0 +1,122 @@
+package apcs.snakebattlearena.benchmarks;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.entities.Apple;
+import apcs.snakebattlearena.entities.Entity;
+import apcs.snakebattlearena.entities.Snake;
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.server.game.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the board on its own, without the rest of a game tick.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private static final long SEED = 1;
+
+    /**
+     * A board partially filled with apples.
+     */
+    @State(Scope.Thread)
+    public static class FilledBoard {
+        @Param({"64", "512"})
+        public int boardSize;
+
+        @Param({"0.1", "0.5", "0.9"})
+        public double occupancy;
+
+        Board board;
+
+        @Setup
+        public void setup() {
+            board = new Board((short) boardSize, (short) boardSize, new Random(SEED));
+
+            int apples = (int) (boardSize * boardSize * occupancy);
+            for (int i = 0; i < apples; i++) {
+                Point point = board.getRandomPoint();
+                board.addOccupier(point, new Apple(point, 1));
+            }
+        }
+    }
+
+    /**
+     * A board where every snake circles its own loop, refer to {@link ScriptedLoops}.
+     */
+    @State(Scope.Thread)
+    public static class LoopBoard {
+        @Param({"128", "512"})
+        public int boardSize;
+
+        @Param({"16", "128"})
+        public int snakeCount;
+
+        @Param({"4", "32"})
+        public int snakeLength;
+
+        Board board;
+        List<Snake> snakes;
+        List<Entity<?>> removed;
+        int loopSide;
+        long step;
+
+        @Setup
+        public void setup() {
+            board = new Board((short) boardSize, (short) boardSize, new Random(SEED));
+            snakes = new ArrayList<>(snakeCount);
+            removed = new ArrayList<>();
+            loopSide = ScriptedLoops.getLoopSide(snakeLength);
+
+            for (int i = 0; i < snakeCount; i++) {
+                Snake snake = new Snake("bench-" + i, Color.GREEN, ScriptedLoops.getSpawn(i, loopSide, boardSize));
+                snake.internalAddCurledLength(snakeLength - 1);
+                board.addOccupier(snake.getHead(), snake);
+                snakes.add(snake);
+            }
+
+            // Uncurl every tail so that every move also vacates a square
+            for (step = 0; step < snakeLength; step++) {
+                moveSnakes();
+            }
+        }
+
+        void moveSnakes() {
+            Direction direction = ScriptedLoops.getDirection(step, loopSide);
+
+            for (Snake snake : snakes) {
+                board.moveSnake(snake, ScriptedLoops.move(snake.getHead(), direction));
+            }
+
+            removed.clear();
+            board.processCollisions(removed);
+
+            if (!removed.isEmpty()) {
+                throw new IllegalStateException("A scripted snake has collided!");
+            }
+        }
+    }
+
+    @Benchmark
+    public Point getRandomPoint(FilledBoard state) {
+        return state.board.getRandomPoint();
+    }
+
+    /**
+     * Moves every snake on the board then processes the touched squares.
+     */
+    @Benchmark
+    public void moveSnakes(LoopBoard state) {
+        state.moveSnakes();
+        state.step++;
+    }
+}
@@ -0,0 +1,105 @@
+package apcs.snakebattlearena.benchmarks;
+
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.models.MoveData;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import apcs.snakebattlearena.server.game.GameConfig;
+import apcs.snakebattlearena.server.game.GameService;
+import apcs.snakebattlearena.server.game.PlayerRegistry;
+import apcs.snakebattlearena.server.game.TickScheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a whole {@link GameService#gameTick()}, where every snake circles its own loop,
+ * refer to {@link ScriptedLoops}. There are no apples, since snakes would grow until they no longer fit their loops.
+ * <p>
+ * Finished ticks are ignored, so nothing is serialized or sent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameTickBenchmark {
+    @Param({"128", "512"})
+    public int boardSize;
+
+    @Param({"16", "128"})
+    public int snakeCount;
+
+    @Param({"4", "32"})
+    public int snakeLength;
+
+    private final EnumMap<Direction, MoveData> moves = new EnumMap<>(Direction.class);
+
+    private ScheduledExecutorService tickExecutor;
+    private GameService game;
+    private List<ServerSnake> snakes;
+    private int loopSide;
+    private long step;
+
+    @Setup
+    public void setup() {
+        GameConfig config = new GameConfig();
+        config.setBoardWidth((short) boardSize);
+        config.setBoardHeight((short) boardSize);
+        config.setAppleCount(0);
+        config.setSeed(1L);
+
+        for (Direction direction : Direction.values()) {
+            moves.put(direction, MoveData.Builder.builder().setDirection(direction).build());
+        }
+
+        PlayerRegistry players = new PlayerRegistry();
+        tickExecutor = TickScheduler.newExecutor("benchmark-tick", 1);
+        game = new GameService("benchmark", config, players, tickExecutor, (arena, inputs, delta, removed, simulateNanos) -> {
+        });
+
+        snakes = new ArrayList<>(snakeCount);
+        loopSide = ScriptedLoops.getLoopSide(snakeLength);
+
+        for (int i = 0; i < snakeCount; i++) {
+            String id = "bench-" + i;
+            SnakeMetadata metadata = SnakeMetadata.Builder.builder()
+                    .setName(id)
+                    .setColor(Color.GREEN)
+                    .build();
+
+            game.addPlayer(id, metadata, ScriptedLoops.getSpawn(i, loopSide, boardSize));
+
+            ServerSnake snake = players.getById(id);
+            snake.internalAddCurledLength(snakeLength - 1);
+            snakes.add(snake);
+        }
+
+        // Uncurl every tail so that every snake has its full body
+        while (step < snakeLength) {
+            gameTick();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tickExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void gameTick() {
+        MoveData move = moves.get(ScriptedLoops.getDirection(step++, loopSide));
+
+        for (ServerSnake snake : snakes) {
+            snake.queueMove(move);
+        }
+
+        game.gameTick();
+    }
+}
@@ -0,0 +1,276 @@
+package apcs.snakebattlearena.benchmarks;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.DeathReason;
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.models.MoveData;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import apcs.snakebattlearena.server.game.GameConfig;
+import apcs.snakebattlearena.server.game.GameService;
+import apcs.snakebattlearena.server.game.PlayerRegistry;
+import apcs.snakebattlearena.server.game.StageTimer;
+import apcs.snakebattlearena.server.game.TickPhase;
+import apcs.snakebattlearena.server.game.TickScheduler;
+
+import java.awt.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a single arena without Spring or any sockets, ticking back-to-back as fast as possible
+ * with simulated snakes, to find out how many snakes a server can handle.
+ * <p>
+ * Options are given as <code>name=value</code> arguments, ie: <code>snakes=5000 board=512 moves=loops</code>
+ * <ul>
+ *     <li><b>snakes</b>: Amount of snakes, dead snakes are replaced with new ones. (1000)</li>
+ *     <li><b>board</b>: Width and height of the board. (256)</li>
+ *     <li><b>ticks</b>: Amount of measured ticks. (2000)</li>
+ *     <li><b>warmup</b>: Amount of ticks run before measuring. (500)</li>
+ *     <li><b>moves</b>: <code>random</code> walks or scripted <code>loops</code>, refer to {@link MoveSource}. (random)</li>
+ *     <li><b>length</b>: Length of the snakes when they spawn. (4)</li>
+ *     <li><b>apples</b>: Amount of apples, loops never have any. (snakes / 4)</li>
+ *     <li><b>seed</b>: Seed for the board and the random walks. (1)</li>
+ * </ul>
+ * Run with <code>gradle :benchmarks:simulate -Psimulation="snakes=5000 board=512"</code>.
+ */
+public class HeadlessSimulation {
+    private final int snakeCount;
+    private final int boardSize;
+    private final int snakeLength;
+    private final MoveSource moves;
+    private final String movesName;
+
+    private final PlayerRegistry players = new PlayerRegistry();
+    private final ScheduledExecutorService tickExecutor = TickScheduler.newExecutor("simulation-tick", 1);
+    private final GameService game;
+    private final EnumMap<Direction, MoveData> moveData = new EnumMap<>(Direction.class);
+
+    private int spawnedCount = 0;
+    private long tick = 0;
+
+    private HeadlessSimulation(Map<String, String> options) {
+        this.snakeCount = getInt(options, "snakes", 1000);
+        this.boardSize = getInt(options, "board", 256);
+        this.snakeLength = getInt(options, "length", 4);
+        this.movesName = options.getOrDefault("moves", "random");
+
+        long seed = getInt(options, "seed", 1);
+        int apples;
+
+        switch (movesName) {
+            case "random":
+                moves = new RandomWalkMoves(boardSize, seed);
+                apples = getInt(options, "apples", snakeCount / 4);
+                break;
+            case "loops":
+                moves = new LoopMoves(boardSize, snakeLength);
+                apples = 0;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown moves: " + movesName);
+        }
+
+        GameConfig config = new GameConfig();
+        config.setBoardWidth((short) boardSize);
+        config.setBoardHeight((short) boardSize);
+        config.setAppleCount(apples);
+        config.setSeed(seed);
+
+        for (Direction direction : Direction.values()) {
+            moveData.put(direction, MoveData.Builder.builder().setDirection(direction).build());
+        }
+
+        // Finished ticks are dropped, only the simulation itself is measured
+        this.game = new GameService("simulation", config, players, tickExecutor, (arena, inputs, delta, removed, simulateNanos) -> {
+        });
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Options must be name=value: " + arg);
+            }
+
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        HeadlessSimulation simulation = new HeadlessSimulation(options);
+        try {
+            simulation.run(getInt(options, "warmup", 500), getInt(options, "ticks", 2000));
+        } finally {
+            simulation.tickExecutor.shutdownNow();
+        }
+    }
+
+    private void run(int warmupTicks, int measuredTicks) {
+        System.out.printf("Simulating %d snakes on a %dx%d board (%s moves)%n", snakeCount, boardSize, boardSize, movesName);
+
+        for (int i = 0; i < warmupTicks; i++) {
+            runTick();
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        EnumMap<TickPhase, long[]> phasesBefore = snapshotPhases();
+        long allocatedBefore = getAllocatedBytes(threads);
+        long[] gcBefore = getGcCounts();
+        long[] deathsBefore = getDeathCounts();
+        long[] tickNanos = new long[measuredTicks];
+        long start = System.nanoTime();
+
+        for (int i = 0; i < measuredTicks; i++) {
+            long tickStart = System.nanoTime();
+            runTick();
+            tickNanos[i] = System.nanoTime() - tickStart;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = getAllocatedBytes(threads) - allocatedBefore;
+        long[] gcAfter = getGcCounts();
+        long[] deathsAfter = getDeathCounts();
+
+        Arrays.sort(tickNanos);
+        double seconds = elapsed / 1e9;
+
+        System.out.printf("Ran %d ticks in %.2fs: %.1f ticks/s%n", measuredTicks, seconds, measuredTicks / seconds);
+        System.out.printf("Tick time: mean %dus, p50 %dus, p99 %dus, max %dus%n",
+                TimeUnit.NANOSECONDS.toMicros(elapsed / measuredTicks),
+                TimeUnit.NANOSECONDS.toMicros(getPercentile(tickNanos, 0.50)),
+                TimeUnit.NANOSECONDS.toMicros(getPercentile(tickNanos, 0.99)),
+                TimeUnit.NANOSECONDS.toMicros(tickNanos[tickNanos.length - 1]));
+
+        for (TickPhase phase : TickPhase.values()) {
+            StageTimer timer = game.getPhaseTimer(phase);
+            long count = timer.getCount() - phasesBefore.get(phase)[0];
+            long total = timer.getTotalNanos() - phasesBefore.get(phase)[1];
+
+            System.out.printf("  %-10s mean %6dus (%4.1f%%)%n",
+                    phase.name().toLowerCase(),
+                    count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(total / count),
+                    total * 100.0 / elapsed);
+        }
+
+        if (allocated >= 0) {
+            System.out.printf("Allocated: %d KB/tick, %.1f MB/s%n",
+                    allocated / measuredTicks / 1024,
+                    allocated / seconds / (1024 * 1024));
+        } else {
+            System.out.println("Allocated: unsupported by this JVM");
+        }
+        System.out.printf("GC: %d collections, %dms%n", gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+
+        StringBuilder deaths = new StringBuilder();
+        for (DeathReason reason : DeathReason.values()) {
+            deaths.append(' ').append(reason).append('=').append(deathsAfter[reason.ordinal()] - deathsBefore[reason.ordinal()]);
+        }
+        System.out.printf("Snakes: %d alive, deaths:%s%n", game.getSnakeCount(), deaths);
+    }
+
+    /**
+     * Replaces dead snakes, queues a move for every snake, then runs a tick.
+     */
+    private void runTick() {
+        while (players.size() < snakeCount) {
+            if (!spawn()) break;
+        }
+
+        for (ServerSnake snake : players.getPlayers()) {
+            snake.queueMove(moveData.get(moves.getMove(snake, tick)));
+        }
+
+        game.gameTick();
+        tick++;
+    }
+
+    /**
+     * Spawns a new snake.
+     * @return False if it could not join, ie: the board is full.
+     */
+    private boolean spawn() {
+        int index = spawnedCount++;
+        String id = "sim-" + index;
+        Point spawn = moves.getSpawn(index);
+
+        SnakeMetadata metadata = SnakeMetadata.Builder.builder()
+                .setName(id)
+                .setColor(Color.GREEN)
+                .build();
+
+        try {
+            if (game.addPlayer(id, metadata, spawn).isPresent()) return false;
+        } catch (IllegalStateException e) {
+            // Board is full
+            return false;
+        }
+
+        players.getById(id).internalAddCurledLength(snakeLength - 1);
+        return true;
+    }
+
+    private EnumMap<TickPhase, long[]> snapshotPhases() {
+        EnumMap<TickPhase, long[]> snapshot = new EnumMap<>(TickPhase.class);
+        for (TickPhase phase : TickPhase.values()) {
+            StageTimer timer = game.getPhaseTimer(phase);
+            snapshot.put(phase, new long[]{timer.getCount(), timer.getTotalNanos()});
+        }
+
+        return snapshot;
+    }
+
+    private long[] getDeathCounts() {
+        long[] counts = new long[DeathReason.values().length];
+        for (DeathReason reason : DeathReason.values()) {
+            counts[reason.ordinal()] = game.getDeathCount(reason);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Gets the bytes allocated by every live thread, including the threads moves are resolved on.
+     * @return The amount of bytes, or -1 if unsupported.
+     */
+    private static long getAllocatedBytes(ThreadMXBean threads) {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+
+        long total = 0;
+        for (long allocated : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Gets the total amount of garbage collections and the time spent in them in milliseconds.
+     */
+    private static long[] getGcCounts() {
+        long[] counts = new long[2];
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            counts[0] += Math.max(0, gc.getCollectionCount());
+            counts[1] += Math.max(0, gc.getCollectionTime());
+        }
+
+        return counts;
+    }
+
+    private static long getPercentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+    private static int getInt(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,31 @@
+package apcs.snakebattlearena.benchmarks;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Every snake circles its own loop and never dies, refer to {@link ScriptedLoops}.
+ * Snakes must all spawn before the first tick, and apples would make them outgrow their loops.
+ */
+class LoopMoves implements MoveSource {
+    private final int boardSize;
+    private final int loopSide;
+
+    LoopMoves(int boardSize, int snakeLength) {
+        this.boardSize = boardSize;
+        this.loopSide = ScriptedLoops.getLoopSide(snakeLength);
+    }
+
+    @Override
+    public Point getSpawn(int index) {
+        return ScriptedLoops.getSpawn(index, loopSide, boardSize);
+    }
+
+    @NotNull
+    @Override
+    public Direction getMove(@NotNull ServerSnake snake, long tick) {
+        return ScriptedLoops.getDirection(tick, loopSide);
+    }
+}
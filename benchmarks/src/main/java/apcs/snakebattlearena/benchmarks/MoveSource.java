@@ -0,0 +1,27 @@
+package apcs.snakebattlearena.benchmarks;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Decides where simulated snakes spawn and move, in place of connected clients.
+ */
+interface MoveSource {
+    /**
+     * Gets the spawn of a new snake.
+     * @param index The amount of snakes spawned before this one.
+     * @return The spawn, or null for a random open square.
+     */
+    @Nullable
+    Point getSpawn(int index);
+
+    /**
+     * Gets the move of a snake for a tick.
+     * @param tick The amount of ticks run before this one.
+     */
+    @NotNull
+    Direction getMove(@NotNull ServerSnake snake, long tick);
+}
@@ -0,0 +1,56 @@
+package apcs.snakebattlearena.benchmarks;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Random;
+
+/**
+ * Every snake randomly turns or keeps going, without ever reversing into itself or leaving the board.
+ * Snakes still die by running into each other, so the population changes like in a real game.
+ * Not thread safe, moves must be picked on a single thread for them to be reproducible.
+ */
+class RandomWalkMoves implements MoveSource {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Random rnd;
+    private final int boardSize;
+    private final Direction[] candidates = new Direction[DIRECTIONS.length];
+
+    RandomWalkMoves(int boardSize, long seed) {
+        this.rnd = new Random(seed);
+        this.boardSize = boardSize;
+    }
+
+    @Override
+    public Point getSpawn(int index) {
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public Direction getMove(@NotNull ServerSnake snake, long tick) {
+        Point head = snake.getHead();
+        Direction facing = snake.getFacing();
+        int count = 0;
+
+        for (Direction direction : DIRECTIONS) {
+            int x = head.getX() + direction.x;
+            int y = head.getY() + direction.y;
+            boolean reverse = facing != null && direction.x == -facing.x && direction.y == -facing.y;
+
+            if (!reverse && x >= 0 && y >= 0 && x < boardSize && y < boardSize) {
+                candidates[count++] = direction;
+            }
+        }
+
+        // Cornered on a 1 wide board, nothing is safe
+        if (count == 0) {
+            return facing != null ? facing : DIRECTIONS[rnd.nextInt(DIRECTIONS.length)];
+        }
+
+        return candidates[rnd.nextInt(count)];
+    }
+}
@@ -0,0 +1,56 @@
+package apcs.snakebattlearena.benchmarks;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.Direction;
+
+/**
+ * Reproducible boards where every snake endlessly circles its own square loop,
+ * so that no snake ever dies and every tick does the same amount of work.
+ * <p>
+ * Loops are laid out in a grid of regions starting at the top-left corner of the board.
+ * Every snake starts at the top-left corner of its region and goes right, down, left then up,
+ * so all snakes move in the same direction on any given step.
+ */
+final class ScriptedLoops {
+    private static final Direction[] LOOP = {Direction.RIGHT, Direction.DOWN, Direction.LEFT, Direction.UP};
+
+    private ScriptedLoops() {
+    }
+
+    /**
+     * Gets the side of the smallest loop that a snake can circle without running into its own tail.
+     * @param snakeLength The full length of the snake, including its head.
+     */
+    static int getLoopSide(int snakeLength) {
+        // A loop has 4 * (side - 1) squares, which needs to be at least one more than the snake
+        return Math.max(2, (snakeLength + 4) / 4 + 1);
+    }
+
+    /**
+     * Gets the spawn of a snake, the top-left corner of its loop.
+     * @throws IllegalArgumentException When the loop doesn't fit on the board.
+     */
+    static Point getSpawn(int index, int loopSide, int boardSize) {
+        int loopsPerRow = boardSize / loopSide;
+        if (index >= loopsPerRow * loopsPerRow) {
+            throw new IllegalArgumentException("Board " + boardSize + " cannot fit " + (index + 1) + " loops of " + loopSide + "!");
+        }
+
+        return Point.of(index % loopsPerRow * loopSide, index / loopsPerRow * loopSide);
+    }
+
+    /**
+     * Gets the direction every snake moves in for a step.
+     * @param step The amount of moves since spawning.
+     */
+    static Direction getDirection(long step, int loopSide) {
+        return LOOP[(int) (step / (loopSide - 1) % LOOP.length)];
+    }
+
+    /**
+     * Gets the next head after moving in a direction.
+     */
+    static Point move(Point head, Direction direction) {
+        return Point.of(head.getX() + direction.x, head.getY() + direction.y);
+    }
+}
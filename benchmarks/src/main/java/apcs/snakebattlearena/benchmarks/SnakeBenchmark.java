@@ -0,0 +1,47 @@
+package apcs.snakebattlearena.benchmarks;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.entities.Snake;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks moving a single snake, which shifts the old head into the body and drops the tail.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnakeBenchmark {
+    @Param({"4", "32", "256"})
+    public int snakeLength;
+
+    private Snake snake;
+    private int loopSide;
+    private long step;
+
+    @Setup
+    public void setup() {
+        loopSide = ScriptedLoops.getLoopSide(snakeLength);
+        Point.ensureCached(loopSide, loopSide);
+
+        snake = new Snake("bench", Color.GREEN, Point.of(0, 0));
+        snake.internalAddCurledLength(snakeLength - 1);
+
+        // Uncurl the whole tail so that every move shifts the full body
+        while (step < snakeLength) {
+            internalMove();
+        }
+    }
+
+    @Benchmark
+    public Point internalMove() {
+        Point head = ScriptedLoops.move(snake.getHead(), ScriptedLoops.getDirection(step++, loopSide));
+        snake.internalMove(head);
+        return head;
+    }
+}
@@ -12,6 +12,15 @@ subprojects {
         sourceCompatibility = JavaVersion.VERSION_1_8
         targetCompatibility = JavaVersion.VERSION_1_8
     }
+
+    dependencies {
+        "testImplementation"("org.junit.jupiter:junit-jupiter:5.9.1")
+        "testRuntimeOnly"("org.junit.platform:junit-platform-launcher:1.9.1")
+    }
+
+    tasks.withType<Test> {
+        useJUnitPlatform()
+    }
 }
 
 task<Delete>("clean") {
@@ -4,6 +4,7 @@ plugins {
 
 dependencies {
     compileOnly("com.fasterxml.jackson.core:jackson-databind:2.14.2")
+    testImplementation("com.fasterxml.jackson.core:jackson-databind:2.14.2")
 
     compileOnly("org.jetbrains:annotations:24.0.0")
     compileOnly("com.google.auto.value:auto-value-annotations:1.10.1")
@@ -1,9 +1,17 @@
 package apcs.snakebattlearena;
 
+import apcs.snakebattlearena.util.PointRingBuffer;
+
 /**
  * Represents a 2D (x,y) point on the game board.
  */
 public final class Point {
+    /**
+     * Shared points for every coordinate on the largest board seen so far.
+     * Only ever replaced by a larger cache, see {@link Point#ensureCached(int, int)}.
+     */
+    private static volatile Cache cache = new Cache(64, 64);
+
     private final int x, y;
 
     /**
@@ -27,6 +35,52 @@ public final class Point {
         this.y = y;
     }
 
+    /**
+     * Gets a point for these coordinates, reusing a shared instance if the point is within
+     * the cached board size. Points outside the cache are allocated as usual.
+     * Since instances may or may not be shared, always compare points with {@link Point#equals(Object)}.
+     * @param x The x coordinate
+     * @param y The y coordinate
+     */
+    public static Point of(int x, int y) {
+        Cache cache = Point.cache;
+
+        if (x < 0 || x >= cache.width || y < 0 || y >= cache.height) {
+            return new Point(x, y);
+        }
+
+        // Racing threads may both create the same point, which is harmless since points are immutable
+        int index = y * cache.width + x;
+        Point point = cache.points[index];
+
+        if (point == null) {
+            point = new Point(x, y);
+            cache.points[index] = point;
+        }
+
+        return point;
+    }
+
+    /**
+     * Grows the shared point cache used by {@link Point#of(int, int)} to cover
+     * every point on a board of this size, if it doesn't already.
+     * @param boardWidth  The game board width
+     * @param boardHeight The game board height
+     */
+    public static synchronized void ensureCached(int boardWidth, int boardHeight) {
+        Cache old = cache;
+        if (boardWidth <= old.width && boardHeight <= old.height) return;
+
+        Cache grown = new Cache(Math.max(boardWidth, old.width), Math.max(boardHeight, old.height));
+
+        // Keep the already shared instances
+        for (int y = 0; y < old.height; y++) {
+            System.arraycopy(old.points, y * old.width, grown.points, y * grown.width, old.width);
+        }
+
+        cache = grown;
+    }
+
     /**
      * Returns the x coordinate of this point
      */
@@ -41,6 +95,21 @@ public final class Point {
         return y;
     }
 
+    /**
+     * Packs both coordinates into a single integer, refer to {@link PointRingBuffer#pack(int, int)}.
+     * Points on any board (and one step off of it) fit, since board sizes are limited to a short.
+     */
+    public int pack() {
+        return PointRingBuffer.pack(x, y);
+    }
+
+    /**
+     * Gets the point of an integer packed with {@link Point#pack()}, using {@link Point#of(int, int)}.
+     */
+    public static Point unpack(int packed) {
+        return Point.of(PointRingBuffer.unpackX(packed), PointRingBuffer.unpackY(packed));
+    }
+
     /**
      * Checks if this point is on the board.
      * @param boardWidth  The game board width
@@ -75,4 +144,18 @@ public final class Point {
     public int hashCode() {
         return 31 * x + y;
     }
+
+    /**
+     * Lazily filled table of points for a board size, indexed by <code>y * width + x</code>.
+     */
+    private static final class Cache {
+        private final int width, height;
+        private final Point[] points;
+
+        private Cache(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.points = new Point[width * height];
+        }
+    }
 }
@@ -34,6 +34,7 @@ public interface Entity<T extends EntityData> {
 
     /**
      * Serialize this entity into a JSON model ({@link T}).
+     * The model is an immutable snapshot, so it can be serialized on another thread.
      * @hidden
      */
     T toJsonData();
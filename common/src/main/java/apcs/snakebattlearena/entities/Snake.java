@@ -4,12 +4,11 @@ import apcs.snakebattlearena.Point;
 import apcs.snakebattlearena.models.DeathReason;
 import apcs.snakebattlearena.models.entities.SnakeData;
 import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.util.PointRingBuffer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 
@@ -24,7 +23,7 @@ public class Snake implements Entity<SnakeData> {
     private final Color color;
 
     // Position
-    private final LinkedList<Point> body;
+    private final PointRingBuffer body;
     private Point head;
     private int curledLength;
 
@@ -40,7 +39,7 @@ public class Snake implements Entity<SnakeData> {
         this.name = Objects.requireNonNull(name, "Cannot have snake with a null name!");
         this.color = Objects.requireNonNull(color, "Cannot have snake with a null color!");
         this.head = Objects.requireNonNull(head, "Cannot have snake with a null head point!");
-        this.body = new LinkedList<>();
+        this.body = new PointRingBuffer(16);
         this.curledLength = 0;
         this.deathReason = null;
     }
@@ -72,10 +71,11 @@ public class Snake implements Entity<SnakeData> {
     /**
      * Get the entire snake body's positions ordered by closest to head (1st) -> tail (last).
      * Note that the head AND curled tail is <b>excluded</b> from the returning positions.
+     * The returned list is a read-only view that reflects later moves of this snake.
      */
     @NotNull
     public List<Point> getBody() {
-        return Collections.unmodifiableList(body);
+        return body.asList();
     }
 
     /**
@@ -84,7 +84,10 @@ public class Snake implements Entity<SnakeData> {
      */
     @NotNull
     public Point getTail() {
-        return body.isEmpty() ? head : body.getLast();
+        if (body.isEmpty()) return head;
+
+        int tail = body.getLast();
+        return Point.unpack(tail);
     }
 
     /**
@@ -141,15 +144,16 @@ public class Snake implements Entity<SnakeData> {
      */
     public void internalMove(@NotNull Point newHead) {
         boolean hasBody = !body.isEmpty();
+        int packedHead = head.pack();
 
         if (curledLength <= 0 && hasBody) {
             body.removeLast();
-            body.addFirst(head);
+            body.addFirst(packedHead);
         }
 
         if (curledLength > 0) {
             curledLength--;
-            body.addFirst(head);
+            body.addFirst(packedHead);
         }
 
         head = newHead;
@@ -179,7 +183,7 @@ public class Snake implements Entity<SnakeData> {
                         .setName(name)
                         .setColor(color)
                         .build())
-                .setBody(getBody())
+                .setBody(body.toList())
                 .setHead(head)
                 .setCurledLength(curledLength)
                 .build();
@@ -0,0 +1,92 @@
+package apcs.snakebattlearena.models;
+
+import apcs.snakebattlearena.models.entities.SnakeMoveData;
+import apcs.snakebattlearena.models.entities.SpawnedEntityData;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.auto.value.AutoValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Only the changes to the board since the previous tick, sent every tick to clients
+ * using the {@link TickProtocol#DELTA} protocol.
+ * <p>
+ * Every entity has an ID that is unique within its arena. To apply a tick, first apply all the
+ * moves onto the known snakes, then add the spawned entities and lastly drop the removed entities.
+ * If this is a keyframe, all previously known entities should be dropped beforehand instead.
+ * When a tick number is skipped, wait for the next keyframe since the known entities are no longer accurate.
+ */
+@AutoValue
+@JsonSerialize(as = DeltaTickData.class)
+@JsonDeserialize(builder = DeltaTickData.Builder.class)
+public abstract class DeltaTickData {
+    /**
+     * The number of this tick, increasing by 1 every tick.
+     */
+    @JsonProperty("tick")
+    public abstract long getTick();
+
+    /**
+     * Whether this tick contains every entity on the board in {@link DeltaTickData#getSpawned()}
+     * and replaces everything known so far.
+     */
+    @JsonProperty("keyframe")
+    public abstract boolean isKeyframe();
+
+    /**
+     * All the entities added to the board in this tick, or every entity if this is a keyframe.
+     */
+    @NotNull
+    @JsonProperty("spawned")
+    public abstract List<SpawnedEntityData> getSpawned();
+
+    /**
+     * The movement of every snake that moved in this tick.
+     */
+    @NotNull
+    @JsonProperty("moved")
+    public abstract List<SnakeMoveData> getMoved();
+
+    /**
+     * The IDs of all the entities removed from the board in this tick.
+     * This includes dead snakes, eaten apples, etc.
+     */
+    @NotNull
+    @JsonProperty("removed")
+    public abstract List<Integer> getRemoved();
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        @JsonCreator
+        public static Builder builder() {
+            return new AutoValue_DeltaTickData.Builder()
+                    .setTick(0)
+                    .setKeyframe(false)
+                    .setSpawned(Collections.emptyList())
+                    .setMoved(Collections.emptyList())
+                    .setRemoved(Collections.emptyList());
+        }
+
+        @JsonProperty("tick")
+        public abstract Builder setTick(long tick);
+
+        @JsonProperty("keyframe")
+        public abstract Builder setKeyframe(boolean keyframe);
+
+        @JsonProperty("spawned")
+        public abstract Builder setSpawned(@NotNull List<SpawnedEntityData> spawned);
+
+        @JsonProperty("moved")
+        public abstract Builder setMoved(@NotNull List<SnakeMoveData> moved);
+
+        @JsonProperty("removed")
+        public abstract Builder setRemoved(@NotNull List<Integer> removed);
+
+        public abstract DeltaTickData build();
+    }
+}
@@ -30,11 +30,26 @@ public abstract class JoinData {
     @JsonProperty("version")
     public abstract SemVer getClientVersion();
 
+    /**
+     * The newest tick protocol version the client supports, refer to {@link TickProtocol}.
+     */
+    @JsonProperty("protocol")
+    public abstract int getProtocol();
+
+    /**
+     * The format the client wants to receive ticks in.
+     */
+    @NotNull
+    @JsonProperty("encoding")
+    public abstract TickEncoding getEncoding();
+
     @AutoValue.Builder
     public abstract static class Builder {
         @JsonCreator
         public static @NotNull Builder builder() {
-            return new AutoValue_JoinData.Builder();
+            return new AutoValue_JoinData.Builder()
+                    .setProtocol(TickProtocol.FULL)
+                    .setEncoding(TickEncoding.JSON);
         }
 
         @JsonProperty("snake")
@@ -43,6 +58,12 @@ public abstract class JoinData {
         @JsonProperty("version")
         public abstract Builder setClientVersion(@NotNull SemVer version);
 
+        @JsonProperty("protocol")
+        public abstract Builder setProtocol(int protocol);
+
+        @JsonProperty("encoding")
+        public abstract Builder setEncoding(@NotNull TickEncoding encoding);
+
         public abstract JoinData build();
     }
 }
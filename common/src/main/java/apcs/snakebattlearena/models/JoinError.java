@@ -24,4 +24,9 @@ public enum JoinError {
      * major & minor SemVer versions of the server.
      */
     VERSION_MISMATCH,
+
+    /**
+     * Returned when joining an arena that doesn't exist on the server.
+     */
+    UNKNOWN_ARENA,
 }
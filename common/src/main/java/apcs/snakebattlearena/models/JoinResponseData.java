@@ -32,11 +32,41 @@ public abstract class JoinResponseData {
     @JsonProperty("board")
     public abstract Optional<BoardData> getBoard();
 
+    /**
+     * The name of the arena the player was added to.
+     * Ticks for this arena are sent to <code>/topic/{arena}/tick</code>.
+     */
+    @NotNull
+    @JsonProperty("arena")
+    public abstract Optional<String> getArena();
+
+    /**
+     * The tick protocol version negotiated for this player, refer to {@link TickProtocol}.
+     */
+    @JsonProperty("protocol")
+    public abstract int getProtocol();
+
+    /**
+     * The format ticks are sent in for this player, which is JSON if binary isn't supported by the connection.
+     */
+    @NotNull
+    @JsonProperty("encoding")
+    public abstract TickEncoding getEncoding();
+
+    /**
+     * The topic to subscribe to for ticks of the negotiated protocol and encoding.
+     */
+    @NotNull
+    @JsonProperty("destination")
+    public abstract Optional<String> getDestination();
+
     @AutoValue.Builder
     public abstract static class Builder {
         @JsonCreator
         public static Builder builder() {
-            return new AutoValue_JoinResponseData.Builder();
+            return new AutoValue_JoinResponseData.Builder()
+                    .setProtocol(TickProtocol.FULL)
+                    .setEncoding(TickEncoding.JSON);
         }
 
         @JsonProperty("error")
@@ -45,6 +75,18 @@ public abstract class JoinResponseData {
         @JsonProperty("board")
         public abstract Builder setBoard(@Nullable BoardData board);
 
+        @JsonProperty("arena")
+        public abstract Builder setArena(@Nullable String arena);
+
+        @JsonProperty("protocol")
+        public abstract Builder setProtocol(int protocol);
+
+        @JsonProperty("encoding")
+        public abstract Builder setEncoding(@NotNull TickEncoding encoding);
+
+        @JsonProperty("destination")
+        public abstract Builder setDestination(@Nullable String destination);
+
         public abstract JoinResponseData build();
     }
 }
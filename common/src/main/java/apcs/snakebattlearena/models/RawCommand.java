@@ -0,0 +1,80 @@
+package apcs.snakebattlearena.models;
+
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Commands of the minimal protocol on the plain websocket endpoint (/raw), for bots
+ * that don't need STOMP or SockJS. Every text message is a command name, optionally
+ * followed by a space and its arguments.
+ * <p>
+ * After joining, the ticks of the negotiated protocol are sent to the client as
+ * <code>TICK {json}</code> text messages, or as binary messages containing only the
+ * {@link BinaryTickCodec} frame when using {@link TickEncoding#BINARY}.
+ * <p>
+ * The optional TCP transport uses the same commands as length-prefixed frames:
+ * <pre>
+ * frame = length:u32 command:u8 payload     (big endian, length of the command and payload in bytes)
+ * </pre>
+ * where the command is its {@link RawCommand#id}, and the payload is:
+ * <ul>
+ *     <li>JOIN: The same UTF-8 text as the arguments of the websocket command, and the JSON response.</li>
+ *     <li>MOVE: A single byte of the {@link Direction} ordinal.</li>
+ *     <li>LEAVE: Empty.</li>
+ *     <li>TICK: The encoded tick, either JSON or a {@link BinaryTickCodec} frame.</li>
+ * </ul>
+ */
+public enum RawCommand {
+    /**
+     * Client -> Server: <code>JOIN [arena] {JoinData}</code>, joins the named or default arena.
+     * <br>
+     * Server -> Client: <code>JOIN {JoinResponseData}</code>
+     */
+    JOIN(1),
+
+    /**
+     * Client -> Server: <code>MOVE {Direction}</code>, ie: <code>MOVE UP</code>
+     */
+    MOVE(2),
+
+    /**
+     * Client -> Server: <code>LEAVE</code>, removes the snake and closes the connection.
+     */
+    LEAVE(3),
+
+    /**
+     * Server -> Client: <code>TICK {TickData or DeltaTickData}</code>
+     */
+    TICK(4);
+
+    /**
+     * The length of the header of a TCP frame, the length and command.
+     */
+    public static final int FRAME_HEADER_LENGTH = 5;
+
+    private static final RawCommand[] BY_ID = new RawCommand[5];
+
+    static {
+        for (RawCommand command : values()) {
+            BY_ID[command.id] = command;
+        }
+    }
+
+    /**
+     * The command byte of TCP frames.
+     */
+    public final int id;
+
+    RawCommand(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets a command by the command byte of a TCP frame.
+     * @return The command or null if it is unknown.
+     */
+    @Nullable
+    public static RawCommand fromId(int id) {
+        return id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+    }
+}
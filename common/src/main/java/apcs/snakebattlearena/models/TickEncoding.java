@@ -0,0 +1,21 @@
+package apcs.snakebattlearena.models;
+
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * The format ticks are encoded in, requested by a client when joining ({@link JoinData#getEncoding()}).
+ */
+@JsonFormat(shape = JsonFormat.Shape.STRING)
+public enum TickEncoding {
+    /**
+     * JSON text frames, supported by every connection.
+     */
+    JSON,
+
+    /**
+     * Binary frames encoded with {@link BinaryTickCodec}.
+     * Only supported by plain websocket connections (/ws and /raw) and TCP, since SockJS can only send text.
+     */
+    BINARY,
+}
@@ -0,0 +1,96 @@
+package apcs.snakebattlearena.models;
+
+import apcs.snakebattlearena.serializers.PointListSerializer;
+import apcs.snakebattlearena.serializers.PointSerializer;
+import apcs.snakebattlearena.util.DirectionRunList;
+
+/**
+ * Versions of the tick protocol a client can request when joining ({@link JoinData#getProtocol()}).
+ * The server responds with the highest version that both sides support ({@link JoinResponseData#getProtocol()}),
+ * which decides the topic the client should subscribe to for ticks, refer to
+ * {@link TickProtocol#getDestination(String, int, TickEncoding)}.
+ */
+public final class TickProtocol {
+    /**
+     * Full {@link TickData} every tick with every entity on the board, sent to <code>/topic/{arena}/tick</code>.
+     */
+    public static final int FULL = 1;
+
+    /**
+     * Only the changes since the previous tick as {@link DeltaTickData}, with a periodic keyframe
+     * containing every entity on the board, sent to <code>/topic/{arena}/delta</code>.
+     */
+    public static final int DELTA = 2;
+
+    /**
+     * The same as {@link TickProtocol#DELTA}, but with every point as a packed integer and snake bodies
+     * as flattened <code>[x0,y0,x1,y1,...]</code> arrays instead of (X;Y) strings, sent to
+     * <code>/topic/{arena}/delta/packed</code>. Refer to {@link PointSerializer#NUMERIC}.
+     * Binary ticks don't change, since they are always numeric.
+     */
+    public static final int PACKED_POINTS = 3;
+
+    /**
+     * The same as {@link TickProtocol#PACKED_POINTS}, but snake bodies are strings of direction runs
+     * from their head instead, ie: <code>"R5U3L2"</code>, sent to <code>/topic/{arena}/delta/runs</code>.
+     * Refer to {@link DirectionRunList} and {@link PointListSerializer#DIRECTION_RUNS}.
+     */
+    public static final int DIRECTION_RUNS = 4;
+
+    /**
+     * The newest protocol version supported.
+     */
+    public static final int LATEST = DIRECTION_RUNS;
+
+    private TickProtocol() {
+    }
+
+    /**
+     * Picks the protocol version to use for a client.
+     * @param requested The newest version the client supports.
+     * @return The newest version supported by both, or {@link TickProtocol#FULL} for unknown versions.
+     */
+    public static int negotiate(int requested) {
+        return requested < FULL ? FULL : Math.min(requested, LATEST);
+    }
+
+    /**
+     * Gets the topic ticks are sent to for a combination of protocol and encoding.
+     * Binary ticks are sent to the same topic with a <code>/binary</code> suffix,
+     * and protocols that only change the JSON format share the topic of the previous protocol.
+     * @param arena    The name of the arena.
+     * @param protocol A negotiated protocol version.
+     * @param encoding The format of the ticks.
+     */
+    public static String getDestination(String arena, int protocol, TickEncoding encoding) {
+        return "/topic/" + arena
+                + (protocol >= DELTA ? "/delta" : "/tick")
+                + (encoding == TickEncoding.BINARY ? "/binary" : getJsonFormat(protocol));
+    }
+
+    /**
+     * Gets the topic for spectators of an arena (ie: dashboards), which receive full ticks
+     * at a reduced rate without joining. The rate is set by the server.
+     * @param arena    The name of the arena.
+     * @param encoding The format of the ticks.
+     */
+    public static String getSpectatorDestination(String arena, TickEncoding encoding) {
+        return "/topic/" + arena + "/spectate" + (encoding == TickEncoding.BINARY ? "/binary" : "");
+    }
+
+    /**
+     * Checks whether a topic is a spectator topic, refer to {@link TickProtocol#getSpectatorDestination(String, TickEncoding)}.
+     */
+    public static boolean isSpectatorDestination(String destination) {
+        return destination.endsWith("/spectate") || destination.endsWith("/spectate/binary");
+    }
+
+    /**
+     * Gets the topic suffix of protocols that only change the JSON format.
+     */
+    private static String getJsonFormat(int protocol) {
+        if (protocol >= DIRECTION_RUNS) return "/runs";
+        if (protocol >= PACKED_POINTS) return "/packed";
+        return "";
+    }
+}
@@ -32,7 +32,8 @@ public abstract class AppleData extends EntityData {
     public abstract static class Builder {
         @JsonCreator
         public static Builder builder() {
-            return new AutoValue_AppleData.Builder();
+            return new AutoValue_AppleData.Builder()
+                    .setEaten(false);
         }
 
         @JsonProperty("position")
@@ -3,6 +3,9 @@ package apcs.snakebattlearena.models.entities;
 import apcs.snakebattlearena.Point;
 import apcs.snakebattlearena.entities.Snake;
 import apcs.snakebattlearena.models.DeathReason;
+import apcs.snakebattlearena.serializers.PointListDeserializer;
+import apcs.snakebattlearena.serializers.PointListSerializer;
+import apcs.snakebattlearena.util.DirectionRunList;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
@@ -11,6 +14,7 @@ import com.google.auto.value.AutoValue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -28,6 +32,7 @@ public abstract class SnakeData extends EntityData {
 
     @NotNull
     @JsonProperty("body")
+    @JsonSerialize(using = PointListSerializer.class)
     public abstract List<Point> getBody();
 
     @NotNull
@@ -45,13 +50,16 @@ public abstract class SnakeData extends EntityData {
     public abstract static class Builder {
         @JsonCreator
         public static Builder builder() {
-            return new AutoValue_SnakeData.Builder();
+            return new AutoValue_SnakeData.Builder()
+                    .setBody(Collections.emptyList())
+                    .setCurledLength(0);
         }
 
         @JsonProperty("metadata")
         public abstract Builder setMetadata(@NotNull SnakeMetadata metadata);
 
         @JsonProperty("body")
+        @JsonDeserialize(using = PointListDeserializer.class)
         public abstract Builder setBody(@NotNull List<Point> body);
 
         @JsonProperty("head")
@@ -63,6 +71,19 @@ public abstract class SnakeData extends EntityData {
         @JsonProperty("deathReason")
         public abstract Builder setDeathReason(@Nullable DeathReason reason);
 
-        public abstract SnakeData build();
+        abstract List<Point> getBody();
+
+        abstract Point getHead();
+
+        abstract SnakeData autoBuild();
+
+        public SnakeData build() {
+            // Bodies deserialized from direction runs start at the head, which may be read after the body
+            if (getBody() instanceof DirectionRunList) {
+                setBody(((DirectionRunList) getBody()).withOrigin(getHead()));
+            }
+
+            return autoBuild();
+        }
     }
 }
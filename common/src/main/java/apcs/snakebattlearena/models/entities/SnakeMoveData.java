@@ -0,0 +1,84 @@
+package apcs.snakebattlearena.models.entities;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.entities.Snake;
+import apcs.snakebattlearena.models.DeltaTickData;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.auto.value.AutoValue;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Serialized JSON data for a single move of a snake.
+ * This is only used for delta tick data, refer to {@link DeltaTickData}.
+ * <p>
+ * To apply a move, push the old head onto the front of the body if {@link SnakeMoveData#isBodyAdded()},
+ * then remove the last part of the body if {@link SnakeMoveData#isTailRemoved()}, and lastly replace
+ * the head and curled length. Refer to {@link Snake} for more information on the properties.
+ */
+@AutoValue
+@JsonSerialize(as = SnakeMoveData.class)
+@JsonDeserialize(builder = SnakeMoveData.Builder.class)
+public abstract class SnakeMoveData {
+    /**
+     * The ID of the moved snake.
+     */
+    @JsonProperty("id")
+    public abstract int getId();
+
+    /**
+     * The new head position of the snake.
+     */
+    @NotNull
+    @JsonProperty("head")
+    public abstract Point getHead();
+
+    /**
+     * Whether the old head has become the first part of the body.
+     */
+    @JsonProperty("bodyAdded")
+    public abstract boolean isBodyAdded();
+
+    /**
+     * Whether the last part of the body has been removed.
+     */
+    @JsonProperty("tailRemoved")
+    public abstract boolean isTailRemoved();
+
+    /**
+     * The new curled tail length, which changes when uncurling or eating an apple.
+     */
+    @JsonProperty("curledLength")
+    public abstract int getCurledLength();
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        @JsonCreator
+        public static Builder builder() {
+            return new AutoValue_SnakeMoveData.Builder()
+                    .setId(0)
+                    .setBodyAdded(false)
+                    .setTailRemoved(false)
+                    .setCurledLength(0);
+        }
+
+        @JsonProperty("id")
+        public abstract Builder setId(int id);
+
+        @JsonProperty("head")
+        public abstract Builder setHead(@NotNull Point head);
+
+        @JsonProperty("bodyAdded")
+        public abstract Builder setBodyAdded(boolean added);
+
+        @JsonProperty("tailRemoved")
+        public abstract Builder setTailRemoved(boolean removed);
+
+        @JsonProperty("curledLength")
+        public abstract Builder setCurledLength(int length);
+
+        public abstract SnakeMoveData build();
+    }
+}
@@ -0,0 +1,48 @@
+package apcs.snakebattlearena.models.entities;
+
+import apcs.snakebattlearena.models.DeltaTickData;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.auto.value.AutoValue;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Serialized JSON data for an entity added to the board along with its ID.
+ * This is only used for delta tick data, refer to {@link DeltaTickData}.
+ */
+@AutoValue
+@JsonSerialize(as = SpawnedEntityData.class)
+@JsonDeserialize(builder = SpawnedEntityData.Builder.class)
+public abstract class SpawnedEntityData {
+    /**
+     * The ID of this entity that is unique within its arena.
+     */
+    @JsonProperty("id")
+    public abstract int getId();
+
+    /**
+     * The full data of this entity at the time it was sent.
+     */
+    @NotNull
+    @JsonProperty("entity")
+    public abstract EntityData getEntity();
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        @JsonCreator
+        public static Builder builder() {
+            return new AutoValue_SpawnedEntityData.Builder()
+                    .setId(0);
+        }
+
+        @JsonProperty("id")
+        public abstract Builder setId(int id);
+
+        @JsonProperty("entity")
+        public abstract Builder setEntity(@NotNull EntityData entity);
+
+        public abstract SpawnedEntityData build();
+    }
+}
@@ -0,0 +1,480 @@
+package apcs.snakebattlearena.serializers;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.DeathReason;
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.TickData;
+import apcs.snakebattlearena.models.entities.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.Color;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary format for {@link TickData} and {@link DeltaTickData}, as an alternative to JSON.
+ * All integers are unsigned LEB128 varints, with signed values (coordinates) zigzag encoded first.
+ * <pre>
+ * frame    = type:u8 (1 = tick, 2 = delta) payload
+ * tick     = count entity* count entity*                      (entities, removed entities)
+ * delta    = tick keyframe:u8 count (id entity)* count move* count id*
+ * entity   = tag:u8 length body                               (length of body in bytes)
+ *   snake  = tag 1: name color:i32 head curledLength death:u8 count offset*
+ *   apple  = tag 2: position reward eaten:u8
+ *   wall   = tag 3: start end
+ * move     = id head flags:u8 curledLength                    (flags: 1 = body added, 2 = tail removed)
+ * point    = x y
+ * offset   = dx dy                                            (from the previous body part, starting at the head)
+ * name     = length utf8*
+ * </pre>
+ * Entities are length-prefixed so that decoders can skip entity types they don't know about.
+ * Death reasons are sent as their ordinal + 1, or 0 if alive.
+ */
+public final class BinaryTickCodec {
+    /**
+     * Frame types.
+     */
+    public static final int TICK = 1;
+    public static final int DELTA = 2;
+
+    /**
+     * Entity type tags.
+     */
+    private static final int SNAKE = 1;
+    private static final int APPLE = 2;
+    private static final int WALL = 3;
+
+    private static final int BODY_ADDED = 1;
+    private static final int TAIL_REMOVED = 2;
+
+    private static final DeathReason[] DEATH_REASONS = DeathReason.values();
+
+    private BinaryTickCodec() {
+    }
+
+    /**
+     * Encodes a full tick into a binary frame.
+     */
+    @NotNull
+    public static byte[] encode(@NotNull TickData tick) {
+        Output out = new Output(64 + tick.getEntities().size() * 16);
+        Output scratch = new Output(64);
+
+        out.writeByte(TICK);
+        writeEntities(out, scratch, tick.getEntities());
+        writeEntities(out, scratch, tick.getRemovedEntities());
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a delta tick into a binary frame.
+     */
+    @NotNull
+    public static byte[] encode(@NotNull DeltaTickData delta) {
+        Output out = new Output(32 + delta.getSpawned().size() * 16 + delta.getMoved().size() * 8);
+        Output scratch = new Output(64);
+
+        out.writeByte(DELTA);
+        out.writeVarLong(delta.getTick());
+        out.writeByte(delta.isKeyframe() ? 1 : 0);
+
+        out.writeVarInt(delta.getSpawned().size());
+        for (SpawnedEntityData spawned : delta.getSpawned()) {
+            out.writeVarInt(spawned.getId());
+            writeEntity(out, scratch, spawned.getEntity());
+        }
+
+        out.writeVarInt(delta.getMoved().size());
+        for (SnakeMoveData move : delta.getMoved()) {
+            out.writeVarInt(move.getId());
+            writePoint(out, move.getHead());
+            out.writeByte((move.isBodyAdded() ? BODY_ADDED : 0) | (move.isTailRemoved() ? TAIL_REMOVED : 0));
+            out.writeVarInt(move.getCurledLength());
+        }
+
+        out.writeVarInt(delta.getRemoved().size());
+        for (int id : delta.getRemoved()) {
+            out.writeVarInt(id);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Gets the type of binary frame without decoding it.
+     * @return Either {@link BinaryTickCodec#TICK} or {@link BinaryTickCodec#DELTA}.
+     * @throws IllegalArgumentException When the frame is empty or of an unknown type.
+     */
+    public static int getType(@NotNull byte[] frame) {
+        if (frame.length == 0 || (frame[0] != TICK && frame[0] != DELTA)) {
+            throw new IllegalArgumentException("Invalid binary tick frame!");
+        }
+
+        return frame[0];
+    }
+
+    /**
+     * Decodes a binary frame of a full tick.
+     * @throws IllegalArgumentException When the frame is not a valid full tick.
+     */
+    @NotNull
+    public static TickData decodeTick(@NotNull byte[] frame) {
+        if (getType(frame) != TICK) {
+            throw new IllegalArgumentException("Binary frame is not a full tick!");
+        }
+
+        try {
+            ByteBuffer in = ByteBuffer.wrap(frame, 1, frame.length - 1);
+
+            return TickData.Builder.builder()
+                    .setEntities(readEntities(in))
+                    .setRemovedEntities(readEntities(in))
+                    .build();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Binary tick frame is truncated!", e);
+        }
+    }
+
+    /**
+     * Decodes a binary frame of a delta tick.
+     * @throws IllegalArgumentException When the frame is not a valid delta tick.
+     */
+    @NotNull
+    public static DeltaTickData decodeDelta(@NotNull byte[] frame) {
+        if (getType(frame) != DELTA) {
+            throw new IllegalArgumentException("Binary frame is not a delta tick!");
+        }
+
+        try {
+            ByteBuffer in = ByteBuffer.wrap(frame, 1, frame.length - 1);
+            long tick = readVarLong(in);
+            boolean keyframe = in.get() != 0;
+
+            int spawnedCount = readCount(in);
+            List<SpawnedEntityData> spawned = new ArrayList<>(spawnedCount);
+            for (int i = 0; i < spawnedCount; i++) {
+                int id = readVarInt(in);
+                EntityData entity = readEntity(in);
+
+                if (entity != null) {
+                    spawned.add(SpawnedEntityData.Builder.builder()
+                            .setId(id)
+                            .setEntity(entity)
+                            .build());
+                }
+            }
+
+            int movedCount = readCount(in);
+            List<SnakeMoveData> moved = new ArrayList<>(movedCount);
+            for (int i = 0; i < movedCount; i++) {
+                int id = readVarInt(in);
+                Point head = readPoint(in);
+                int flags = in.get();
+
+                moved.add(SnakeMoveData.Builder.builder()
+                        .setId(id)
+                        .setHead(head)
+                        .setBodyAdded((flags & BODY_ADDED) != 0)
+                        .setTailRemoved((flags & TAIL_REMOVED) != 0)
+                        .setCurledLength(readVarInt(in))
+                        .build());
+            }
+
+            int removedCount = readCount(in);
+            List<Integer> removed = new ArrayList<>(removedCount);
+            for (int i = 0; i < removedCount; i++) {
+                removed.add(readVarInt(in));
+            }
+
+            return DeltaTickData.Builder.builder()
+                    .setTick(tick)
+                    .setKeyframe(keyframe)
+                    .setSpawned(spawned)
+                    .setMoved(moved)
+                    .setRemoved(removed)
+                    .build();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Binary tick frame is truncated!", e);
+        }
+    }
+
+    // ------------------ Encoding ------------------
+
+    private static void writeEntities(Output out, Output scratch, List<EntityData> entities) {
+        out.writeVarInt(entities.size());
+
+        for (EntityData entity : entities) {
+            writeEntity(out, scratch, entity);
+        }
+    }
+
+    /**
+     * Writes the tag and length-prefixed body of an entity, using scratch to encode the body first.
+     */
+    private static void writeEntity(Output out, Output scratch, EntityData entity) {
+        scratch.reset();
+        int tag;
+
+        if (entity instanceof SnakeData) {
+            SnakeData snake = (SnakeData) entity;
+            tag = SNAKE;
+
+            scratch.writeString(snake.getMetadata().getName());
+            scratch.writeInt(snake.getMetadata().getColor().getRGB());
+            writePoint(scratch, snake.getHead());
+            scratch.writeVarInt(snake.getCurledLength());
+            scratch.writeByte(snake.getDeathReason() != null ? snake.getDeathReason().ordinal() + 1 : 0);
+
+            // Each body part is next to the previous one, so their offsets are mostly a single byte
+            List<Point> body = snake.getBody();
+            Point previous = snake.getHead();
+
+            scratch.writeVarInt(body.size());
+            for (Point point : body) {
+                scratch.writeZigZag(point.getX() - previous.getX());
+                scratch.writeZigZag(point.getY() - previous.getY());
+                previous = point;
+            }
+        } else if (entity instanceof AppleData) {
+            AppleData apple = (AppleData) entity;
+            tag = APPLE;
+
+            writePoint(scratch, apple.getPosition());
+            scratch.writeVarInt(apple.getReward());
+            scratch.writeByte(apple.getEaten() ? 1 : 0);
+        } else if (entity instanceof WallData) {
+            WallData wall = (WallData) entity;
+            tag = WALL;
+
+            writePoint(scratch, wall.getStart());
+            writePoint(scratch, wall.getEnd());
+        } else {
+            throw new IllegalArgumentException("Unknown entity type: " + entity.getClass().getName());
+        }
+
+        out.writeByte(tag);
+        out.writeVarInt(scratch.size);
+        out.write(scratch.buffer, 0, scratch.size);
+    }
+
+    private static void writePoint(Output out, Point point) {
+        out.writeZigZag(point.getX());
+        out.writeZigZag(point.getY());
+    }
+
+    // ------------------ Decoding ------------------
+
+    private static List<EntityData> readEntities(ByteBuffer in) {
+        int count = readCount(in);
+        List<EntityData> entities = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            EntityData entity = readEntity(in);
+
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+
+        return entities;
+    }
+
+    /**
+     * Reads a single entity.
+     * @return The entity or null if the entity type is unknown and has been skipped.
+     */
+    private static EntityData readEntity(ByteBuffer in) {
+        int tag = in.get();
+        int length = readCount(in);
+        int end = in.position() + length;
+        EntityData entity;
+
+        switch (tag) {
+            case SNAKE: {
+                String name = readString(in);
+                Color color = new Color(in.getInt());
+                Point head = readPoint(in);
+                int curledLength = readVarInt(in);
+                int death = in.get();
+
+                int bodyLength = readCount(in);
+                Point[] body = new Point[bodyLength];
+                Point previous = head;
+                for (int i = 0; i < bodyLength; i++) {
+                    previous = Point.of(previous.getX() + readZigZag(in), previous.getY() + readZigZag(in));
+                    body[i] = previous;
+                }
+
+                entity = SnakeData.Builder.builder()
+                        .setMetadata(SnakeMetadata.Builder.builder()
+                                .setName(name)
+                                .setColor(color)
+                                .build())
+                        .setHead(head)
+                        .setCurledLength(curledLength)
+                        .setDeathReason(death > 0 && death <= DEATH_REASONS.length ? DEATH_REASONS[death - 1] : null)
+                        .setBody(Arrays.asList(body))
+                        .build();
+                break;
+            }
+            case APPLE: {
+                entity = AppleData.Builder.builder()
+                        .setPosition(readPoint(in))
+                        .setReward(readVarInt(in))
+                        .setEaten(in.get() != 0)
+                        .build();
+                break;
+            }
+            case WALL: {
+                entity = WallData.Builder.builder()
+                        .setStart(readPoint(in))
+                        .setEnd(readPoint(in))
+                        .build();
+                break;
+            }
+            default: {
+                entity = null;
+                break;
+            }
+        }
+
+        // Skip any unknown entity or trailing fields from a newer version
+        if (end > in.limit() || in.position() > end) {
+            throw new IllegalArgumentException("Invalid binary entity length!");
+        }
+        in.position(end);
+
+        return entity;
+    }
+
+    private static Point readPoint(ByteBuffer in) {
+        return Point.of(readZigZag(in), readZigZag(in));
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readCount(in);
+
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("Invalid binary string length!");
+        }
+
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /**
+     * Reads a collection size, which can't be more than the remaining bytes.
+     */
+    private static int readCount(ByteBuffer in) {
+        int count = readVarInt(in);
+
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Invalid binary count!");
+        }
+
+        return count;
+    }
+
+    private static int readZigZag(ByteBuffer in) {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        long value = readVarLong(in);
+
+        if (value > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Invalid binary varint!");
+        }
+
+        return (int) value;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+
+            if (b >= 0) return value;
+        }
+
+        throw new IllegalArgumentException("Invalid binary varint!");
+    }
+
+    /**
+     * A growable byte array to encode into.
+     */
+    private static final class Output {
+        private byte[] buffer;
+        private int size = 0;
+
+        Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            buffer[size++] = (byte) (value >>> 24);
+            buffer[size++] = (byte) (value >>> 16);
+            buffer[size++] = (byte) (value >>> 8);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeZigZag(int value) {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            buffer[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package apcs.snakebattlearena.serializers;
 
 import apcs.snakebattlearena.Point;
-import apcs.snakebattlearena.util.SemVer;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 
@@ -10,21 +10,73 @@ import java.io.IOException;
 
 /**
  * JSON deserializer for {@link Point} in a more efficient format. (X;Y)
+ * Coordinates are parsed straight from the parser's text buffer and use {@link Point#of(int, int)}.
+ * Packed integer points written with {@link PointSerializer#NUMERIC} are also accepted.
  */
 public class PointDeserializer extends JsonDeserializer<Point> {
     @Override
     public Point deserialize(JsonParser p, DeserializationContext ctx) throws IOException {
-        String value = p.getValueAsString();
+        if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return Point.unpack(p.getIntValue());
+        }
+
+        if (p.currentToken() != JsonToken.VALUE_STRING) {
+            throw new IllegalArgumentException("Invalid serialized point coordinate!");
+        }
+
+        char[] text = p.getTextCharacters();
+        int start = p.getTextOffset();
+        int end = start + p.getTextLength();
 
-        String[] parts = value.split(";");
+        // Find the separator between both coordinates
+        int separator = -1;
+        for (int i = start; i < end; i++) {
+            if (text[i] == ';') {
+                separator = i;
+                break;
+            }
+        }
 
-        if (parts.length != 2) {
+        if (separator < 0) {
             throw new IllegalArgumentException("Invalid serialized point coordinate!");
         }
 
-        return new Point(
-                Integer.parseInt(parts[0]),
-                Integer.parseInt(parts[1])
+        return Point.of(
+                parseInt(text, start, separator),
+                parseInt(text, separator + 1, end)
         );
     }
+
+    /**
+     * Parses a signed decimal integer from a range of characters without creating a String.
+     * @param start Inclusive start index
+     * @param end   Exclusive end index
+     */
+    private static int parseInt(char[] text, int start, int end) {
+        boolean negative = start < end && text[start] == '-';
+        int i = negative ? start + 1 : start;
+
+        if (i >= end || end - i > 10) {
+            throw new IllegalArgumentException("Invalid serialized point coordinate!");
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = text[i] - '0';
+
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid serialized point coordinate!");
+            }
+
+            value = value * 10 + digit;
+        }
+
+        value = negative ? -value : value;
+
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid serialized point coordinate!");
+        }
+
+        return (int) value;
+    }
 }
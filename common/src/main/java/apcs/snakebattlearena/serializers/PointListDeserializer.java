@@ -0,0 +1,52 @@
+package apcs.snakebattlearena.serializers;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.util.DirectionRunList;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON deserializer for lists of {@link Point}, accepting every format of {@link PointListSerializer}.
+ * Flattened coordinates are read in pairs straight from the parser, and direction runs are
+ * only parsed into a {@link DirectionRunList} which decodes the body parts once accessed.
+ */
+public class PointListDeserializer extends JsonDeserializer<List<Point>> {
+    private static final PointDeserializer POINT_DESERIALIZER = new PointDeserializer();
+
+    @Override
+    public List<Point> deserialize(JsonParser p, DeserializationContext ctx) throws IOException {
+        // The head is only known once the whole snake is read, refer to SnakeData.Builder#build()
+        if (p.currentToken() == JsonToken.VALUE_STRING) {
+            return DirectionRunList.parse(p.getText());
+        }
+
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Invalid serialized point list!");
+        }
+
+        List<Point> points = new ArrayList<>();
+        JsonToken token;
+
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                int x = p.getIntValue();
+
+                if (p.nextToken() != JsonToken.VALUE_NUMBER_INT) {
+                    throw new IllegalArgumentException("Invalid serialized point list!");
+                }
+
+                points.add(Point.of(x, p.getIntValue()));
+            } else {
+                points.add(POINT_DESERIALIZER.deserialize(p, ctx));
+            }
+        }
+
+        return points;
+    }
+}
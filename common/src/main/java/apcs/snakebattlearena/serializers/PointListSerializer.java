@@ -0,0 +1,73 @@
+package apcs.snakebattlearena.serializers;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.entities.SnakeData;
+import apcs.snakebattlearena.util.DirectionRunList;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * JSON serializer for lists of {@link Point}, ie: snake bodies.
+ * This is an array of (X;Y) strings, or a flattened <code>[x0,y0,x1,y1,...]</code> array of
+ * coordinates when the {@link PointSerializer#NUMERIC} attribute is set.
+ * <p>
+ * When the {@link PointListSerializer#DIRECTION_RUNS} attribute is set, the body of a {@link SnakeData}
+ * is written as a string of {@link DirectionRunList} runs from its head instead.
+ */
+public class PointListSerializer extends JsonSerializer<List<Point>> {
+    /**
+     * Serialization attribute to write snake bodies as direction runs, set to <code>true</code>
+     * with {@link ObjectWriter#withAttribute(Object, Object)}.
+     * {@link PointListDeserializer} reads every format without it.
+     */
+    public static final String DIRECTION_RUNS = "apcs.snakebattlearena.directionRuns";
+
+    @Override
+    public void serialize(List<Point> value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+
+        if (Boolean.TRUE.equals(serializers.getAttribute(DIRECTION_RUNS)) && writeRuns(value, gen)) {
+            return;
+        }
+
+        boolean numeric = PointSerializer.isNumeric(serializers);
+        gen.writeStartArray(value, numeric ? value.size() * 2 : value.size());
+
+        for (Point point : value) {
+            if (numeric) {
+                gen.writeNumber(point.getX());
+                gen.writeNumber(point.getY());
+            } else {
+                PointSerializer.writeString(point, gen);
+            }
+        }
+
+        gen.writeEndArray();
+    }
+
+    /**
+     * Writes the body of the snake currently being serialized as direction runs.
+     * @return False if this isn't a snake body, or the body isn't contiguous.
+     */
+    private static boolean writeRuns(List<Point> value, JsonGenerator gen) throws IOException {
+        Object owner = gen.getCurrentValue();
+        if (!(owner instanceof SnakeData)) return false;
+
+        String runs = value instanceof DirectionRunList
+                ? ((DirectionRunList) value).getRuns()
+                : DirectionRunList.encode(((SnakeData) owner).getHead(), value);
+
+        if (runs == null) return false;
+
+        gen.writeString(runs);
+        return true;
+    }
+}
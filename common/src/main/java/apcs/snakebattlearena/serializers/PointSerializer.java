@@ -3,15 +3,30 @@ package apcs.snakebattlearena.serializers;
 import apcs.snakebattlearena.Point;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializerProvider;
 
-import java.awt.*;
 import java.io.IOException;
 
 /**
  * JSON serializer for {@link Point} to a more efficient format. (X;Y)
+ * <p>
+ * When the {@link PointSerializer#NUMERIC} attribute is set, points are written as a single
+ * packed integer instead, refer to {@link Point#pack()}.
  */
 public class PointSerializer extends JsonSerializer<Point> {
+    /**
+     * Serialization attribute to write points as numbers, set to <code>true</code>
+     * with {@link ObjectWriter#withAttribute(Object, Object)}.
+     * {@link PointDeserializer} reads both formats without it.
+     */
+    public static final String NUMERIC = "apcs.snakebattlearena.numericPoints";
+
+    /**
+     * Max length of a coordinate, including the sign.
+     */
+    private static final int MAX_INT_LENGTH = 11;
+
     @Override
     public void serialize(Point value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
         if (value == null) {
@@ -19,6 +34,55 @@ public class PointSerializer extends JsonSerializer<Point> {
             return;
         }
 
-        gen.writeString(value.getX() + ";" + value.getY());
+        if (isNumeric(serializers)) {
+            gen.writeNumber(value.pack());
+        } else {
+            writeString(value, gen);
+        }
+    }
+
+    /**
+     * Checks whether points should be written as numbers, refer to {@link PointSerializer#NUMERIC}.
+     */
+    static boolean isNumeric(SerializerProvider serializers) {
+        return Boolean.TRUE.equals(serializers.getAttribute(NUMERIC));
+    }
+
+    /**
+     * Writes a point as a (X;Y) string without concatenating a new String.
+     */
+    static void writeString(Point value, JsonGenerator gen) throws IOException {
+        char[] text = new char[MAX_INT_LENGTH * 2 + 1];
+        int length = writeInt(text, 0, value.getX());
+        text[length++] = ';';
+        length = writeInt(text, length, value.getY());
+
+        gen.writeString(text, 0, length);
+    }
+
+    /**
+     * Writes a signed decimal integer into a char array.
+     * @return The index after the last written character.
+     */
+    private static int writeInt(char[] text, int offset, int value) {
+        long remaining = value;
+
+        if (remaining < 0) {
+            text[offset++] = '-';
+            remaining = -remaining;
+        }
+
+        // Count the digits, then fill them in from the end
+        int digits = 1;
+        for (long i = remaining; i >= 10; i /= 10) {
+            digits++;
+        }
+
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            text[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+
+        return offset + digits;
     }
 }
@@ -0,0 +1,210 @@
+package apcs.snakebattlearena.util;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.Direction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A snake body encoded as runs of directions, each stepping from the previous body part
+ * starting at the head, ie: <code>"R5U3L2"</code> is 5 parts to the right of the head, then 3 up and 2 left.
+ * Directions are the first letter of the {@link Direction}, followed by a count if it is more than 1.
+ * <p>
+ * This is an immutable list of the body parts, which are only decoded the first time
+ * a part is accessed. The size is known without decoding anything.
+ */
+public final class DirectionRunList extends AbstractList<Point> implements RandomAccess {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final String runs;
+    private final int size;
+    @Nullable
+    private final Point origin;
+
+    /**
+     * The decoded body parts, racing threads may both decode it which is harmless since the result is the same.
+     */
+    private volatile Point[] points;
+
+    private DirectionRunList(String runs, int size, @Nullable Point origin) {
+        this.runs = runs;
+        this.size = size;
+        this.origin = origin;
+    }
+
+    /**
+     * Encodes a body as direction runs.
+     * @param head The head of the snake, which the first body part is next to.
+     * @param body The body parts, ordered from the head.
+     * @return The runs, or null if any body part is not next to the previous one.
+     */
+    @Nullable
+    public static String encode(@NotNull Point head, @NotNull List<Point> body) {
+        StringBuilder builder = new StringBuilder(Math.min(body.size(), 16) * 2);
+        Point previous = head;
+        char run = 0;
+        int runLength = 0;
+
+        for (Point point : body) {
+            char symbol = getSymbol(point.getX() - previous.getX(), point.getY() - previous.getY());
+            if (symbol == 0) return null;
+
+            if (symbol != run) {
+                appendRun(builder, run, runLength);
+                run = symbol;
+                runLength = 0;
+            }
+
+            runLength++;
+            previous = point;
+        }
+
+        appendRun(builder, run, runLength);
+        return builder.toString();
+    }
+
+    /**
+     * Parses direction runs without decoding any body parts.
+     * The head must be set with {@link DirectionRunList#withOrigin(Point)} before any part is accessed.
+     * @throws IllegalArgumentException When the runs are invalid.
+     */
+    @NotNull
+    public static DirectionRunList parse(@NotNull String runs) {
+        long size = 0;
+        int i = 0;
+
+        while (i < runs.length()) {
+            if (getDirection(runs.charAt(i++)) == null) {
+                throw new IllegalArgumentException("Invalid direction runs!");
+            }
+
+            int count = 0;
+            int digits = 0;
+            while (i < runs.length() && runs.charAt(i) >= '0' && runs.charAt(i) <= '9') {
+                count = count * 10 + (runs.charAt(i++) - '0');
+
+                if (++digits > 5) {
+                    throw new IllegalArgumentException("Invalid direction runs!");
+                }
+            }
+
+            size += digits == 0 ? 1 : count;
+        }
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid direction runs!");
+        }
+
+        return new DirectionRunList(runs, (int) size, null);
+    }
+
+    /**
+     * Gets a copy of this list starting at a head, which is shared by snakes deserialized from JSON.
+     */
+    @NotNull
+    public DirectionRunList withOrigin(@NotNull Point head) {
+        return new DirectionRunList(runs, size, head);
+    }
+
+    /**
+     * Gets the encoded direction runs.
+     */
+    @NotNull
+    public String getRuns() {
+        return runs;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Point get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return decode()[index];
+    }
+
+    /**
+     * Decodes every body part the first time any part is accessed.
+     */
+    private Point[] decode() {
+        Point[] decoded = points;
+        if (decoded != null) return decoded;
+
+        if (origin == null) {
+            throw new IllegalStateException("Direction runs do not have a head!");
+        }
+
+        decoded = new Point[size];
+        int x = origin.getX();
+        int y = origin.getY();
+        int index = 0;
+        int i = 0;
+
+        while (i < runs.length()) {
+            Direction direction = getDirection(runs.charAt(i++));
+
+            int count = 0;
+            int digits = 0;
+            while (i < runs.length() && runs.charAt(i) >= '0' && runs.charAt(i) <= '9') {
+                count = count * 10 + (runs.charAt(i++) - '0');
+                digits++;
+            }
+
+            for (int j = digits == 0 ? 1 : count; j > 0; j--) {
+                x += direction.x;
+                y += direction.y;
+                decoded[index++] = Point.of(x, y);
+            }
+        }
+
+        points = decoded;
+        return decoded;
+    }
+
+    private static void appendRun(StringBuilder builder, char symbol, int length) {
+        if (length == 0) return;
+
+        builder.append(symbol);
+        if (length > 1) {
+            builder.append(length);
+        }
+    }
+
+    /**
+     * Gets the letter of a direction from a single step, or 0 if it isn't one.
+     */
+    private static char getSymbol(int dx, int dy) {
+        for (Direction direction : DIRECTIONS) {
+            if (direction.x == dx && direction.y == dy) {
+                return direction.name().charAt(0);
+            }
+        }
+
+        return 0;
+    }
+
+    @Nullable
+    private static Direction getDirection(char symbol) {
+        switch (symbol) {
+            case 'L':
+                return Direction.LEFT;
+            case 'U':
+                return Direction.UP;
+            case 'R':
+                return Direction.RIGHT;
+            case 'D':
+                return Direction.DOWN;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package apcs.snakebattlearena.util;
+
+import apcs.snakebattlearena.Point;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A growable circular buffer of points packed into single ints,
+ * supporting O(1) pushes to the front, pops from the back and indexed access.
+ * Index 0 is always the front (most recently pushed) point.
+ * The capacity is always a power of two so that wrapping is a single mask.
+ */
+public final class PointRingBuffer {
+    private int[] points;
+    private int first = 0;
+    private int size = 0;
+
+    private final List<Point> view = new View();
+
+    /**
+     * Creates an empty buffer with an initial capacity.
+     * @param capacity The initial capacity, which is rounded up to a power of two and grows as needed.
+     */
+    public PointRingBuffer(int capacity) {
+        this.points = new int[capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+    }
+
+    /**
+     * Packs an (x,y) coordinate into a single int, as 16-bit signed values with x in the upper half.
+     * Both values must fit in a short. Also used by the packed tick protocol, refer to {@link Point#pack()}.
+     */
+    public static int pack(int x, int y) {
+        return (x << 16) | (y & 0xFFFF);
+    }
+
+    /**
+     * Gets the x coordinate of a packed point.
+     */
+    public static int unpackX(int packed) {
+        return packed >> 16;
+    }
+
+    /**
+     * Gets the y coordinate of a packed point.
+     */
+    public static int unpackY(int packed) {
+        return (short) packed;
+    }
+
+    /**
+     * Returns the amount of points in this buffer.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether this buffer has no points.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets a packed point by its index from the front.
+     * @throws IndexOutOfBoundsException When the index is not within the size of this buffer.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return points[(first + index) & (points.length - 1)];
+    }
+
+    /**
+     * Gets the last packed point of this buffer.
+     * @throws IllegalStateException When the buffer is empty.
+     */
+    public int getLast() {
+        if (size == 0) {
+            throw new IllegalStateException("Buffer is empty!");
+        }
+
+        return points[(first + size - 1) & (points.length - 1)];
+    }
+
+    /**
+     * Pushes a new packed point to the front of this buffer, growing it if full.
+     */
+    public void addFirst(int packed) {
+        if (size == points.length) {
+            grow();
+        }
+
+        first = (first - 1) & (points.length - 1);
+        points[first] = packed;
+        size++;
+    }
+
+    /**
+     * Removes the last point of this buffer.
+     * @return The removed packed point.
+     * @throws IllegalStateException When the buffer is empty.
+     */
+    public int removeLast() {
+        int last = getLast();
+        size--;
+        return last;
+    }
+
+    /**
+     * Gets a read-only view of this buffer as points, ordered from the front.
+     * The view reflects any later changes to this buffer.
+     */
+    @NotNull
+    public List<Point> asList() {
+        return view;
+    }
+
+    /**
+     * Copies the current points of this buffer into an immutable list, ordered from the front.
+     * Unlike {@link PointRingBuffer#asList()}, the copy is unaffected by later changes
+     * and can safely be read from other threads.
+     */
+    @NotNull
+    public List<Point> toList() {
+        Point[] copy = new Point[size];
+
+        for (int i = 0; i < size; i++) {
+            int packed = points[(first + i) & (points.length - 1)];
+            copy[i] = Point.unpack(packed);
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(copy));
+    }
+
+    /**
+     * Doubles the capacity, unwrapping the points to start at index 0.
+     */
+    private void grow() {
+        int[] grown = new int[points.length * 2];
+        int tailLength = points.length - first;
+
+        System.arraycopy(points, first, grown, 0, tailLength);
+        System.arraycopy(points, 0, grown, tailLength, first);
+
+        points = grown;
+        first = 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PointRingBuffer)) return false;
+
+        PointRingBuffer other = (PointRingBuffer) o;
+        if (size != other.size) return false;
+
+        for (int i = 0; i < size; i++) {
+            if (get(i) != other.get(i)) return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + get(i);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return view.toString();
+    }
+
+    /**
+     * Read-only list view creating points on access.
+     */
+    private class View extends AbstractList<Point> implements RandomAccess {
+        @Override
+        public Point get(int index) {
+            int packed = PointRingBuffer.this.get(index);
+            return Point.unpack(packed);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package apcs.snakebattlearena.util;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.TickData;
+import apcs.snakebattlearena.models.entities.EntityData;
+import apcs.snakebattlearena.models.entities.SnakeData;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.models.entities.SnakeMoveData;
+import apcs.snakebattlearena.models.entities.SpawnedEntityData;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The entities of an arena rebuilt from its delta ticks, applied in order. This lets full ticks be built
+ * away from the tick thread, such as by the server's tick pipeline and replays, or by clients of delta ticks.
+ * Snakes are kept mutable, so that applying a move doesn't copy the whole body. Not thread-safe.
+ */
+public class TickState {
+    /**
+     * Entity ID -> Entity, for all entities other than snakes.
+     */
+    private HashMap<Integer, EntityData> entities = new HashMap<>();
+
+    /**
+     * Entity ID -> Snake.
+     */
+    private HashMap<Integer, StateSnake> snakes = new HashMap<>();
+
+    private List<EntityData> lastRemoved = Collections.emptyList();
+
+    /**
+     * Applies a delta tick, refer to {@link DeltaTickData} for the order.
+     */
+    public void apply(@NotNull DeltaTickData delta) {
+        HashMap<Integer, EntityData> oldEntities = entities;
+        HashMap<Integer, StateSnake> oldSnakes = snakes;
+
+        // Keep the old entities around, since the removed entities of a keyframe aren't part of it
+        if (delta.isKeyframe()) {
+            entities = new HashMap<>();
+            snakes = new HashMap<>();
+        }
+
+        for (SnakeMoveData move : delta.getMoved()) {
+            StateSnake snake = snakes.get(move.getId());
+
+            if (snake != null) {
+                snake.move(move);
+            }
+        }
+
+        for (SpawnedEntityData spawned : delta.getSpawned()) {
+            EntityData entity = spawned.getEntity();
+
+            if (entity instanceof SnakeData) {
+                snakes.put(spawned.getId(), new StateSnake((SnakeData) entity));
+            } else {
+                entities.put(spawned.getId(), entity);
+            }
+        }
+
+        lastRemoved = new ArrayList<>(delta.getRemoved().size());
+        for (int id : delta.getRemoved()) {
+            StateSnake snake = oldSnakes.remove(id);
+            EntityData removed = snake != null ? snake.toData() : oldEntities.remove(id);
+
+            if (removed != null) {
+                lastRemoved.add(removed);
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of entities, including snakes.
+     */
+    public int getEntityCount() {
+        return entities.size() + snakes.size();
+    }
+
+    /**
+     * Gets a copy of every entity, as sent in full ticks.
+     */
+    @NotNull
+    public List<EntityData> getEntities() {
+        List<EntityData> all = new ArrayList<>(getEntityCount());
+        all.addAll(entities.values());
+        snakes.values().forEach(snake -> all.add(snake.toData()));
+        return all;
+    }
+
+    /**
+     * Gets the entities removed by the last applied tick, as they were last known.
+     */
+    @NotNull
+    public List<EntityData> getLastRemoved() {
+        return lastRemoved;
+    }
+
+    /**
+     * Builds a full tick of the current state, as sent to full tick clients and spectators.
+     */
+    @NotNull
+    public TickData toTickData() {
+        return TickData.Builder.builder()
+                .setEntities(getEntities())
+                .setRemovedEntities(lastRemoved)
+                .build();
+    }
+
+    /**
+     * A snake of the state, starting from its spawned data.
+     */
+    private static class StateSnake {
+        final SnakeMetadata metadata;
+        final ArrayDeque<Point> body;
+        Point head;
+        int curledLength;
+
+        StateSnake(SnakeData data) {
+            this.metadata = data.getMetadata();
+            this.body = new ArrayDeque<>(data.getBody());
+            this.head = data.getHead();
+            this.curledLength = data.getCurledLength();
+        }
+
+        /**
+         * Applies a move, refer to {@link SnakeMoveData}.
+         */
+        void move(SnakeMoveData move) {
+            if (move.isBodyAdded()) {
+                body.addFirst(head);
+            }
+            if (move.isTailRemoved()) {
+                body.pollLast();
+            }
+
+            head = move.getHead();
+            curledLength = move.getCurledLength();
+        }
+
+        SnakeData toData() {
+            return SnakeData.Builder.builder()
+                    .setMetadata(metadata)
+                    .setBody(new ArrayList<>(body))
+                    .setHead(head)
+                    .setCurledLength(curledLength)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package apcs.snakebattlearena.serializers;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.DeathReason;
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.TickData;
+import apcs.snakebattlearena.models.entities.*;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTickCodecTest {
+    private static final SnakeData SNAKE = SnakeData.Builder.builder()
+            .setMetadata(SnakeMetadata.Builder.builder()
+                    .setName("Sn\u00e4ke \uD83D\uDC0D")
+                    .setColor(new Color(0x12, 0x34, 0x56))
+                    .build())
+            .setHead(Point.of(5, 5))
+            .setBody(Arrays.asList(Point.of(5, 6), Point.of(4, 6), Point.of(4, 5), Point.of(4, 4), Point.of(5, 4)))
+            .setCurledLength(3)
+            .build();
+
+    private static final AppleData APPLE = AppleData.Builder.builder()
+            .setPosition(Point.of(0, 9))
+            .setReward(4)
+            .setEaten(true)
+            .build();
+
+    private static final WallData WALL = WallData.Builder.builder()
+            .setStart(Point.of(2, 0))
+            .setEnd(Point.of(2, 7))
+            .build();
+
+    @Test
+    void roundTripsTicks() {
+        TickData tick = TickData.Builder.builder()
+                .setEntities(Arrays.asList(SNAKE, APPLE, WALL))
+                .setRemovedEntities(Collections.singletonList(SnakeData.Builder.builder()
+                        .setMetadata(SNAKE.getMetadata())
+                        .setHead(Point.of(1, 1))
+                        .setBody(Collections.emptyList())
+                        .setCurledLength(0)
+                        .setDeathReason(DeathReason.SELF_COLLISION)
+                        .build()))
+                .build();
+
+        byte[] frame = BinaryTickCodec.encode(tick);
+        assertEquals(BinaryTickCodec.TICK, BinaryTickCodec.getType(frame));
+        assertEquals(tick, BinaryTickCodec.decodeTick(frame));
+    }
+
+    @Test
+    void roundTripsEveryDeathReason() {
+        for (DeathReason reason : DeathReason.values()) {
+            TickData tick = TickData.Builder.builder()
+                    .setEntities(Collections.singletonList(SnakeData.Builder.builder()
+                            .setMetadata(SNAKE.getMetadata())
+                            .setHead(Point.of(1, 1))
+                            .setBody(Collections.emptyList())
+                            .setCurledLength(0)
+                            .setDeathReason(reason)
+                            .build()))
+                    .setRemovedEntities(Collections.emptyList())
+                    .build();
+
+            assertEquals(tick, BinaryTickCodec.decodeTick(BinaryTickCodec.encode(tick)));
+        }
+    }
+
+    @Test
+    void roundTripsDeltas() {
+        DeltaTickData delta = DeltaTickData.Builder.builder()
+                .setTick(123_456_789_012L)
+                .setKeyframe(true)
+                .setSpawned(Arrays.asList(
+                        SpawnedEntityData.Builder.builder().setId(0).setEntity(SNAKE).build(),
+                        SpawnedEntityData.Builder.builder().setId(Integer.MAX_VALUE).setEntity(APPLE).build()))
+                .setMoved(Arrays.asList(
+                        move(1, Point.of(3, 3), true, false, 2),
+                        move(200, Point.of(0, 0), false, true, 0),
+                        move(70_000, Point.of(9, 1), true, true, 1 << 20)))
+                .setRemoved(Arrays.asList(5, 128, 16_384))
+                .build();
+
+        byte[] frame = BinaryTickCodec.encode(delta);
+        assertEquals(BinaryTickCodec.DELTA, BinaryTickCodec.getType(frame));
+        assertEquals(delta, BinaryTickCodec.decodeDelta(frame));
+    }
+
+    /**
+     * Varints of every length, and zigzag coordinates and body offsets that overflow.
+     */
+    @Test
+    void roundTripsExtremeValues() {
+        int[] values = {0, 1, -1, 63, -64, 64, -65, 8191, -8192, 8192, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+        for (int x : values) {
+            for (int y : values) {
+                SnakeData snake = SnakeData.Builder.builder()
+                        .setMetadata(SNAKE.getMetadata())
+                        .setHead(Point.of(x, y))
+                        .setBody(Arrays.asList(Point.of(y, x), Point.of(-x, y), Point.of(x, y)))
+                        .setCurledLength(Math.abs(x))
+                        .build();
+                TickData tick = TickData.Builder.builder()
+                        .setEntities(Collections.singletonList(snake))
+                        .setRemovedEntities(Collections.emptyList())
+                        .build();
+
+                assertEquals(tick, BinaryTickCodec.decodeTick(BinaryTickCodec.encode(tick)));
+            }
+        }
+
+        for (long tick : new long[]{0, 127, 128, Integer.MAX_VALUE, 1L << 35, Long.MAX_VALUE, -1}) {
+            DeltaTickData delta = DeltaTickData.Builder.builder().setTick(tick).build();
+            assertEquals(delta, BinaryTickCodec.decodeDelta(BinaryTickCodec.encode(delta)));
+        }
+    }
+
+    @Test
+    void skipsUnknownEntities() {
+        byte[] apple = BinaryTickCodec.encode(TickData.Builder.builder()
+                .setEntities(Collections.singletonList(APPLE))
+                .setRemovedEntities(Collections.emptyList())
+                .build());
+
+        // An entity from a newer version, followed by the apple
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(BinaryTickCodec.TICK);
+        frame.write(2);
+        frame.write(99);
+        frame.write(3);
+        frame.write(1);
+        frame.write(2);
+        frame.write(3);
+        frame.write(apple, 2, apple.length - 3);
+        frame.write(0);
+
+        TickData tick = BinaryTickCodec.decodeTick(frame.toByteArray());
+        assertEquals(Collections.singletonList(APPLE), tick.getEntities());
+        assertEquals(Collections.emptyList(), tick.getRemovedEntities());
+    }
+
+    @Test
+    void rejectsInvalidFrames() {
+        assertThrows(IllegalArgumentException.class, () -> BinaryTickCodec.getType(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> BinaryTickCodec.getType(new byte[]{3}));
+
+        byte[] tick = BinaryTickCodec.encode(TickData.Builder.builder()
+                .setEntities(Arrays.asList(SNAKE, APPLE, WALL))
+                .setRemovedEntities(Collections.emptyList())
+                .build());
+        byte[] delta = BinaryTickCodec.encode(DeltaTickData.Builder.builder()
+                .setTick(1000)
+                .setSpawned(Collections.singletonList(SpawnedEntityData.Builder.builder().setId(1).setEntity(SNAKE).build()))
+                .setMoved(Collections.singletonList(move(1, Point.of(3, 3), true, false, 2)))
+                .setRemoved(Collections.singletonList(7))
+                .build());
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryTickCodec.decodeDelta(tick));
+        assertThrows(IllegalArgumentException.class, () -> BinaryTickCodec.decodeTick(delta));
+
+        // Every truncated frame fails instead of decoding garbage
+        for (int length = 1; length < tick.length; length++) {
+            byte[] truncated = Arrays.copyOf(tick, length);
+            assertThrows(IllegalArgumentException.class, () -> BinaryTickCodec.decodeTick(truncated), "Length " + length);
+        }
+        for (int length = 1; length < delta.length; length++) {
+            byte[] truncated = Arrays.copyOf(delta, length);
+            assertThrows(IllegalArgumentException.class, () -> BinaryTickCodec.decodeDelta(truncated), "Length " + length);
+        }
+    }
+
+    private static SnakeMoveData move(int id, Point head, boolean bodyAdded, boolean tailRemoved, int curledLength) {
+        return SnakeMoveData.Builder.builder()
+                .setId(id)
+                .setHead(head)
+                .setBodyAdded(bodyAdded)
+                .setTailRemoved(tailRemoved)
+                .setCurledLength(curledLength)
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package apcs.snakebattlearena.serializers;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.entities.*;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PointSerializerTest {
+    /**
+     * Configured like the server's mapper.
+     */
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new SimpleModule()
+                    .addSerializer(Color.class, new ColorSerializer())
+                    .addDeserializer(Color.class, new ColorDeserializer())
+                    .addSerializer(Point.class, new PointSerializer())
+                    .addDeserializer(Point.class, new PointDeserializer()))
+            .setSerializationInclusion(JsonInclude.Include.NON_DEFAULT);
+
+    private final ObjectWriter numericWriter = mapper.writer().withAttribute(PointSerializer.NUMERIC, true);
+
+    private static final int[] COORDINATES = {0, 1, 7, -1, 63, 64, Short.MAX_VALUE, Short.MIN_VALUE};
+
+    @Test
+    void packsPoints() {
+        for (int x : COORDINATES) {
+            for (int y : COORDINATES) {
+                assertEquals(Point.of(x, y), Point.unpack(Point.of(x, y).pack()));
+            }
+        }
+    }
+
+    @Test
+    void roundTripsPoints() throws IOException {
+        int[] coordinates = {0, 5, -5, 1_000_000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+        for (int x : coordinates) {
+            for (int y : coordinates) {
+                Point point = Point.of(x, y);
+                String json = mapper.writeValueAsString(point);
+
+                assertEquals("\"" + x + ";" + y + "\"", json);
+                assertEquals(point, mapper.readValue(json, Point.class));
+            }
+        }
+
+        for (int x : COORDINATES) {
+            for (int y : COORDINATES) {
+                Point point = Point.of(x, y);
+                String json = numericWriter.writeValueAsString(point);
+
+                assertEquals(String.valueOf(point.pack()), json);
+                assertEquals(point, mapper.readValue(json, Point.class));
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidPoints() {
+        String[] invalid = {"\"\"", "\"3\"", "\"3;\"", "\";3\"", "\"a;b\"", "\"1;2;3\"", "\"-;1\"", "\"99999999999;1\"", "\"2147483648;1\"", "true"};
+
+        for (String json : invalid) {
+            assertThrows(Exception.class, () -> mapper.readValue(json, Point.class), json);
+        }
+    }
+
+    @Test
+    void flattensSnakeBodies() throws IOException {
+        SnakeData snake = snake();
+        JsonNode json = mapper.readTree(numericWriter.writeValueAsString(snake)).get("SNAKE");
+
+        assertEquals(Point.of(5, 5).pack(), json.get("head").intValue());
+        assertEquals(mapper.readTree("[5,6,4,6,4,5,-1,5]"), json.get("body"));
+        assertEquals(snake, mapper.readValue(numericWriter.writeValueAsString(snake), EntityData.class));
+
+        // The same snake in the default format
+        JsonNode text = mapper.readTree(mapper.writeValueAsString(snake)).get("SNAKE");
+        assertEquals(mapper.readTree("[\"5;6\",\"4;6\",\"4;5\",\"-1;5\"]"), text.get("body"));
+    }
+
+    @Test
+    void roundTripsDeltasInEitherFormat() throws IOException {
+        DeltaTickData delta = DeltaTickData.Builder.builder()
+                .setTick(42)
+                .setKeyframe(true)
+                .setSpawned(Arrays.asList(
+                        SpawnedEntityData.Builder.builder().setId(1).setEntity(snake()).build(),
+                        SpawnedEntityData.Builder.builder().setId(2).setEntity(AppleData.Builder.builder()
+                                .setPosition(Point.of(0, 3))
+                                .setReward(2)
+                                .build()).build(),
+                        SpawnedEntityData.Builder.builder().setId(3).setEntity(WallData.Builder.builder()
+                                .setStart(Point.of(9, 0))
+                                .setEnd(Point.of(9, 9))
+                                .build()).build()))
+                .setMoved(Collections.singletonList(SnakeMoveData.Builder.builder()
+                        .setId(1)
+                        .setHead(Point.of(6, 5))
+                        .setBodyAdded(true)
+                        .setTailRemoved(true)
+                        .setCurledLength(0)
+                        .build()))
+                .setRemoved(Collections.singletonList(4))
+                .build();
+
+        assertEquals(delta, mapper.readValue(mapper.writeValueAsString(delta), DeltaTickData.class));
+        assertEquals(delta, mapper.readValue(numericWriter.writeValueAsString(delta), DeltaTickData.class));
+    }
+
+    @Test
+    void rejectsOddCoordinates() {
+        String json = "{\"SNAKE\":{\"metadata\":{\"name\":\"a\",\"color\":0},\"head\":0,\"body\":[1,2,3]}}";
+        assertThrows(Exception.class, () -> mapper.readValue(json, EntityData.class));
+    }
+
+    private static SnakeData snake() {
+        return SnakeData.Builder.builder()
+                .setMetadata(SnakeMetadata.Builder.builder()
+                        .setName("a")
+                        .setColor(new Color(0x123456))
+                        .build())
+                .setHead(Point.of(5, 5))
+                .setBody(Arrays.asList(Point.of(5, 6), Point.of(4, 6), Point.of(4, 5), Point.of(-1, 5)))
+                .setCurledLength(2)
+                .build();
+    }
+}
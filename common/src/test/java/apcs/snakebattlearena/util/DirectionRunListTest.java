@@ -0,0 +1,160 @@
+package apcs.snakebattlearena.util;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.entities.*;
+import apcs.snakebattlearena.serializers.ColorDeserializer;
+import apcs.snakebattlearena.serializers.ColorSerializer;
+import apcs.snakebattlearena.serializers.PointDeserializer;
+import apcs.snakebattlearena.serializers.PointListSerializer;
+import apcs.snakebattlearena.serializers.PointSerializer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectionRunListTest {
+    /**
+     * Configured like the server's mapper.
+     */
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new SimpleModule()
+                    .addSerializer(Color.class, new ColorSerializer())
+                    .addDeserializer(Color.class, new ColorDeserializer())
+                    .addSerializer(Point.class, new PointSerializer())
+                    .addDeserializer(Point.class, new PointDeserializer()))
+            .setSerializationInclusion(JsonInclude.Include.NON_DEFAULT);
+
+    private final ObjectWriter runsWriter = mapper.writer()
+            .withAttribute(PointSerializer.NUMERIC, true)
+            .withAttribute(PointListSerializer.DIRECTION_RUNS, true);
+
+    @Test
+    void encodesRuns() {
+        Point head = Point.of(5, 5);
+        List<Point> body = Arrays.asList(
+                Point.of(6, 5), Point.of(7, 5), Point.of(8, 5), Point.of(9, 5), Point.of(10, 5),
+                Point.of(10, 4), Point.of(10, 3), Point.of(10, 2),
+                Point.of(9, 2), Point.of(8, 2),
+                Point.of(8, 3));
+
+        assertEquals("R5U3L2D", DirectionRunList.encode(head, body));
+        assertEquals("", DirectionRunList.encode(head, Collections.emptyList()));
+
+        DirectionRunList runs = DirectionRunList.parse("R5U3L2D").withOrigin(head);
+        assertEquals(11, runs.size());
+        assertEquals(body, runs);
+    }
+
+    @Test
+    void roundTripsRandomBodies() {
+        Random rnd = new Random(1);
+        int[][] steps = {{-1, 0}, {0, -1}, {1, 0}, {0, 1}};
+
+        for (int i = 0; i < 500; i++) {
+            Point head = Point.of(rnd.nextInt(200) - 100, rnd.nextInt(200) - 100);
+            List<Point> body = new ArrayList<>();
+            Point previous = head;
+
+            // Long straight runs as well as single steps
+            int length = rnd.nextInt(300);
+            int[] step = steps[rnd.nextInt(4)];
+            for (int j = 0; j < length; j++) {
+                if (rnd.nextInt(4) == 0) {
+                    step = steps[rnd.nextInt(4)];
+                }
+
+                previous = Point.of(previous.getX() + step[0], previous.getY() + step[1]);
+                body.add(previous);
+            }
+
+            String runs = DirectionRunList.encode(head, body);
+            assertNotNull(runs);
+
+            DirectionRunList decoded = DirectionRunList.parse(runs);
+            assertEquals(body.size(), decoded.size());
+            assertEquals(body, decoded.withOrigin(head));
+        }
+    }
+
+    @Test
+    void refusesBodiesWithGaps() {
+        Point head = Point.of(5, 5);
+
+        assertNull(DirectionRunList.encode(head, Collections.singletonList(Point.of(7, 5))));
+        assertNull(DirectionRunList.encode(head, Collections.singletonList(Point.of(6, 6))));
+        assertNull(DirectionRunList.encode(head, Collections.singletonList(head)));
+    }
+
+    @Test
+    void rejectsInvalidRuns() {
+        for (String runs : new String[]{"X", "5", "R-1", "r2", "R123456", "R 2"}) {
+            assertThrows(IllegalArgumentException.class, () -> DirectionRunList.parse(runs), runs);
+        }
+
+        // Without a head, only the size is known
+        DirectionRunList runs = DirectionRunList.parse("D99999");
+        assertEquals(99999, runs.size());
+        assertThrows(IllegalStateException.class, () -> runs.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> runs.withOrigin(Point.of(0, 0)).get(99999));
+    }
+
+    @Test
+    void serializesSnakeBodies() throws IOException {
+        SnakeData snake = snake(Arrays.asList(Point.of(5, 6), Point.of(5, 7), Point.of(4, 7)));
+
+        String json = runsWriter.writeValueAsString(snake);
+        assertEquals("D2L", mapper.readTree(json).get("SNAKE").get("body").textValue());
+
+        EntityData decoded = mapper.readValue(json, EntityData.class);
+        assertEquals(snake, decoded);
+        assertTrue(((SnakeData) decoded).getBody() instanceof DirectionRunList);
+
+        // Written again without decoding
+        assertEquals(json, runsWriter.writeValueAsString(decoded));
+    }
+
+    @Test
+    void fallsBackForBodiesWithGaps() throws IOException {
+        SnakeData snake = snake(Arrays.asList(Point.of(5, 6), Point.of(9, 9)));
+
+        String json = runsWriter.writeValueAsString(snake);
+        assertEquals(mapper.readTree("[5,6,9,9]"), mapper.readTree(json).get("SNAKE").get("body"));
+        assertEquals(snake, mapper.readValue(json, EntityData.class));
+    }
+
+    @Test
+    void roundTripsDeltas() throws IOException {
+        DeltaTickData delta = DeltaTickData.Builder.builder()
+                .setTick(7)
+                .setKeyframe(true)
+                .setSpawned(Arrays.asList(
+                        SpawnedEntityData.Builder.builder().setId(1).setEntity(snake(Arrays.asList(Point.of(6, 5), Point.of(7, 5)))).build(),
+                        SpawnedEntityData.Builder.builder().setId(2).setEntity(snake(Collections.emptyList())).build()))
+                .build();
+
+        assertEquals(delta, mapper.readValue(runsWriter.writeValueAsString(delta), DeltaTickData.class));
+    }
+
+    private static SnakeData snake(List<Point> body) {
+        return SnakeData.Builder.builder()
+                .setMetadata(SnakeMetadata.Builder.builder()
+                        .setName("a")
+                        .setColor(new Color(0x123456))
+                        .build())
+                .setHead(Point.of(5, 5))
+                .setBody(body)
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package apcs.snakebattlearena.util;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.entities.Snake;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PointRingBufferTest {
+    @Test
+    void packsCoordinates() {
+        int[][] coordinates = {{0, 0}, {3, 7}, {-1, 0}, {0, -1}, {Short.MAX_VALUE, Short.MIN_VALUE}, {Short.MIN_VALUE, Short.MAX_VALUE}};
+
+        for (int[] coordinate : coordinates) {
+            int packed = PointRingBuffer.pack(coordinate[0], coordinate[1]);
+            assertEquals(coordinate[0], PointRingBuffer.unpackX(packed));
+            assertEquals(coordinate[1], PointRingBuffer.unpackY(packed));
+        }
+    }
+
+    @Test
+    void behavesLikeADeque() {
+        Random rnd = new Random(1);
+        PointRingBuffer buffer = new PointRingBuffer(1);
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+
+        // Grows and shrinks around the end of the array many times, including growing while wrapped around
+        for (int i = 0; i < 10_000; i++) {
+            if (expected.isEmpty() || rnd.nextInt(5) < 3) {
+                int packed = PointRingBuffer.pack(rnd.nextInt(64), rnd.nextInt(64));
+                buffer.addFirst(packed);
+                expected.addFirst(packed);
+            } else {
+                assertEquals((int) expected.removeLast(), buffer.removeLast());
+            }
+
+            assertEquals(expected.size(), buffer.size());
+            assertEquals(expected.isEmpty(), buffer.isEmpty());
+            if (!expected.isEmpty()) {
+                assertEquals((int) expected.getLast(), buffer.getLast());
+            }
+        }
+
+        int index = 0;
+        for (int packed : expected) {
+            assertEquals(packed, buffer.get(index++));
+        }
+        assertEquals(toPoints(expected), buffer.asList());
+        assertEquals(toPoints(expected), buffer.toList());
+    }
+
+    @Test
+    void viewsFollowTheBuffer() {
+        PointRingBuffer buffer = new PointRingBuffer(4);
+        List<Point> view = buffer.asList();
+
+        buffer.addFirst(PointRingBuffer.pack(1, 2));
+        List<Point> copy = buffer.toList();
+        buffer.addFirst(PointRingBuffer.pack(3, 4));
+
+        assertEquals(2, view.size());
+        assertEquals(Point.of(3, 4), view.get(0));
+        assertEquals(1, copy.size());
+        assertThrows(UnsupportedOperationException.class, () -> view.add(Point.of(0, 0)));
+        assertThrows(UnsupportedOperationException.class, () -> copy.add(Point.of(0, 0)));
+    }
+
+    @Test
+    void rejectsMissingPoints() {
+        PointRingBuffer buffer = new PointRingBuffer(2);
+
+        assertThrows(IllegalStateException.class, buffer::getLast);
+        assertThrows(IllegalStateException.class, buffer::removeLast);
+
+        buffer.addFirst(0);
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(-1));
+    }
+
+    @Test
+    void comparesByContent() {
+        PointRingBuffer first = new PointRingBuffer(1);
+        PointRingBuffer second = new PointRingBuffer(16);
+
+        // The same points at different offsets of differently sized arrays
+        for (int i = 0; i < 8; i++) {
+            second.addFirst(PointRingBuffer.pack(i, i));
+            second.removeLast();
+        }
+        for (int i = 0; i < 5; i++) {
+            first.addFirst(PointRingBuffer.pack(i, 0));
+            second.addFirst(PointRingBuffer.pack(i, 0));
+        }
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        second.removeLast();
+        assertNotEquals(first, second);
+    }
+
+    /**
+     * Moves a snake around at random, next to the <code>LinkedList</code> body it had before.
+     */
+    @Test
+    void movesSnakesLikeBefore() {
+        Random rnd = new Random(2);
+        Snake snake = new Snake("a", Color.RED, Point.of(10, 10));
+
+        Point head = snake.getHead();
+        LinkedList<Point> body = new LinkedList<>();
+        int curledLength = 0;
+
+        for (int i = 0; i < 2000; i++) {
+            if (rnd.nextInt(10) == 0) {
+                int reward = 1 + rnd.nextInt(4);
+                snake.internalAddCurledLength(reward);
+                curledLength += reward;
+            }
+
+            Point newHead = Point.of(rnd.nextInt(20), rnd.nextInt(20));
+            snake.internalMove(newHead);
+
+            if (curledLength <= 0 && !body.isEmpty()) {
+                body.removeLast();
+                body.addFirst(head);
+            }
+            if (curledLength > 0) {
+                curledLength--;
+                body.addFirst(head);
+            }
+            head = newHead;
+
+            assertEquals(head, snake.getHead());
+            assertEquals(body, snake.getBody());
+            assertEquals(body.isEmpty() ? head : body.getLast(), snake.getTail());
+            assertEquals(body.size() + 1 + curledLength, snake.getLength());
+        }
+    }
+
+    private static List<Point> toPoints(Iterable<Integer> packed) {
+        List<Point> points = new ArrayList<>();
+        for (int point : packed) {
+            points.add(Point.of(PointRingBuffer.unpackX(point), PointRingBuffer.unpackY(point)));
+        }
+        return points;
+    }
+}
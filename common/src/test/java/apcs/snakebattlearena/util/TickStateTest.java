@@ -0,0 +1,143 @@
+package apcs.snakebattlearena.util;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.entities.AppleData;
+import apcs.snakebattlearena.models.entities.EntityData;
+import apcs.snakebattlearena.models.entities.SnakeData;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.models.entities.SnakeMoveData;
+import apcs.snakebattlearena.models.entities.SpawnedEntityData;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickStateTest {
+    private static final SnakeMetadata METADATA = SnakeMetadata.Builder.builder()
+            .setName("a")
+            .setColor(Color.GREEN)
+            .build();
+
+    private final TickState state = new TickState();
+
+    @Test
+    void appliesMoves() {
+        state.apply(keyframe(1, spawned(1, snake(Point.of(3, 3), 2)), spawned(2, apple(Point.of(5, 5)))));
+
+        // Grow, then move along with the tail, then shrink
+        state.apply(delta(2, move(1, Point.of(4, 3), true, false, 1)));
+        state.apply(delta(3, move(1, Point.of(5, 3), true, false, 0)));
+        state.apply(delta(4, move(1, Point.of(6, 3), true, true, 0)));
+        assertEquals(Arrays.asList(apple(Point.of(5, 5)), snake(Point.of(6, 3), 0, Point.of(5, 3), Point.of(4, 3))),
+                sorted(state.getEntities()));
+
+        state.apply(delta(5, move(1, Point.of(7, 3), false, true, 0)));
+        assertEquals(snake(Point.of(7, 3), 0, Point.of(5, 3)), findSnake(state.getEntities()));
+    }
+
+    @Test
+    void keepsRemovedEntitiesAsTheyWereLastKnown() {
+        state.apply(keyframe(1, spawned(1, snake(Point.of(3, 3), 0)), spawned(2, apple(Point.of(5, 5)))));
+
+        DeltaTickData delta = DeltaTickData.Builder.builder()
+                .setTick(2)
+                .setMoved(Collections.singletonList(move(1, Point.of(4, 3), true, true, 0)))
+                .setRemoved(Arrays.asList(1, 2, 3))
+                .build();
+        state.apply(delta);
+
+        // The unknown entity is left out
+        assertEquals(Arrays.asList(apple(Point.of(5, 5)), snake(Point.of(4, 3), 0)), sorted(state.getLastRemoved()));
+        assertEquals(0, state.getEntityCount());
+
+        state.apply(delta(3));
+        assertEquals(Collections.emptyList(), state.getLastRemoved());
+    }
+
+    @Test
+    void replacesEverythingOnKeyframes() {
+        state.apply(keyframe(1, spawned(1, snake(Point.of(3, 3), 0)), spawned(2, apple(Point.of(5, 5)))));
+
+        // The removed entities of a keyframe are no longer part of it, so they're looked up in the previous state
+        DeltaTickData keyframe = DeltaTickData.Builder.builder()
+                .setTick(2)
+                .setKeyframe(true)
+                .setSpawned(Collections.singletonList(spawned(2, apple(Point.of(5, 5)))))
+                .setRemoved(Collections.singletonList(1))
+                .build();
+        state.apply(keyframe);
+
+        assertEquals(Collections.singletonList(apple(Point.of(5, 5))), state.getEntities());
+        assertEquals(Collections.singletonList(snake(Point.of(3, 3), 0)), state.getLastRemoved());
+    }
+
+    private static DeltaTickData keyframe(long tick, SpawnedEntityData... spawned) {
+        return DeltaTickData.Builder.builder()
+                .setTick(tick)
+                .setKeyframe(true)
+                .setSpawned(Arrays.asList(spawned))
+                .build();
+    }
+
+    private static DeltaTickData delta(long tick, SnakeMoveData... moved) {
+        return DeltaTickData.Builder.builder()
+                .setTick(tick)
+                .setMoved(Arrays.asList(moved))
+                .build();
+    }
+
+    private static SpawnedEntityData spawned(int id, EntityData entity) {
+        return SpawnedEntityData.Builder.builder()
+                .setId(id)
+                .setEntity(entity)
+                .build();
+    }
+
+    private static SnakeMoveData move(int id, Point head, boolean bodyAdded, boolean tailRemoved, int curledLength) {
+        return SnakeMoveData.Builder.builder()
+                .setId(id)
+                .setHead(head)
+                .setBodyAdded(bodyAdded)
+                .setTailRemoved(tailRemoved)
+                .setCurledLength(curledLength)
+                .build();
+    }
+
+    private static SnakeData snake(Point head, int curledLength, Point... body) {
+        return SnakeData.Builder.builder()
+                .setMetadata(METADATA)
+                .setBody(Arrays.asList(body))
+                .setHead(head)
+                .setCurledLength(curledLength)
+                .build();
+    }
+
+    private static AppleData apple(Point position) {
+        return AppleData.Builder.builder()
+                .setPosition(position)
+                .setReward(1)
+                .build();
+    }
+
+    private static SnakeData findSnake(List<EntityData> entities) {
+        return (SnakeData) entities.stream()
+                .filter(entity -> entity instanceof SnakeData)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Sorts entities by their string form, since their order isn't part of the state.
+     */
+    private static List<EntityData> sorted(List<EntityData> entities) {
+        List<EntityData> sorted = new ArrayList<>(entities);
+        sorted.sort((a, b) -> a.toString().compareTo(b.toString()));
+        return sorted;
+    }
+}
@@ -0,0 +1,21 @@
+val springVersion = "5.3.27" // Spring framework version of spring-boot 2.7.11
+
+dependencies {
+    implementation("org.springframework:spring-websocket:$springVersion")
+    implementation("org.springframework:spring-messaging:$springVersion")
+    implementation("org.apache.tomcat.embed:tomcat-embed-websocket:9.0.74")
+    implementation("com.fasterxml.jackson.core:jackson-databind:2.13.5")
+    implementation("org.hdrhistogram:HdrHistogram:2.1.12")
+    compileOnly("org.jetbrains:annotations:24.0.0")
+}
+
+// Runs the load generator against a running server, with options from -Ploadgen="bots=2000 duration=60"
+tasks.register<JavaExec>("loadgen") {
+    group = "benchmark"
+    dependsOn("classes")
+
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("apcs.snakebattlearena.loadgen.LoadGenerator")
+    maxHeapSize = "2g"
+    args = project.findProperty("loadgen")?.toString()?.split(" ")?.filter { it.isNotEmpty() } ?: emptyList()
+}
@@ -0,0 +1,226 @@
+package apcs.snakebattlearena.loadgen;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single simulated client, which joins then answers every tick with a random move.
+ * Bots don't track the board, so they eventually die and join again every few ticks.
+ */
+class Bot extends StompSessionHandlerAdapter {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Moves ordered so that the opposite of each direction is 2 away.
+     */
+    private static final String[] MOVES = {
+            "{\"direction\":\"LEFT\"}",
+            "{\"direction\":\"UP\"}",
+            "{\"direction\":\"RIGHT\"}",
+            "{\"direction\":\"DOWN\"}",
+    };
+
+    private final LoadGenerator.Options options;
+    private final LoadStats stats;
+    private final String name;
+    private final Random rnd;
+
+    private final AtomicBoolean connected = new AtomicBoolean();
+    private volatile StompSession session;
+    private volatile long connectedAt;
+    private volatile boolean subscribed = false;
+
+    // Only accessed by the thread of the session
+    private long lastTick = -1;
+    private long lastTickAt = 0;
+    private long ticksSinceJoin = 0;
+    private int facing = -1;
+
+    Bot(LoadGenerator.Options options, LoadStats stats, int index) {
+        this.options = options;
+        this.stats = stats;
+        this.name = options.namePrefix + "-" + index;
+        this.rnd = new Random(options.seed + index);
+    }
+
+    @Override
+    public void afterConnected(@NotNull StompSession session, @NotNull StompHeaders connectedHeaders) {
+        this.session = session;
+        this.connectedAt = System.nanoTime();
+        connected.set(true);
+        stats.connectedCount.incrementAndGet();
+
+        session.subscribe("/user/topic/join", new Handler() {
+            @Override
+            public void handleFrame(@NotNull StompHeaders headers, Object payload) {
+                onJoined((byte[]) payload);
+            }
+        });
+
+        join();
+    }
+
+    @Override
+    public void handleTransportError(@NotNull StompSession session, @NotNull Throwable exception) {
+        // Only count each connection once, errors before connecting are counted by the load generator
+        if (!connected.compareAndSet(true, false)) return;
+
+        stats.connectedCount.decrementAndGet();
+        stats.disconnects.recordValue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectedAt));
+    }
+
+    @Override
+    public void handleException(@NotNull StompSession session,
+                                StompCommand command,
+                                @NotNull StompHeaders headers,
+                                byte[] payload,
+                                @NotNull Throwable exception) {
+        stats.joinErrorCount.incrementAndGet();
+    }
+
+    /**
+     * Disconnects at the end of a run, which isn't recorded as a disconnect.
+     */
+    void disconnect() {
+        if (connected.compareAndSet(true, false)) {
+            stats.connectedCount.decrementAndGet();
+            session.disconnect();
+        }
+    }
+
+    private void join() {
+        String destination = options.arena != null ? "/client/" + options.arena + "/join" : "/client/join";
+        String join = "{\"snake\":{\"name\":\"" + name + "\",\"color\":" + (rnd.nextInt() & 0xFFFFFF) + "}"
+                + ",\"version\":\"" + options.version + "\""
+                + ",\"protocol\":" + options.protocol + "}";
+
+        send(destination, join);
+        ticksSinceJoin = 0;
+    }
+
+    /**
+     * Subscribes to the tick destination from the first successful join.
+     * Later joins fail while the snake is still alive, which is expected.
+     */
+    private void onJoined(byte[] payload) {
+        try {
+            JsonNode response = MAPPER.readTree(payload);
+
+            if (response.hasNonNull("error")) {
+                if (!subscribed) {
+                    stats.joinErrorCount.incrementAndGet();
+                }
+                return;
+            }
+
+            if (subscribed) return;
+            subscribed = true;
+
+            session.subscribe(response.get("destination").asText(), new Handler() {
+                @Override
+                public void handleFrame(@NotNull StompHeaders headers, Object payload) {
+                    onTick((byte[]) payload);
+                }
+            });
+        } catch (IOException e) {
+            stats.joinErrorCount.incrementAndGet();
+        }
+    }
+
+    private void onTick(byte[] payload) {
+        long receivedAt = System.nanoTime();
+        stats.tickCount.incrementAndGet();
+
+        if (lastTickAt != 0) {
+            stats.tickInterval.recordValue(TimeUnit.NANOSECONDS.toMicros(receivedAt - lastTickAt));
+        }
+        lastTickAt = receivedAt;
+
+        // Only delta ticks are numbered
+        long tick = readTickNumber(payload);
+        if (tick > 0 && lastTick > 0 && tick > lastTick + 1) {
+            stats.missedTicks.recordValue(tick - lastTick - 1);
+            stats.missedTickCount.addAndGet(tick - lastTick - 1);
+        }
+        if (tick > 0) {
+            lastTick = tick;
+        }
+
+        // Join again in case the snake died, the server rejects it otherwise
+        if (++ticksSinceJoin >= options.rejoinTicks) {
+            join();
+        }
+
+        // Randomly turn or keep going, without reversing into itself
+        int move = facing < 0 ? rnd.nextInt(MOVES.length) : (facing + 3 + rnd.nextInt(3)) % MOVES.length;
+        facing = move;
+        send("/client/move", MOVES[move]);
+
+        stats.moveLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - receivedAt));
+    }
+
+    private void send(String destination, String payload) {
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+
+        try {
+            session.send(headers, payload);
+        } catch (IllegalStateException e) {
+            // The connection has closed, which is recorded as a disconnect
+        }
+    }
+
+    /**
+     * Reads the top-level tick number of a JSON delta tick without parsing the rest.
+     * @return The tick number, or -1 if there is none.
+     */
+    private static long readTickNumber(byte[] payload) {
+        try (JsonParser parser = JSON.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return -1;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                if ("tick".equals(field)) {
+                    return parser.getLongValue();
+                }
+
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // Not a JSON tick
+        }
+
+        return -1;
+    }
+
+    /**
+     * Receives every frame as bytes.
+     */
+    private abstract static class Handler implements StompFrameHandler {
+        @NotNull
+        @Override
+        public Type getPayloadType(@NotNull StompHeaders headers) {
+            return byte[].class;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package apcs.snakebattlearena.loadgen;
+
+import org.jetbrains.annotations.Nullable;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import javax.websocket.ContainerProvider;
+import javax.websocket.WebSocketContainer;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connects many bots to a running server over STOMP, ramping them up at a fixed rate,
+ * and reports move latency, tick intervals, missed ticks and disconnects as HDR histograms.
+ * <p>
+ * Options are given as <code>name=value</code> arguments, ie: <code>bots=2000 rate=100 duration=120</code>
+ * <ul>
+ *     <li><b>url</b>: URL of the server. (http://localhost:8080/)</li>
+ *     <li><b>transport</b>: <code>sockjs</code> through the default endpoint, or plain <code>ws</code> through <code>/ws</code>. (sockjs)</li>
+ *     <li><b>bots</b>: Amount of bots. (100)</li>
+ *     <li><b>rate</b>: Amount of bots connecting per second. (50)</li>
+ *     <li><b>duration</b>: Seconds to run for, including the ramp up. (60)</li>
+ *     <li><b>interval</b>: Seconds between reports. (5)</li>
+ *     <li><b>arena</b>: Arena to join, or the default arena if unset.</li>
+ *     <li><b>protocol</b>: Tick protocol to request, only delta ticks are numbered so missed ticks need 2 or above. (2)</li>
+ *     <li><b>version</b>: Client version sent when joining. (1.0.0)</li>
+ *     <li><b>rejoin</b>: Ticks between attempts to join again, in case the snake died. (50)</li>
+ *     <li><b>name</b>: Prefix of the names of the bots. (bot)</li>
+ *     <li><b>seed</b>: Seed for the moves of the bots. (1)</li>
+ *     <li><b>log</b>: File the interval histograms are logged to. (loadgen.hlog)</li>
+ *     <li><b>buffer</b>: Largest tick a bot can receive in KB, which every connection allocates up front. (512)</li>
+ * </ul>
+ * Run with <code>gradle :loadgen:loadgen -Ploadgen="bots=2000 rate=100"</code>.
+ */
+public class LoadGenerator {
+    private final Options options;
+    private final LoadStats stats;
+    private final WebSocketStompClient client;
+    private final List<Bot> bots = Collections.synchronizedList(new ArrayList<>());
+
+    private LoadGenerator(Options options, LoadStats stats) {
+        this.options = options;
+        this.stats = stats;
+        this.client = newStompClient(options);
+    }
+
+    public static void main(String[] args) throws InterruptedException, FileNotFoundException {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Options must be name=value: " + arg);
+            }
+
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        Options options = new Options(values);
+
+        try (PrintStream log = new PrintStream(options.log)) {
+            new LoadGenerator(options, new LoadStats(log)).run();
+        }
+
+        // The websocket container keeps non-daemon threads around
+        System.exit(0);
+    }
+
+    private void run() throws InterruptedException {
+        System.out.printf("Connecting %d bots to %s (%s) at %d/s for %ds%n",
+                options.botCount, options.url, options.transport, options.rate, options.duration);
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(options.duration);
+        long nextReport = start + TimeUnit.SECONDS.toNanos(options.interval);
+        int connected = 0;
+
+        while (System.nanoTime() < end) {
+            // Ramp up at the connect rate, catching up if connecting took longer than expected
+            long elapsed = System.nanoTime() - start;
+            int target = (int) Math.min(options.botCount, elapsed * options.rate / TimeUnit.SECONDS.toNanos(1) + 1);
+
+            while (connected < target) {
+                connect(connected++);
+            }
+
+            if (System.nanoTime() >= nextReport) {
+                stats.report(bots.size());
+                nextReport += TimeUnit.SECONDS.toNanos(options.interval);
+            }
+
+            Thread.sleep(10);
+        }
+
+        stats.report(bots.size());
+        stats.summarize();
+
+        synchronized (bots) {
+            for (Bot bot : bots) {
+                bot.disconnect();
+            }
+        }
+        client.stop();
+    }
+
+    /**
+     * Connects a new bot, connections are established in the background.
+     */
+    private void connect(int index) {
+        Bot bot = new Bot(options, stats, index);
+        bots.add(bot);
+
+        ListenableFuture<StompSession> future = client.connect(options.getEndpoint(), bot);
+        future.addCallback(new ListenableFutureCallback<StompSession>() {
+            @Override
+            public void onSuccess(StompSession result) {
+            }
+
+            @Override
+            public void onFailure(Throwable ex) {
+                stats.connectFailureCount.incrementAndGet();
+            }
+        });
+    }
+
+    private static WebSocketStompClient newStompClient(Options options) {
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.setDefaultMaxTextMessageBufferSize(options.bufferSize);
+        container.setDefaultMaxBinaryMessageBufferSize(options.bufferSize);
+
+        WebSocketClient webSocketClient = new StandardWebSocketClient(container);
+        if (options.transport.equals("sockjs")) {
+            webSocketClient = new SockJsClient(Collections.singletonList(new WebSocketTransport(webSocketClient)));
+        }
+
+        // Moves are sent as JSON strings, ticks are received as bytes to parse only what is needed
+        StringMessageConverter outbound = new StringMessageConverter() {{
+            addSupportedMimeTypes(MimeTypeUtils.APPLICATION_JSON);
+        }};
+        ByteArrayMessageConverter inbound = new ByteArrayMessageConverter() {{
+            addSupportedMimeTypes(MimeTypeUtils.APPLICATION_JSON);
+        }};
+
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.setThreadNamePrefix("stomp-heartbeat-");
+        heartbeats.setDaemon(true);
+        heartbeats.initialize();
+
+        WebSocketStompClient client = new WebSocketStompClient(webSocketClient);
+        client.setInboundMessageSizeLimit(options.bufferSize);
+        client.setMessageConverter(new CompositeMessageConverter(Arrays.asList(outbound, inbound)));
+        client.setTaskScheduler(heartbeats);
+        return client;
+    }
+
+    /**
+     * Options of a run, refer to {@link LoadGenerator}.
+     */
+    static class Options {
+        final String url;
+        final String transport;
+        final int botCount;
+        final int rate;
+        final int duration;
+        final int interval;
+        @Nullable
+        final String arena;
+        final int protocol;
+        final String version;
+        final int rejoinTicks;
+        final String namePrefix;
+        final long seed;
+        final String log;
+        final int bufferSize;
+
+        Options(Map<String, String> values) {
+            String url = values.getOrDefault("url", "http://localhost:8080/");
+            this.url = url.endsWith("/") ? url : url + "/";
+            this.transport = values.getOrDefault("transport", "sockjs");
+            this.botCount = getInt(values, "bots", 100);
+            this.rate = Math.max(1, getInt(values, "rate", 50));
+            this.duration = getInt(values, "duration", 60);
+            this.interval = Math.max(1, getInt(values, "interval", 5));
+            this.arena = values.get("arena");
+            this.protocol = getInt(values, "protocol", 2);
+            this.version = values.getOrDefault("version", "1.0.0");
+            this.rejoinTicks = Math.max(1, getInt(values, "rejoin", 50));
+            this.namePrefix = values.getOrDefault("name", "bot");
+            this.seed = getInt(values, "seed", 1);
+            this.log = values.getOrDefault("log", "loadgen.hlog");
+            this.bufferSize = getInt(values, "buffer", 512) * 1024;
+
+            if (!transport.equals("sockjs") && !transport.equals("ws")) {
+                throw new IllegalArgumentException("Unknown transport: " + transport);
+            }
+        }
+
+        /**
+         * Gets the STOMP endpoint of the transport, plain websockets have their own endpoint.
+         */
+        String getEndpoint() {
+            return transport.equals("ws") ? url.replaceFirst("^http", "ws") + "ws" : url;
+        }
+
+        private static int getInt(Map<String, String> values, String name, int defaultValue) {
+            String value = values.get(name);
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        }
+    }
+}
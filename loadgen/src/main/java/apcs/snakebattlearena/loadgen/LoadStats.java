@@ -0,0 +1,138 @@
+package apcs.snakebattlearena.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics recorded by every bot at once, as HDR histograms that are reported at a fixed interval.
+ * Every interval is also written to a histogram log, which can be plotted with the HdrHistogram tools.
+ */
+class LoadStats {
+    /**
+     * Time from receiving a tick until its move has been sent, in microseconds.
+     */
+    final Recorder moveLatency = new Recorder(3);
+
+    /**
+     * Time between two consecutive ticks of a bot, in microseconds.
+     * This should stay at the tick rate of the server until it can no longer keep up.
+     */
+    final Recorder tickInterval = new Recorder(3);
+
+    /**
+     * Amount of ticks skipped between two consecutive ticks of a bot, only recorded when any were skipped.
+     */
+    final Recorder missedTicks = new Recorder(3);
+
+    /**
+     * How long bots were connected when they were disconnected, in milliseconds.
+     */
+    final Recorder disconnects = new Recorder(3);
+
+    final AtomicInteger connectedCount = new AtomicInteger();
+    final AtomicLong connectFailureCount = new AtomicLong();
+    final AtomicLong joinErrorCount = new AtomicLong();
+    final AtomicLong tickCount = new AtomicLong();
+    final AtomicLong missedTickCount = new AtomicLong();
+
+    private final Histogram totalMoveLatency = new Histogram(3);
+    private final Histogram totalTickInterval = new Histogram(3);
+    private final Histogram totalMissedTicks = new Histogram(3);
+    private final Histogram totalDisconnects = new Histogram(3);
+
+    private final HistogramLogWriter log;
+    private final long startMillis = System.currentTimeMillis();
+    private long lastTickCount = 0;
+    private long lastMissedTickCount = 0;
+    private long lastReportNanos = System.nanoTime();
+
+    // Reused to avoid allocating a histogram every interval
+    private Histogram moveLatencyInterval;
+    private Histogram tickIntervalInterval;
+    private Histogram missedTicksInterval;
+    private Histogram disconnectsInterval;
+
+    LoadStats(PrintStream log) {
+        this.log = new HistogramLogWriter(log);
+        this.log.outputLogFormatVersion();
+        this.log.outputStartTime(startMillis);
+        this.log.setBaseTime(startMillis);
+        this.log.outputLegend();
+    }
+
+    /**
+     * Prints the statistics since the last report, and writes them to the histogram log.
+     * Only called by a single thread.
+     */
+    void report(int botCount) {
+        moveLatencyInterval = moveLatency.getIntervalHistogram(moveLatencyInterval);
+        tickIntervalInterval = tickInterval.getIntervalHistogram(tickIntervalInterval);
+        missedTicksInterval = missedTicks.getIntervalHistogram(missedTicksInterval);
+        disconnectsInterval = disconnects.getIntervalHistogram(disconnectsInterval);
+
+        logInterval("move-latency", moveLatencyInterval, totalMoveLatency);
+        logInterval("tick-interval", tickIntervalInterval, totalTickInterval);
+        logInterval("missed-ticks", missedTicksInterval, totalMissedTicks);
+        logInterval("disconnects", disconnectsInterval, totalDisconnects);
+
+        long now = System.nanoTime();
+        long ticks = tickCount.get();
+        long missed = missedTickCount.get();
+        double seconds = (now - lastReportNanos) / 1e9;
+
+        System.out.printf("[%4ds] bots %d/%d, %.0f ticks/s, move p50 %dus p99 %dus max %dus, tick interval p99 %dms max %dms, missed %d, disconnects %d%n",
+                TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - startMillis),
+                connectedCount.get(),
+                botCount,
+                (ticks - lastTickCount) / seconds,
+                moveLatencyInterval.getValueAtPercentile(50),
+                moveLatencyInterval.getValueAtPercentile(99),
+                moveLatencyInterval.getMaxValue(),
+                TimeUnit.MICROSECONDS.toMillis(tickIntervalInterval.getValueAtPercentile(99)),
+                TimeUnit.MICROSECONDS.toMillis(tickIntervalInterval.getMaxValue()),
+                missed - lastMissedTickCount,
+                disconnectsInterval.getTotalCount());
+
+        lastTickCount = ticks;
+        lastMissedTickCount = missed;
+        lastReportNanos = now;
+    }
+
+    /**
+     * Prints the statistics of the whole run.
+     */
+    void summarize() {
+        System.out.printf("Ticks received: %d, connect failures: %d, join errors: %d%n",
+                tickCount.get(), connectFailureCount.get(), joinErrorCount.get());
+        summarize("Move latency (us)", totalMoveLatency);
+        summarize("Tick interval (us)", totalTickInterval);
+        System.out.printf("Missed ticks: %d in %d gaps, longest gap %d%n",
+                missedTickCount.get(), totalMissedTicks.getTotalCount(), totalMissedTicks.getMaxValue());
+        System.out.printf("Disconnects: %d, connected for p50 %dms%n",
+                totalDisconnects.getTotalCount(), totalDisconnects.getValueAtPercentile(50));
+    }
+
+    private void logInterval(String tag, Histogram interval, Histogram total) {
+        interval.setTag(tag);
+        log.outputIntervalHistogram(interval);
+        total.add(interval);
+    }
+
+    private static void summarize(String name, Histogram histogram) {
+        System.out.printf("%s: count %d, mean %.0f, p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getMean(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue());
+    }
+}
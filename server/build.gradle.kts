@@ -3,11 +3,15 @@ plugins {
 }
 
 val springVersion = "2.7.11" // Latest base spring-boot version that uses framework 5.3.x (Java 8+)
+val micrometerVersion = "1.9.10" // Managed version of spring-boot 2.7.11
 
 dependencies {
     implementation(project(":common"))
     implementation("org.springframework.boot:spring-boot-starter-web:$springVersion")
     implementation("org.springframework.boot:spring-boot-starter-websocket:$springVersion")
     implementation("org.springframework.boot:spring-boot-starter-validation:$springVersion")
+    implementation("org.springframework.boot:spring-boot-starter-actuator:$springVersion")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus:$micrometerVersion")
     compileOnly("org.jetbrains:annotations:24.0.0")
+    compileOnly("com.google.code.findbugs:jsr305:3.0.2") // Meta-annotations of Spring's @Nullable, used by the actuator
 }
@@ -3,31 +3,48 @@ package apcs.snakebattlearena.server.entities;
 import apcs.snakebattlearena.Point;
 import apcs.snakebattlearena.entities.Snake;
 import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.models.MoveData;
 import apcs.snakebattlearena.models.entities.SnakeMetadata;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * A snake used only for the server to store additional properties.
  */
 public class ServerSnake extends Snake {
+    private final int handle;
     private final String id;
+    private final AtomicReference<MoveData> queuedMove = new AtomicReference<>();
     private Direction facing = null;
     private int missedTicks = 0;
+    private volatile boolean disconnectRequested = false;
 
     /**
      * Create a server side snake with additional data
+     * @param handle   The numeric handle of this snake, refer to {@link ServerSnake#getHandle()}.
      * @param id       The unique ID for the websocket connection.
      * @param metadata Initializing metadata of this player
      * @param initial  The initial head position of this snake.
      */
-    public ServerSnake(@NotNull String id,
+    public ServerSnake(int handle,
+                       @NotNull String id,
                        @NotNull SnakeMetadata metadata,
                        @NotNull Point initial) {
         super(metadata.getName(), metadata.getColor(), initial);
+        this.handle = handle;
         this.id = id;
     }
 
+    /**
+     * Gets the numeric handle for this snake, which is also its entity ID in ticks.
+     * Handles are unique on the server and never reused.
+     */
+    public int getHandle() {
+        return handle;
+    }
+
     /**
      * Gets the unique ID for this snake associated to the websocket connection.
      */
@@ -36,6 +53,38 @@ public class ServerSnake extends Snake {
         return id;
     }
 
+    /**
+     * Queues the latest move for the next tick, replacing any earlier move
+     * that hasn't been processed yet. Safe to call from any thread without locking.
+     */
+    public void queueMove(@NotNull MoveData move) {
+        queuedMove.set(move);
+    }
+
+    /**
+     * Takes the queued move for this tick, leaving no move queued.
+     * @return The latest move since the last poll, or null if none was received.
+     */
+    @Nullable
+    public MoveData pollQueuedMove() {
+        return queuedMove.getAndSet(null);
+    }
+
+    /**
+     * Requests this snake to be killed and removed at the next tick.
+     * Safe to call from any thread without locking.
+     */
+    public void requestDisconnect() {
+        disconnectRequested = true;
+    }
+
+    /**
+     * Whether this snake has left or lost its connection and should be removed at the next tick.
+     */
+    public boolean isDisconnectRequested() {
+        return disconnectRequested;
+    }
+
     /**
      * Stores the last sent move data to preserve the facing direction in case additional
      * move data isn't received on time so that the snake can move automatically forward.
@@ -84,4 +133,18 @@ public class ServerSnake extends Snake {
     public int getMissedTickCount() {
         return missedTicks;
     }
+
+    /**
+     * Server snakes are unique per player and keep moving while stored in hash based collections,
+     * so they are compared by identity instead of their current position.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
 }
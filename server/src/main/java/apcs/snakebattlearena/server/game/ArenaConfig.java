@@ -0,0 +1,81 @@
+package apcs.snakebattlearena.server.game;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Settings for a single arena (board), loaded and validated by Spring as part of {@link GameConfig}.
+ */
+public class ArenaConfig {
+    @Min(0)
+    public int appleCount;
+    @Min(1)
+    private short boardWidth;
+    @Min(1)
+    private short boardHeight;
+    @Min(1)
+    private int tickRate = 500;
+    @NotNull
+    private TickScheduler.OverrunPolicy tickOverrunPolicy = TickScheduler.OverrunPolicy.SKIP;
+    @Min(1)
+    private int keyframeInterval = 20;
+    private Long seed = null;
+
+    // ------------------ Getters and required auto-setters ------------------
+
+    public short getBoardWidth() {
+        return boardWidth;
+    }
+
+    public void setBoardWidth(short boardWidth) {
+        this.boardWidth = boardWidth;
+    }
+
+    public short getBoardHeight() {
+        return boardHeight;
+    }
+
+    public void setBoardHeight(short boardHeight) {
+        this.boardHeight = boardHeight;
+    }
+
+    public int getAppleCount() {
+        return appleCount;
+    }
+
+    public void setAppleCount(int appleCount) {
+        this.appleCount = appleCount;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public void setTickRate(int tickRate) {
+        this.tickRate = tickRate;
+    }
+
+    public TickScheduler.OverrunPolicy getTickOverrunPolicy() {
+        return tickOverrunPolicy;
+    }
+
+    public void setTickOverrunPolicy(TickScheduler.OverrunPolicy tickOverrunPolicy) {
+        this.tickOverrunPolicy = tickOverrunPolicy;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public void setKeyframeInterval(int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+}
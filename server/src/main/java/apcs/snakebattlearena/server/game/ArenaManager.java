@@ -0,0 +1,255 @@
+package apcs.snakebattlearena.server.game;
+
+import apcs.snakebattlearena.models.*;
+import apcs.snakebattlearena.models.entities.EntityData;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import apcs.snakebattlearena.server.replay.ReplayRecorder;
+import apcs.snakebattlearena.server.websocket.TickPipeline;
+import apcs.snakebattlearena.utils.Constants;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Hosts every arena (an independent board with its own {@link GameService}) on this server.
+ * All arena ticks are scheduled on a shared pool of threads bounded by the core count,
+ * and sent out to clients through the {@link TickPipeline}, as well as recorded by the optional {@link ReplayRecorder}.
+ */
+@Service
+public class ArenaManager implements GameListener {
+    /**
+     * The name of the only arena when no arenas are configured,
+     * refer to {@link GameConfig} for more information.
+     */
+    public static final String DEFAULT_ARENA = "main";
+
+    /**
+     * Valid arena names, since they are used as part of websocket destinations.
+     */
+    private static final Pattern ARENA_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Arena name -> Arena, in the configured order.
+     */
+    private final LinkedHashMap<String, GameService> arenas = new LinkedHashMap<>();
+
+    /**
+     * The arena that clients joining without an arena name are sent to.
+     */
+    private final GameService defaultArena;
+
+    private final ScheduledExecutorService tickExecutor;
+
+    /**
+     * All the players in every arena.
+     */
+    private final PlayerRegistry players;
+
+    private final TickPipeline pipeline;
+
+    /**
+     * Every transport players can connect through. Resolved lazily,
+     * since transports such as the TCP server depend on this manager themselves.
+     */
+    private final ObjectProvider<PlayerConnections> connections;
+
+    /**
+     * Records every tick if replays are enabled, otherwise null.
+     */
+    @Nullable
+    private final ReplayRecorder recorder;
+
+    public ArenaManager(GameConfig config,
+                        PlayerRegistry players,
+                        TickPipeline pipeline,
+                        ObjectProvider<PlayerConnections> connections,
+                        Optional<ReplayRecorder> recorder) {
+        this.players = players;
+        this.pipeline = pipeline;
+        this.connections = connections;
+        this.recorder = recorder.orElse(null);
+
+        Map<String, ArenaConfig> arenaConfigs = config.getArenas().isEmpty()
+                ? Collections.singletonMap(DEFAULT_ARENA, config)
+                : config.getArenas();
+
+        // One thread per arena at most, any more than the core count would just compete with each other
+        int threads = config.getTickThreads() > 0
+                ? config.getTickThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.tickExecutor = TickScheduler.newExecutor("arena-tick", Math.min(threads, arenaConfigs.size()));
+
+        arenaConfigs.forEach((name, arenaConfig) -> {
+            if (!ARENA_NAME.matcher(name).matches()) {
+                throw new IllegalArgumentException("Invalid arena name: " + name);
+            }
+
+            arenas.put(name, new GameService(name, arenaConfig, players, tickExecutor, this));
+        });
+
+        this.defaultArena = arenas.values().iterator().next();
+    }
+
+    @PostConstruct
+    private void startArenas() {
+        logger.info("Starting {} arena(s): {}", arenas.size(), arenas.keySet());
+        arenas.values().forEach(GameService::start);
+    }
+
+    @PreDestroy
+    private void stopArenas() throws InterruptedException {
+        arenas.values().forEach(GameService::stop);
+
+        tickExecutor.shutdown();
+        tickExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Serializing and sending the tick happens on the pipeline's own threads, as does recording it.
+     */
+    @Override
+    public void onTick(@NotNull GameService game,
+                       @NotNull TickInputs inputs,
+                       @NotNull DeltaTickData delta,
+                       @NotNull List<EntityData> removed,
+                       long simulateNanos) {
+        pipeline.publish(game.getName(), delta, removed, simulateNanos, game::requestKeyframe);
+
+        if (recorder != null) {
+            recorder.record(game, inputs, delta);
+        }
+    }
+
+    @Override
+    public void onPlayerTimedOut(@NotNull GameService game, @NotNull ServerSnake snake) {
+        for (PlayerConnections transport : connections) {
+            if (transport.disconnectUser(snake.getId())) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Adds a new player to an arena, shared by every transport.
+     * @param arena           The name of the arena to join, or null for the default arena.
+     * @param id              A unique ID for this player's connection.
+     * @param joinData        The join request of the client.
+     * @param binarySupported Whether the client's connection can receive binary frames.
+     * @return The response to send back to the client, including any error.
+     */
+    @NotNull
+    public JoinResponseData join(@Nullable String arena,
+                                 @NotNull String id,
+                                 @NotNull JoinData joinData,
+                                 boolean binarySupported) {
+        GameService game = arena != null ? arenas.get(arena) : defaultArena;
+
+        if (game == null) {
+            return JoinResponseData.Builder.builder()
+                    .setError(JoinError.UNKNOWN_ARENA)
+                    .build();
+        }
+
+        // Check that the client major/minor version matches the server
+        if (!Constants.VERSION.equalsIgnore(joinData.getClientVersion(), false, true)) {
+            return JoinResponseData.Builder.builder()
+                    .setError(JoinError.VERSION_MISMATCH)
+                    .build();
+        }
+
+        // Add new player to the game
+        Optional<JoinError> err = game.addPlayer(id, joinData.getSnake());
+
+        // Return the error
+        if (err.isPresent()) {
+            return JoinResponseData.Builder.builder()
+                    .setError(err.get())
+                    .build();
+        }
+
+        // Delta clients need a keyframe before they can apply any deltas,
+        // websocket outboxes request another once subscribed in case this one arrives first
+        int protocol = TickProtocol.negotiate(joinData.getProtocol());
+        if (protocol >= TickProtocol.DELTA) {
+            game.requestKeyframe();
+        }
+
+        // Fall back to JSON if the connection can't receive binary frames
+        TickEncoding encoding = joinData.getEncoding() == TickEncoding.BINARY && binarySupported
+                ? TickEncoding.BINARY
+                : TickEncoding.JSON;
+
+        // Return game data
+        Board board = game.getBoard();
+        return JoinResponseData.Builder.builder()
+                .setBoard(BoardData.Builder.builder()
+                        .setWidth(board.getBoardWidth())
+                        .setHeight(board.getBoardHeight()).build())
+                .setArena(game.getName())
+                .setProtocol(protocol)
+                .setEncoding(encoding)
+                .setDestination(TickProtocol.getDestination(game.getName(), protocol, encoding))
+                .build();
+    }
+
+    /**
+     * Mark a player to be killed and removed at the next tick of their arena. This does not lock.
+     * @param id The snake's unique ID.
+     * @return True if the player exists and has been removed otherwise false.
+     */
+    public boolean removePlayer(@NotNull String id) {
+        ServerSnake snake = players.getById(id);
+
+        if (snake == null || snake.isDisconnectRequested())
+            return false;
+
+        logger.info("Player {} has left the game!", snake.getName());
+
+        // Kill the snake to be removed at the next tick
+        snake.requestDisconnect();
+        return true;
+    }
+
+    /**
+     * Gets an arena by its name.
+     * @return The arena or null if it doesn't exist.
+     */
+    @Nullable
+    public GameService getArena(@NotNull String name) {
+        return arenas.get(name);
+    }
+
+    /**
+     * Gets the arena for clients joining without an arena name,
+     * which is the first configured arena.
+     */
+    @NotNull
+    public GameService getDefaultArena() {
+        return defaultArena;
+    }
+
+    /**
+     * Gets all the arenas on this server.
+     */
+    @NotNull
+    public Collection<GameService> getArenas() {
+        return Collections.unmodifiableCollection(arenas.values());
+    }
+}
@@ -2,27 +2,23 @@ package apcs.snakebattlearena.server.game;
 
 import apcs.snakebattlearena.Point;
 import apcs.snakebattlearena.entities.Apple;
+import apcs.snakebattlearena.entities.Entity;
+import apcs.snakebattlearena.entities.Snake;
 import apcs.snakebattlearena.utils.Probability;
 import org.apache.logging.log4j.util.Strings;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Arrays;
-import java.util.Objects;
+import java.util.Collection;
 import java.util.Random;
 
 public class Board {
-    private final Random rnd = new Random();
+    private final Random rnd;
 
     /**
      * Random weighted apple reward values
      */
-    private final Probability<Integer> APPLES_RANDOM = new Probability<Integer>() {{
-        addValue(4, 0.10);
-        addValue(3, 0.15);
-        addValue(2, 0.25);
-        addValue(1, 0.50);
-    }};
+    private final Probability<Integer> APPLES_RANDOM;
 
     /**
      * Board width/height measured in square count.
@@ -30,29 +26,31 @@ public class Board {
     private final short boardWidth, boardHeight;
 
     /**
-     * Board with all available squares. Squares are stored by <code>board[x][y]</code>.
+     * Logical occupancy of all squares on the board.
      */
-    private final BoardSquare[][] board;
+    private final OccupancyGrid grid;
 
     public Board(short width, short height) {
-        this.boardWidth = width;
-        this.boardHeight = height;
-
-        // Initialize a blank board filled with squares
-        this.board = new BoardSquare[boardWidth][boardHeight];
-        Arrays.parallelSetAll(this.board, i -> {
-            BoardSquare[] column = new BoardSquare[boardHeight];
-            Arrays.parallelSetAll(column, i2 -> new BoardSquare());
-            return column;
-        });
+        this(width, height, new Random());
     }
 
     /**
-     * Gets all the squares for this board.
-     * TODO: remove this once all board logic moved here
+     * @param rnd The source of randomness for spawns and apples, which can be seeded for reproducible boards.
      */
-    public BoardSquare[][] getBoard() {
-        return board;
+    public Board(short width, short height, @NotNull Random rnd) {
+        this.rnd = rnd;
+        this.APPLES_RANDOM = new Probability<Integer>(rnd) {{
+            addValue(4, 0.10);
+            addValue(3, 0.15);
+            addValue(2, 0.25);
+            addValue(1, 0.50);
+        }};
+        this.boardWidth = width;
+        this.boardHeight = height;
+        this.grid = new OccupancyGrid(width, height);
+
+        // Share a single instance of every point on this board
+        Point.ensureCached(width, height);
     }
 
     /**
@@ -70,16 +68,76 @@ public class Board {
     }
 
     /**
-     * Gets the board square at that point if it exists.
-     * @param point Nullable point of the square.
-     * @return A square if found, otherwise null.
+     * Returns the amount of logical entities registered to the square at that point.
+     * @param point A point on the board.
      */
-    @Nullable
-    public BoardSquare getSquare(@Nullable Point point) {
-        if (point == null) return null;
-        if (!point.isOnBoard(boardWidth, boardHeight)) return null;
+    public int occupyingCount(@NotNull Point point) {
+        return grid.occupyingCount(grid.cellOf(point.getX(), point.getY()));
+    }
 
-        return board[point.getX()][point.getY()];
+    /**
+     * Add an occupying entity to the square at that point logically.
+     * @param point  A point on the board.
+     * @param entity The entity occupying that square.
+     */
+    public void addOccupier(@NotNull Point point, @NotNull Entity<?> entity) {
+        grid.addOccupier(grid.cellOf(point.getX(), point.getY()), entity);
+    }
+
+    /**
+     * Removes an occupying entity from the square at that point.
+     * @param point  A point on the board.
+     * @param entity The entity occupying that square.
+     * @return true if the square contained the entity.
+     */
+    public boolean removeOccupier(@NotNull Point point, @NotNull Entity<?> entity) {
+        return grid.removeOccupier(grid.cellOf(point.getX(), point.getY()), entity);
+    }
+
+    /**
+     * Moves a snake to its new head on the board, moving its tail
+     * off the old square if it has uncurled.
+     * @param snake   The snake to move.
+     * @param newHead The new head of the snake.
+     * @return False if the new head is out of bounds and the snake hasn't moved.
+     */
+    public boolean moveSnake(@NotNull Snake snake, @NotNull Point newHead) {
+        // Check if the new head is in board bounds
+        if (!isPointOnBoard(newHead)) return false;
+
+        // Move the head on the snake itself
+        Point oldTail = snake.getTail();
+        snake.internalMove(newHead);
+
+        // If the tail has moved, then remove the old tail from the old square
+        if (!snake.getTail().equals(oldTail)) {
+            removeOccupier(oldTail, snake);
+        }
+
+        // Assign this snake to its new head square
+        addOccupier(newHead, snake);
+        return true;
+    }
+
+    /**
+     * Removes all parts of the snake from the board.
+     */
+    public void removeSnake(@NotNull Snake snake) {
+        removeOccupier(snake.getHead(), snake);
+
+        for (Point body : snake.getBody()) {
+            removeOccupier(body, snake);
+        }
+    }
+
+    /**
+     * Allow each board square that has been touched since the last call (new heads, vacated tails, etc.)
+     * to perform calculations and kill/modify snakes. Untouched squares cannot have new collisions.
+     * Refer to {@link OccupancyGrid#process(int, Collection)} for more information.
+     * @param removed Output for all the entities removed from the board.
+     */
+    public void processCollisions(@NotNull Collection<Entity<?>> removed) {
+        grid.processDirty(removed);
     }
 
     /**
@@ -92,25 +150,19 @@ public class Board {
     }
 
     /**
-     * Find an open square on this board.
+     * Find an open square on this board in constant time, using the index of empty squares.
      * @return A point to that square or an exception if its full.
      * TODO: figure out what to do when full?
      */
     @NotNull
     public Point getRandomPoint() {
-        int x = -1, y = -1;
-        int attempts = 0;
-
-        while (x < 0 || y < 0 || board[x][y].occupyingCount() >= 1) {
-            if (++attempts > boardWidth * boardHeight) {
-                throw new IllegalStateException("Board is full!");
-            }
+        int cell = grid.randomFreeCell(rnd);
 
-            x = rnd.nextInt(boardWidth);
-            y = rnd.nextInt(boardHeight);
+        if (cell < 0) {
+            throw new IllegalStateException("Board is full!");
         }
 
-        return new Point(x, y);
+        return Point.of(cell % boardWidth, cell / boardWidth);
     }
 
     /**
@@ -123,7 +175,7 @@ public class Board {
 
         // Store the new apple
         Apple apple = new Apple(point, APPLES_RANDOM.getRandomValue());
-        Objects.requireNonNull(getSquare(point)).addOccupier(apple);
+        addOccupier(point, apple);
         return apple;
     }
 
@@ -142,7 +194,7 @@ public class Board {
         for (int x = 0; x < boardWidth; x++) {
             for (int y = 0; y < boardHeight; y++) {
                 int index = y * (boardWidth + 1) + x;
-                char display = board[x][y].occupyingCount() > 0 ? 'X' : '.';
+                char display = grid.occupyingCount(grid.cellOf(x, y)) > 0 ? 'X' : '.';
                 buf.setCharAt(index, display);
             }
         }
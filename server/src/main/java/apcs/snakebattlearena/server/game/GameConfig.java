@@ -4,46 +4,102 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Injected config loaded and validated by Spring
  * from any <code>application.properties</code> file present.
+ * <p>
+ * The arena settings directly under <code>game.*</code> are used for a single arena named
+ * {@link ArenaManager#DEFAULT_ARENA} unless any arenas are configured with <code>game.arenas.&lt;name&gt;.*</code>
  */
 @Validated
 @Configuration
 @ConfigurationProperties(prefix = "game")
-public class GameConfig {
+public class GameConfig extends ArenaConfig {
+    @Valid
+    private Map<String, ArenaConfig> arenas = new LinkedHashMap<>();
     @Min(0)
-    public int appleCount;
+    private int tickThreads = 0;
     @Min(1)
-    private short boardWidth;
+    private int tickQueueSize = 4;
+    @Min(0)
+    private int sendThreads = 0;
+    @Min(1)
+    private int sendTimeLimit = 10_000;
+    @Min(1)
+    private int sendBufferSizeLimit = 512 * 1024;
     @Min(1)
-    private short boardHeight;
+    private int spectatorFrameDivisor = 2;
+    @Min(1)
+    private int spectatorThreads = 1;
 
     // ------------------ Getters and required auto-setters ------------------
 
-    public short getBoardWidth() {
-        return boardWidth;
+    public Map<String, ArenaConfig> getArenas() {
+        return arenas;
+    }
+
+    public void setArenas(Map<String, ArenaConfig> arenas) {
+        this.arenas = arenas;
+    }
+
+    public int getTickThreads() {
+        return tickThreads;
+    }
+
+    public void setTickThreads(int tickThreads) {
+        this.tickThreads = tickThreads;
+    }
+
+    public int getTickQueueSize() {
+        return tickQueueSize;
+    }
+
+    public void setTickQueueSize(int tickQueueSize) {
+        this.tickQueueSize = tickQueueSize;
+    }
+
+    public int getSendThreads() {
+        return sendThreads;
+    }
+
+    public void setSendThreads(int sendThreads) {
+        this.sendThreads = sendThreads;
+    }
+
+    public int getSendTimeLimit() {
+        return sendTimeLimit;
+    }
+
+    public void setSendTimeLimit(int sendTimeLimit) {
+        this.sendTimeLimit = sendTimeLimit;
+    }
+
+    public int getSendBufferSizeLimit() {
+        return sendBufferSizeLimit;
     }
 
-    public void setBoardWidth(short boardWidth) {
-        this.boardWidth = boardWidth;
+    public void setSendBufferSizeLimit(int sendBufferSizeLimit) {
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
     }
 
-    public short getBoardHeight() {
-        return boardHeight;
+    public int getSpectatorFrameDivisor() {
+        return spectatorFrameDivisor;
     }
 
-    public void setBoardHeight(short boardHeight) {
-        this.boardHeight = boardHeight;
+    public void setSpectatorFrameDivisor(int spectatorFrameDivisor) {
+        this.spectatorFrameDivisor = spectatorFrameDivisor;
     }
 
-    public int getAppleCount() {
-        return appleCount;
+    public int getSpectatorThreads() {
+        return spectatorThreads;
     }
 
-    public void setAppleCount(int appleCount) {
-        this.appleCount = appleCount;
+    public void setSpectatorThreads(int spectatorThreads) {
+        this.spectatorThreads = spectatorThreads;
     }
 }
@@ -0,0 +1,39 @@
+package apcs.snakebattlearena.server.game;
+
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.entities.EntityData;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import apcs.snakebattlearena.util.TickState;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Receives the results of a {@link GameService}, which keeps the game logic independent
+ * of how ticks are sent out. The server sends them to clients through {@link ArenaManager},
+ * while benchmarks and simulations run the game without Spring or any sockets.
+ * <p>
+ * Methods are called on the tick thread of the arena, so they should return quickly.
+ */
+public interface GameListener {
+    /**
+     * Called after every tick with the changes to the arena. The full state isn't built on the tick thread,
+     * it can be rebuilt by applying every delta to a {@link TickState}.
+     * @param game          The arena that ticked.
+     * @param inputs        The joins, leaves and moves of players that went into the tick.
+     * @param delta         The changes since the previous tick.
+     * @param removed       The entities removed in this tick, as they were when removed.
+     * @param simulateNanos How long the tick took to simulate.
+     */
+    void onTick(@NotNull GameService game,
+                @NotNull TickInputs inputs,
+                @NotNull DeltaTickData delta,
+                @NotNull List<EntityData> removed,
+                long simulateNanos);
+
+    /**
+     * Called when a player is disconnected for missing too many ticks in a row, after the tick.
+     */
+    default void onPlayerTimedOut(@NotNull GameService game, @NotNull ServerSnake snake) {
+    }
+}
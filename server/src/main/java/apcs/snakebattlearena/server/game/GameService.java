@@ -4,43 +4,70 @@ import apcs.snakebattlearena.Point;
 import apcs.snakebattlearena.entities.Entity;
 import apcs.snakebattlearena.server.entities.ServerSnake;
 import apcs.snakebattlearena.models.*;
+import apcs.snakebattlearena.models.entities.EntityData;
 import apcs.snakebattlearena.models.entities.SnakeMetadata;
-import apcs.snakebattlearena.server.websocket.WebsocketSender;
-import apcs.snakebattlearena.server.websocket.WebsocketUserManager;
+import apcs.snakebattlearena.models.entities.SnakeMoveData;
+import apcs.snakebattlearena.models.entities.SpawnedEntityData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.stereotype.Service;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
- * Handles all the game logic at a fixed tick rate.
+ * Handles all the game logic of a single arena at a fixed tick rate.
+ * Arenas are created and started by {@link ArenaManager}.
  */
-@Service
-@EnableScheduling
 @SuppressWarnings("unused")
 public class GameService {
     /**
-     * Queued moves between each tick to be processed at the next tick.
-     * <br/>
-     * Player name -> Latest received move data
+     * The unique name of this arena, used in its websocket destinations.
      */
-    private final HashMap<String, MoveData> queuedMoves = new HashMap<>();
+    private final String name;
 
     /**
-     * All entities on this board (snake, apple, wall, etc...)
+     * All entities on this board (snake, apple, wall, etc...) -> Their unique ID in this arena.
      */
-    private final HashSet<Entity<?>> entities = new HashSet<>();
+    private final HashMap<Entity<?>, Integer> entities = new HashMap<>();
 
     /**
-     * Dual-purpose lock for {@link GameService#queuedMoves} and {@link GameService#entities}
-     * to prevent race conditions between message receivers and the game thread.
+     * Entities added to the board since the last tick, sent as spawned in delta ticks.
+     */
+    private final List<Entity<?>> spawnedEntities = new ArrayList<>();
+
+    /**
+     * Snakes that joined since the last tick, sent to the listener as inputs of the next tick.
+     */
+    private final List<TickInputs.Join> pendingJoins = new ArrayList<>();
+
+    /**
+     * The number of the last published tick.
+     */
+    private long tickNumber = 0;
+
+    /**
+     * Amount of ticks between each full keyframe in delta ticks.
+     */
+    private final int keyframeInterval;
+
+    /**
+     * Whether the next delta tick should be a keyframe regardless of the interval,
+     * such as when a new delta client joins or a tick was dropped.
+     */
+    private final AtomicBoolean keyframeRequested = new AtomicBoolean(true);
+
+    /**
+     * Lock for {@link GameService#entities} to prevent race conditions between
+     * joining or leaving players and the game thread. Moves do not take this lock.
      */
     private final ReentrantReadWriteLock tickLock = new ReentrantReadWriteLock();
 
@@ -49,147 +76,249 @@ public class GameService {
      */
     private final Board board;
 
+    /**
+     * All the players with an alive snake, indexed by ID and name.
+     */
+    private final PlayerRegistry players;
+
+    /**
+     * Runs {@link GameService#gameTick()} at the configured tick rate.
+     */
+    private final TickScheduler scheduler;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    @Autowired
-    private WebsocketSender websocket;
+    /**
+     * Receives the finished ticks, such as to send them out to clients.
+     */
+    private final GameListener listener;
 
-    @Autowired
-    private WebsocketUserManager websocketUsers;
+    // Statistics, only written by the tick thread or while holding the tick lock
+    private final EnumMap<TickPhase, StageTimer> phaseTimers = new EnumMap<>(TickPhase.class);
+    private final EnumMap<DeathReason, AtomicLong> deathCounts = new EnumMap<>(DeathReason.class);
+    private volatile int entityCount = 0;
+    private volatile int snakeCount = 0;
+    private volatile int lastMoveCount = 0;
 
-    public GameService(GameConfig config) {
-        this.board = new Board(config.getBoardWidth(), config.getBoardHeight());
+    /**
+     * Creates a new arena, which doesn't tick until {@link GameService#start()}.
+     * @param name         The unique name of this arena.
+     * @param config       The settings of this arena.
+     * @param players      The registry shared by all arenas.
+     * @param tickExecutor The executor shared by all arenas to run ticks on.
+     * @param listener     Receives the finished ticks.
+     */
+    public GameService(@NotNull String name,
+                       @NotNull ArenaConfig config,
+                       @NotNull PlayerRegistry players,
+                       @NotNull ScheduledExecutorService tickExecutor,
+                       @NotNull GameListener listener) {
+        this.name = name;
+        this.players = players;
+        this.listener = listener;
+        this.board = new Board(config.getBoardWidth(),
+                config.getBoardHeight(),
+                config.getSeed() != null ? new Random(config.getSeed()) : new Random());
+        this.keyframeInterval = config.getKeyframeInterval();
+        this.scheduler = new TickScheduler(name,
+                config.getTickRate(),
+                config.getTickOverrunPolicy(),
+                tickExecutor,
+                this::gameTick);
+
+        for (TickPhase phase : TickPhase.values()) {
+            phaseTimers.put(phase, new StageTimer());
+        }
+        for (DeathReason reason : DeathReason.values()) {
+            deathCounts.put(reason, new AtomicLong());
+        }
 
         // Pre-generate apples
         for (int i = 0; i < config.getAppleCount(); i++) {
-            entities.add(board.generateNewApple());
+            spawn(board.generateNewApple());
         }
 
-        board.printBoardToConsole();
+        if (logger.isDebugEnabled()) {
+            board.printBoardToConsole();
+        }
     }
 
     /**
-     * Adds a new player to the board.
-     * @param id        A unique ID for this player.
-     * @param snakeData The metadata about the new snake.
-     * @return A join error if unsuccessful otherwise empty.
+     * Starts running the game ticks.
      */
-    public Optional<JoinError> addPlayer(String id, SnakeMetadata snakeData) {
-        // Lock write access to entities
-        tickLock.writeLock().lock();
-
-        try {
-            JoinError err = null;
-
-            // Check if the player is already on this board based on name or ID
-            for (Entity<?> e : entities) {
-                if (!(e instanceof ServerSnake))
-                    continue;
-
-                ServerSnake snake = (ServerSnake) e;
+    public void start() {
+        scheduler.start();
+    }
 
-                if (snake.getId().equals(id)) {
-                    err = JoinError.INVALID_SESSION;
-                    break;
-                }
+    /**
+     * Stops running the game ticks after the current one.
+     */
+    public void stop() {
+        scheduler.stop();
+    }
 
-                if (snake.getName().equals(snakeData.getName())) {
-                    err = JoinError.PLAYER_EXISTS;
-                    break;
-                }
-            }
+    /**
+     * Gets the unique name of this arena.
+     */
+    @NotNull
+    public String getName() {
+        return name;
+    }
 
-            // Return error if any
-            if (err != null) {
-                return Optional.of(err);
-            }
+    /**
+     * Gets the board of this arena.
+     */
+    @NotNull
+    public Board getBoard() {
+        return board;
+    }
 
-            logger.info("A new player {} has joined the game!", snakeData.getName());
+    /**
+     * Gets the scheduler running the game ticks, including its timing statistics.
+     */
+    public TickScheduler getScheduler() {
+        return scheduler;
+    }
 
-            // Store the new snake
-            ServerSnake snake = new ServerSnake(id, snakeData, board.getRandomPoint());
-            entities.add(snake);
+    /**
+     * Gets the timing of a single phase of the game ticks.
+     */
+    @NotNull
+    public StageTimer getPhaseTimer(@NotNull TickPhase phase) {
+        return phaseTimers.get(phase);
+    }
 
-            return Optional.empty();
-        } finally {
-            // Remove the lock on entities
-            tickLock.writeLock().unlock();
-        }
+    /**
+     * Gets the amount of snakes that have died for a reason in this arena.
+     */
+    public long getDeathCount(@NotNull DeathReason reason) {
+        return deathCounts.get(reason).get();
     }
 
     /**
-     * Mark a player dead to be removed at the next tick, and disconnect their websocket connection.
-     * @param id The snake's unique ID.
-     * @return True if the player exists and has been removed otherwise false.
+     * Gets the amount of entities on the board, including snakes.
      */
-    public boolean removePlayer(String id) {
-        // Lock access to entities
-        tickLock.writeLock().lock();
+    public int getEntityCount() {
+        return entityCount;
+    }
 
-        try {
-            // Find the snake by id
-            ServerSnake snake = entities.stream()
-                    .filter(Entity::isSnake).map(e -> (ServerSnake) e)
-                    .filter(s -> s.getId().equals(id))
-                    .findFirst().orElse(null);
+    /**
+     * Gets the amount of alive snakes on the board.
+     */
+    public int getSnakeCount() {
+        return snakeCount;
+    }
 
-            if (snake == null)
-                return false;
+    /**
+     * Gets the amount of queued moves taken by the last tick, snakes without a move keep going the same way.
+     */
+    public int getLastMoveCount() {
+        return lastMoveCount;
+    }
 
-            logger.info("Player {} has left the game!", snake.getName());
+    /**
+     * Makes the next delta tick a keyframe, so that new clients can start applying deltas.
+     */
+    public void requestKeyframe() {
+        keyframeRequested.set(true);
+    }
 
-            // Kill the snake to be removed at the next tick
-            snake.internalSetDead(DeathReason.DISCONNECT);
-            return true;
-        } finally {
-            // Unlock entities
-            tickLock.writeLock().unlock();
-        }
+    /**
+     * Adds a new player to the board.
+     * @param id        A unique ID for this player.
+     * @param snakeData The metadata about the new snake.
+     * @return A join error if unsuccessful otherwise empty.
+     */
+    public Optional<JoinError> addPlayer(String id, SnakeMetadata snakeData) {
+        return addPlayer(id, snakeData, null);
     }
 
     /**
-     * Queues up a player move to be processed at the next tick.
-     * @param name The name of the snake coming from the metadata.
-     * @param data The new move data for this tick.
+     * Adds a new player to the board at a chosen spawn, such as for scripted boards.
+     * @param id        A unique ID for this player.
+     * @param snakeData The metadata about the new snake.
+     * @param spawn     The initial head of the snake, or null for a random open square.
+     * @return A join error if unsuccessful otherwise empty.
      */
-    public void addPlayerMoveToQueue(String name, MoveData data) {
-        // Lock write access to queuedMoves
+    public Optional<JoinError> addPlayer(String id, SnakeMetadata snakeData, @Nullable Point spawn) {
+        // Lock write access to entities
         tickLock.writeLock().lock();
 
         try {
-            queuedMoves.put(name, data);
+            ServerSnake snake;
+
+            // The registry is shared with other arenas, so hold it while checking and registering
+            synchronized (players) {
+                // Check if the player is already in any arena based on name or ID
+                JoinError err = players.checkAvailable(id, snakeData.getName());
+
+                // Return error if any
+                if (err != null) {
+                    return Optional.of(err);
+                }
+
+                // Store the new snake
+                snake = players.register(id, snakeData, spawn != null ? spawn : board.getRandomPoint());
+            }
+
+            logger.info("A new player {} has joined the arena {}!", snakeData.getName(), name);
+            spawn(snake, snake.getHandle());
+            pendingJoins.add(new TickInputs.Join(snake.getHandle(), id, snakeData, snake.getHead()));
+
+            // Occupy the spawn square so nothing else spawns on top of it
+            board.addOccupier(snake.getHead(), snake);
+            snakeCount++;
+
+            return Optional.empty();
         } finally {
-            // Unlock queuedMoves
+            // Remove the lock on entities
             tickLock.writeLock().unlock();
         }
     }
 
     /**
-     * Handle each game tick that's scheduled for every 500ms by Spring.
-     * Handles all the queued moves and sends out updated data.
+     * Handle each game tick that's scheduled at the configured tick rate by {@link TickScheduler}.
+     * Handles all the queued moves and passes the updated data to the {@link GameListener}.
+     * <p>
+     * This can also be run directly by benchmarks and simulations, but never while the arena is started.
      */
-    @Scheduled(initialDelay = 250, fixedRate = 5000)
-    private void gameTick() {
-        long tickStartTime = System.currentTimeMillis();
-
-        // Lock write access to queuedMoves so that we can process all the moves.
+    public void gameTick() {
+        long tickStartTime = System.nanoTime();
+        long phaseStartTime = tickStartTime;
+        AtomicInteger moveCount = new AtomicInteger();
+        Queue<TickInputs.Move> moveInputs = new ConcurrentLinkedQueue<>();
+        Queue<Integer> leaveInputs = new ConcurrentLinkedQueue<>();
+        Queue<ServerSnake> timedOut = new ConcurrentLinkedQueue<>();
+        TickInputs inputs = null;
+        DeltaTickData delta = null;
+        List<EntityData> removedData = null;
+
+        // Lock write access to entities so that we can process all the moves.
         tickLock.writeLock().lock();
 
         try {
             // Get all current alive players for this tick, and map each to their new calculated head position
-            Map<ServerSnake, Point> snakeMoves = entities.parallelStream()
+            Map<ServerSnake, Point> snakeMoves = entities.keySet().parallelStream()
                     .filter(Entity::isSnake).map(entity -> (ServerSnake) entity) // Get all snakes
                     .filter(s -> !s.isDead()) // Filter out dead snakes
                     .collect(Collectors.toMap(
                             snake -> snake, // Map key
                             snake -> { // New snake head calculated based on queuedMoves
-                                MoveData move = queuedMoves.get(snake.getName());
+                                MoveData move = snake.pollQueuedMove();
+                                if (move != null) {
+                                    moveCount.incrementAndGet();
+                                    moveInputs.add(new TickInputs.Move(snake.getHandle(), move.getDirection()));
+                                }
 
                                 // Update client alive status
-                                if (move == null && !snake.isClientAlive()) {
+                                if (snake.isDisconnectRequested()) {
+                                    snake.internalSetDead(DeathReason.DISCONNECT);
+                                    leaveInputs.add(snake.getHandle());
+                                } else if (move == null && !snake.isClientAlive()) {
                                     logger.info("Player \"{}\" has missed a large amount of ticks, disconnecting...", snake.getName());
                                     snake.internalSetDead(DeathReason.DISCONNECT);
-                                    websocketUsers.disconnectUser(snake.getId());
+                                    leaveInputs.add(snake.getHandle());
+                                    timedOut.add(snake);
                                 } else if (move == null) {
                                     snake.incrementMissedTicks();
                                     logger.info("Player \"{}\" has missed a tick! ({})", snake.getName(), snake.getMissedTickCount());
@@ -206,7 +335,7 @@ public class GameService {
                                     snake.setFacing(facing);
 
                                     // Apply the current move onto the snake head
-                                    return new Point(
+                                    return Point.of(
                                             snake.getHead().getX() + facing.x,
                                             snake.getHead().getY() + facing.y);
                                 } else {
@@ -219,92 +348,199 @@ public class GameService {
 
                                     snake.setFacing(newFacing);
 
-                                    return new Point(
+                                    return Point.of(
                                             head.getX() + newFacing.x,
                                             head.getY() + newFacing.y);
                                 }
                             }
                     ));
 
+            lastMoveCount = moveCount.get();
+            phaseStartTime = recordPhase(TickPhase.MOVES, phaseStartTime);
+
             if (snakeMoves.isEmpty()) return;
 
-            // Update the logical positions of this snake on the board
+            // Update the logical positions of this snake on the board,
+            // keeping the old body sizes to tell delta clients how each body changed
+            Map<ServerSnake, Integer> oldBodySizes = new HashMap<>();
             snakeMoves.forEach((snake, newHead) -> {
-                // Check if the new head is in board bounds
-                if (board.isPointOnBoard(newHead)) {
-                    // Move the head on the snake itself
-                    Point oldTail = snake.getTail();
-                    snake.internalMove(newHead);
-
-                    // If the tail has moved, then remove the old tail from the old square
-                    if (!snake.getTail().equals(oldTail)) {
-                        Objects.requireNonNull(board.getSquare(oldTail)).removeOccupier(snake);
-                    }
+                // Disconnected snakes don't move, so they can't collide with anyone on their way out
+                if (snake.isDead()) return;
 
-                    // Assign this snake to its new head square
-                    Objects.requireNonNull(board.getSquare(newHead)).addOccupier(snake);
-                } else {
+                int oldBodySize = snake.getBody().size();
+
+                if (!board.moveSnake(snake, newHead)) {
                     // Kill this snake early because otherwise it won't be caught by
                     // the calculations inside each square
                     snake.internalSetDead(DeathReason.BOARD_COLLISION);
+                } else {
+                    oldBodySizes.put(snake, oldBodySize);
                 }
             });
 
-            // Allow each board square to perform calculations and kill/modify snakes
+            phaseStartTime = recordPhase(TickPhase.BOARD, phaseStartTime);
+
+            // Allow each touched board square to perform calculations and kill/modify snakes
             // Collect all removed entities into one de-duplicated list.
-            // TODO: move this to Board(?)
-            Set<Entity<?>> removedEntities = Stream.of(board.getBoard()).parallel()
-                    .flatMap(column -> Stream.of(column).parallel()
-                            .map(BoardSquare::process)
-                            .filter(Objects::nonNull)
-                            .flatMap(Collection::stream))
-                    .collect(Collectors.toSet());
+            Set<Entity<?>> removedEntities = new HashSet<>();
+            board.processCollisions(removedEntities);
+
+            // Describe each snake's movement after collisions, since eating an apple changes the curled length
+            List<SnakeMoveData> moves = new ArrayList<>(oldBodySizes.size());
+            oldBodySizes.forEach((snake, oldBodySize) -> {
+                // The body only ever grows by the old head, which happens every move unless there's no body to shift
+                int bodySize = snake.getBody().size();
+                boolean bodyAdded = bodySize > 0;
+
+                moves.add(SnakeMoveData.Builder.builder()
+                        .setId(snake.getHandle())
+                        .setHead(snake.getHead())
+                        .setBodyAdded(bodyAdded)
+                        .setTailRemoved(oldBodySize + (bodyAdded ? 1 : 0) > bodySize)
+                        .setCurledLength(snake.getCurledLength())
+                        .build());
+            });
+
+            phaseStartTime = recordPhase(TickPhase.COLLISIONS, phaseStartTime);
 
             // Remove all dead snakes while visually preserving their new head position
-            // TODO: each square process already removes dead snakes from their own square if they've already been marked dead, probably should only do it once here instead
             snakeMoves.forEach((snake, newHead) -> {
                 if (snake.isDead()) {
-                    // Remove all parts of the snake from the board
-                    Objects.requireNonNull(board.getSquare(snake.getHead())).removeOccupier(snake);
+                    board.removeSnake(snake);
+                    players.remove(snake);
+                    removedEntities.add(snake);
+                    snakeCount--;
 
-                    for (Point body : snake.getBody()) {
-                        Objects.requireNonNull(board.getSquare(body)).removeOccupier(snake);
+                    if (snake.getDeathReason() != null) {
+                        deathCounts.get(snake.getDeathReason()).incrementAndGet();
                     }
-
-                    entities.remove(snake);
-                    removedEntities.add(snake);
                 }
             });
 
-            // Count the eaten apples and add a new apple elsewhere on the board
-            removedEntities.stream()
-                    .filter(Entity::isApple)
-                    .map((a) -> board.generateNewApple())
-                    .forEach(entities::add); // Store the new apple to entities
-
-            // Build the new tick data and send it out to all clients.
-            TickData tick = TickData.Builder.builder()
-                    .setEntities(entities.stream()
-                            .map(Entity::toJsonData)
-                            .collect(Collectors.toList()))
-                    .setRemovedEntities(removedEntities.stream()
-                            .map(Entity::toJsonData)
-                            .collect(Collectors.toList()))
-                    .build();
-            websocket.sendTick(tick);
-
-            // Clear all current moves since they have been processed.
-            queuedMoves.clear();
+            List<Integer> removedIds = new ArrayList<>(removedEntities.size());
+            for (Entity<?> removed : removedEntities) {
+                Integer id = entities.remove(removed);
+                if (id != null) {
+                    removedIds.add(id);
+                }
+
+                // Add a new apple elsewhere on the board for every eaten apple
+                if (removed.isApple()) {
+                    spawn(board.generateNewApple());
+                }
+            }
+
+            phaseStartTime = recordPhase(TickPhase.REMOVALS, phaseStartTime);
+
+            // Only snapshot the changes, full ticks are rebuilt from the deltas once the lock is released.
+            // Removed entities are kept as they are now, since deltas only have their IDs.
+            removedData = removedEntities.stream()
+                    .map(Entity::toJsonData)
+                    .collect(Collectors.toList());
+
+            tickNumber++;
+            delta = buildDeltaTick(moves, removedIds);
+
+            // Joins since an empty tick were never published, so they stay pending until now
+            inputs = new TickInputs(new ArrayList<>(pendingJoins), new ArrayList<>(leaveInputs), new ArrayList<>(moveInputs));
+            pendingJoins.clear();
+            recordPhase(TickPhase.BUILD, phaseStartTime);
         } finally {
-            // Release lock on moves, allowing old moves from this tick or
-            // new moves for the next tick to arrive.
+            entityCount = entities.size();
+
+            // Release lock on entities, allowing players to join or leave.
             tickLock.writeLock().unlock();
 
+            long totalTickTime = System.nanoTime() - tickStartTime;
+
+            if (delta != null) {
+                listener.onTick(this, inputs, delta, removedData, totalTickTime);
+            }
+
+            for (ServerSnake snake : timedOut) {
+                listener.onPlayerTimedOut(this, snake);
+            }
+
             // Log the tick time
-            long totalTickTime = System.currentTimeMillis() - tickStartTime;
-            logger.debug("Game Tick time: {}ms", totalTickTime);
+            logger.debug("Game Tick time for {}: {}us (jitter {}us)",
+                    name,
+                    TimeUnit.NANOSECONDS.toMicros(totalTickTime),
+                    TimeUnit.NANOSECONDS.toMicros(scheduler.getLastJitterNanos()));
+
+            // Printing the board is proportional to its size, only do so when debugging
+            if (logger.isDebugEnabled()) {
+                board.printBoardToConsole();
+            }
+        }
+    }
 
-            board.printBoardToConsole();
+    /**
+     * Records the time since the start of a tick phase.
+     * @return The start of the next phase.
+     */
+    private long recordPhase(TickPhase phase, long phaseStartTime) {
+        long now = System.nanoTime();
+        phaseTimers.get(phase).record(now - phaseStartTime);
+        return now;
+    }
+
+    /**
+     * Adds a new entity to the board with a new ID, to be sent as spawned in the next delta tick.
+     * The caller must hold the tick lock.
+     */
+    private void spawn(@NotNull Entity<?> entity) {
+        spawn(entity, players.nextEntityId());
+    }
+
+    /**
+     * Adds a new entity to the board with an ID from {@link PlayerRegistry#nextEntityId()},
+     * such as a snake's handle, to be sent as spawned in the next delta tick.
+     * The caller must hold the tick lock.
+     */
+    private void spawn(@NotNull Entity<?> entity, int id) {
+        entities.put(entity, id);
+        spawnedEntities.add(entity);
+        entityCount = entities.size();
+    }
+
+    /**
+     * Builds the delta tick for the current tick, or a keyframe with every entity when one is due.
+     * The caller must hold the tick lock.
+     * @param moves   The movement of every snake in this tick.
+     * @param removed The IDs of the entities removed in this tick.
+     */
+    private DeltaTickData buildDeltaTick(List<SnakeMoveData> moves, List<Integer> removed) {
+        // Requests made after this point are left for the next tick
+        boolean keyframe = keyframeRequested.getAndSet(false) || tickNumber % keyframeInterval == 0;
+
+        List<SpawnedEntityData> spawned = new ArrayList<>();
+        if (keyframe) {
+            entities.forEach((entity, id) -> spawned.add(toSpawnedData(entity, id)));
+        } else {
+            for (Entity<?> entity : spawnedEntities) {
+                Integer id = entities.get(entity);
+
+                // Entities spawned and removed in the same tick were never seen by clients
+                if (id != null) {
+                    spawned.add(toSpawnedData(entity, id));
+                }
+            }
         }
+        spawnedEntities.clear();
+
+        return DeltaTickData.Builder.builder()
+                .setTick(tickNumber)
+                .setKeyframe(keyframe)
+                .setSpawned(spawned)
+                .setMoved(keyframe ? Collections.emptyList() : moves)
+                .setRemoved(removed)
+                .build();
+    }
+
+    private static SpawnedEntityData toSpawnedData(Entity<?> entity, int id) {
+        return SpawnedEntityData.Builder.builder()
+                .setId(id)
+                .setEntity(entity.toJsonData())
+                .build();
     }
 }
@@ -0,0 +1,348 @@
+package apcs.snakebattlearena.server.game;
+
+import apcs.snakebattlearena.entities.Apple;
+import apcs.snakebattlearena.entities.Entity;
+import apcs.snakebattlearena.entities.Snake;
+import apcs.snakebattlearena.models.DeathReason;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+/**
+ * The logical occupancy of every square on the board, stored in flat primitive arrays.
+ * Squares are addressed by a cell index of <code>y * width + x</code>, and each square
+ * has {@link OccupancyGrid#MAX_OCCUPIERS} slots holding entity handles.
+ * <p>
+ * Note that what is shown visually may not represent what logically is happening.
+ * i.e. Dead snakes survive visually n+1 ticks after they are marked dead and removed from the board.
+ */
+class OccupancyGrid {
+    /**
+     * Maximum possible entities is 6 because: 1 in this square, 4 corners moving in, and an apple or wall.
+     */
+    static final int MAX_OCCUPIERS = 6;
+
+    private final int width;
+
+    /**
+     * Entity handles occupying each square, <code>MAX_OCCUPIERS</code> slots per cell.
+     */
+    private final int[] slots;
+
+    /**
+     * Amount of used slots in each cell.
+     */
+    private final byte[] counts;
+
+    /**
+     * Index of all empty cells, where the first {@link OccupancyGrid#freeCount} entries of
+     * {@link OccupancyGrid#freeCells} are the empty cell ids, and {@link OccupancyGrid#freePositions}
+     * maps each cell to its position in that array (or -1 if the cell is occupied).
+     */
+    private final int[] freeCells;
+    private final int[] freePositions;
+    private int freeCount;
+
+    /**
+     * Cells touched since the last {@link OccupancyGrid#processDirty(Collection)},
+     * with {@link OccupancyGrid#dirty} marking which cells are already queued.
+     */
+    private int[] dirtyCells = new int[64];
+    private int dirtyCount = 0;
+    private final boolean[] dirty;
+
+    /**
+     * Handle -> Entity lookup table. Unused handles are null.
+     */
+    private Entity<?>[] entities = new Entity<?>[64];
+
+    /**
+     * Amount of squares occupied by each handle, used to release the handle once it reaches 0.
+     */
+    private int[] references = new int[64];
+
+    /**
+     * Entity -> Handle lookup, only used when adding or removing occupiers.
+     */
+    private final IdentityHashMap<Entity<?>, Integer> handles = new IdentityHashMap<>();
+
+    /**
+     * Stack of released handles to be reused before allocating new ones.
+     */
+    private int[] freeHandles = new int[64];
+    private int freeHandleCount = 0;
+    private int nextHandle = 0;
+
+    OccupancyGrid(int width, int height) {
+        this.width = width;
+        this.slots = new int[width * height * MAX_OCCUPIERS];
+        this.counts = new byte[width * height];
+        this.dirty = new boolean[width * height];
+
+        // Every cell starts out empty
+        this.freeCells = new int[width * height];
+        this.freePositions = new int[width * height];
+        this.freeCount = width * height;
+        for (int cell = 0; cell < freeCount; cell++) {
+            freeCells[cell] = cell;
+            freePositions[cell] = cell;
+        }
+    }
+
+    /**
+     * Gets the flat cell index of a square.
+     */
+    int cellOf(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Returns the amount of logical entities registered to this square.
+     */
+    int occupyingCount(int cell) {
+        return counts[cell];
+    }
+
+    /**
+     * Picks a uniformly random cell with no occupiers.
+     * @return The cell index or -1 if the board is full.
+     */
+    int randomFreeCell(Random rnd) {
+        if (freeCount <= 0) return -1;
+
+        return freeCells[rnd.nextInt(freeCount)];
+    }
+
+    /**
+     * Add an occupying entity to this square logically.
+     */
+    void addOccupier(int cell, Entity<?> entity) {
+        int count = counts[cell];
+
+        if (count >= MAX_OCCUPIERS) {
+            throw new IllegalStateException("A square cannot have more than 6 occupiers at the same time!");
+        }
+
+        int handle = acquireHandle(entity);
+        if (count == 0) {
+            removeFreeCell(cell);
+        }
+
+        slots[cell * MAX_OCCUPIERS + count] = handle;
+        counts[cell] = (byte) (count + 1);
+        markDirty(cell);
+    }
+
+    /**
+     * Removes an occupying entity from this square.
+     * @return true if this square contained the entity.
+     */
+    boolean removeOccupier(int cell, Entity<?> entity) {
+        int base = cell * MAX_OCCUPIERS;
+        int count = counts[cell];
+
+        for (int i = 0; i < count; i++) {
+            int handle = slots[base + i];
+
+            if (entities[handle] == entity) {
+                removeSlot(cell, i);
+                markDirty(cell);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Process every cell that has been touched since the last call, then reset the touched cells.
+     * Refer to {@link OccupancyGrid#process(int, Collection)} for more information.
+     * @param removed Output for all entities that were removed from the processed squares.
+     */
+    void processDirty(Collection<Entity<?>> removed) {
+        for (int i = 0; i < dirtyCount; i++) {
+            int cell = dirtyCells[i];
+
+            dirty[cell] = false;
+            process(cell, removed);
+        }
+
+        dirtyCount = 0;
+    }
+
+    /**
+     * Queue a cell to be processed by the next {@link OccupancyGrid#processDirty(Collection)}.
+     */
+    private void markDirty(int cell) {
+        if (dirty[cell]) return;
+
+        if (dirtyCount >= dirtyCells.length) {
+            dirtyCells = Arrays.copyOf(dirtyCells, dirtyCells.length * 2);
+        }
+
+        dirty[cell] = true;
+        dirtyCells[dirtyCount++] = cell;
+    }
+
+    /**
+     * Mark any overlapping snakes dead, mark apples eaten, and
+     * remove both as occupiers of this square <em>logically.</em>
+     * @param removed Output for all entities that were removed from this square.
+     */
+    void process(int cell, Collection<Entity<?>> removed) {
+        int count = counts[cell];
+
+        // No overlapping entities
+        if (count <= 1) return;
+
+        int base = cell * MAX_OCCUPIERS;
+
+        // Get amount of snakes and walls in this square, and the first apple and snake
+        int collidableEntities = 0;
+        int appleSlot = -1, snakeSlot = -1;
+
+        for (int i = 0; i < count; i++) {
+            Entity<?> entity = entities[slots[base + i]];
+
+            if (entity.isCollidable())
+                collidableEntities++;
+
+            if (appleSlot < 0 && entity.isApple())
+                appleSlot = i;
+            else if (snakeSlot < 0 && entity.isSnake())
+                snakeSlot = i;
+        }
+
+        if (collidableEntities > 1) {
+            // Mark all snakes in this square dead since there's more than 1 collidable entity.
+            // Reasons are decided before marking anything dead so that every part of a snake is seen.
+            for (int i = 0; i < count; i++) {
+                int handle = slots[base + i];
+                Entity<?> entity = entities[handle];
+
+                if (!entity.isSnake() || ((Snake) entity).isDead())
+                    continue;
+
+                // If a snake's body is in this square twice, then that is a self-collision.
+                DeathReason reason = DeathReason.COLLISION;
+                for (int j = i + 1; j < count; j++) {
+                    if (slots[base + j] == handle) {
+                        reason = DeathReason.SELF_COLLISION;
+                        break;
+                    }
+                }
+
+                ((Snake) entity).internalSetDead(reason);
+                removed.add(entity);
+            }
+        } else if (appleSlot >= 0 && snakeSlot >= 0) {
+            // Just snake and an apple are left
+            Apple apple = (Apple) entities[slots[base + appleSlot]];
+            Snake snake = (Snake) entities[slots[base + snakeSlot]];
+
+            // Apply apple's effects to snake
+            apple.internalSetAsEaten();
+            snake.internalAddCurledLength(apple.getReward());
+
+            removed.add(apple);
+        } else {
+            return;
+        }
+
+        // Remove all eaten apples and dead snakes
+        for (int i = counts[cell] - 1; i >= 0; i--) {
+            Entity<?> entity = entities[slots[base + i]];
+
+            if ((entity.isApple() && ((Apple) entity).isEaten())
+                    || (entity.isSnake() && ((Snake) entity).isDead())) {
+                removeSlot(cell, i);
+            }
+        }
+    }
+
+    /**
+     * Removes a single slot in a square, shifting the later slots
+     * down to keep occupiers contiguous.
+     */
+    private void removeSlot(int cell, int index) {
+        int base = cell * MAX_OCCUPIERS;
+        int count = counts[cell] - 1;
+        int handle = slots[base + index];
+
+        System.arraycopy(slots, base + index + 1, slots, base + index, count - index);
+        counts[cell] = (byte) count;
+
+        if (count == 0) {
+            addFreeCell(cell);
+        }
+
+        releaseHandle(handle);
+    }
+
+    /**
+     * Removes a cell from the free cell index by swapping the last free cell into its position.
+     */
+    private void removeFreeCell(int cell) {
+        int position = freePositions[cell];
+        int last = freeCells[--freeCount];
+
+        freeCells[position] = last;
+        freePositions[last] = position;
+        freePositions[cell] = -1;
+    }
+
+    /**
+     * Appends a newly emptied cell to the free cell index.
+     */
+    private void addFreeCell(int cell) {
+        freeCells[freeCount] = cell;
+        freePositions[cell] = freeCount++;
+    }
+
+    /**
+     * Gets or creates the handle for an entity, increasing its reference count.
+     */
+    private int acquireHandle(Entity<?> entity) {
+        Integer existing = handles.get(entity);
+
+        if (existing != null) {
+            references[existing]++;
+            return existing;
+        }
+
+        int handle;
+        if (freeHandleCount > 0) {
+            handle = freeHandles[--freeHandleCount];
+        } else {
+            handle = nextHandle++;
+
+            if (handle >= entities.length) {
+                entities = Arrays.copyOf(entities, entities.length * 2);
+                references = Arrays.copyOf(references, references.length * 2);
+            }
+        }
+
+        entities[handle] = entity;
+        references[handle] = 1;
+        handles.put(entity, handle);
+        return handle;
+    }
+
+    /**
+     * Decreases the reference count of a handle, releasing it once
+     * the entity no longer occupies any squares.
+     */
+    private void releaseHandle(int handle) {
+        if (--references[handle] > 0) return;
+
+        handles.remove(entities[handle]);
+        entities[handle] = null;
+
+        if (freeHandleCount >= freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeHandles.length * 2);
+        }
+        freeHandles[freeHandleCount++] = handle;
+    }
+}
@@ -0,0 +1,15 @@
+package apcs.snakebattlearena.server.game;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A transport that players connect through, such as websockets or raw TCP.
+ * {@link ArenaManager} asks each of them to disconnect a player, since only one of them owns the player's ID.
+ */
+public interface PlayerConnections {
+    /**
+     * Disconnects a player's connection by their unique ID, from any thread.
+     * @return Whether the player had an active connection on this transport that was closed.
+     */
+    boolean disconnectUser(@NotNull String id);
+}
@@ -0,0 +1,143 @@
+package apcs.snakebattlearena.server.game;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.JoinError;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index of all the players on the server by their session ID, name and numeric handle.
+ * A snake's handle is its entity ID in the ticks of its arena, refer to {@link PlayerRegistry#nextEntityId()}.
+ * <p>
+ * Lookups by ID and handle are lock-free so that they can be used by incoming messages,
+ * while registering and removing players is synchronized.
+ */
+@Component
+public class PlayerRegistry {
+    /**
+     * Player ID -> Snake
+     */
+    private final ConcurrentHashMap<String, ServerSnake> byId = new ConcurrentHashMap<>();
+
+    /**
+     * Player name -> Snake
+     */
+    private final HashMap<String, ServerSnake> byName = new HashMap<>();
+
+    /**
+     * Handle -> Snake
+     */
+    private final ConcurrentHashMap<Integer, ServerSnake> byHandle = new ConcurrentHashMap<>();
+
+    /**
+     * The next entity ID of any arena.
+     */
+    private final AtomicInteger nextEntityId = new AtomicInteger(1);
+
+    /**
+     * Allocates the ID of a new entity in any arena. IDs are shared by every arena and never reused,
+     * so that delta clients cannot confuse a new entity with an old one, and so that the ID of
+     * a snake is unique on the server and can double as its handle.
+     */
+    public int nextEntityId() {
+        return nextEntityId.getAndIncrement();
+    }
+
+    /**
+     * Checks whether a new player could join with this ID and name.
+     * @return The join error if the ID or name is already registered, otherwise null.
+     */
+    @Nullable
+    public synchronized JoinError checkAvailable(@NotNull String id, @NotNull String name) {
+        if (byId.containsKey(id))
+            return JoinError.INVALID_SESSION;
+        if (byName.containsKey(name))
+            return JoinError.PLAYER_EXISTS;
+
+        return null;
+    }
+
+    /**
+     * Creates and registers a new snake, with a new entity ID as its handle.
+     * Check {@link PlayerRegistry#checkAvailable(String, String)} beforehand.
+     * @param id       The unique ID for the websocket connection.
+     * @param metadata Initializing metadata of this player
+     * @param spawn    The initial head position of this snake.
+     * @throws IllegalStateException When the ID or name is already registered.
+     */
+    @NotNull
+    public synchronized ServerSnake register(@NotNull String id,
+                                             @NotNull SnakeMetadata metadata,
+                                             @NotNull Point spawn) {
+        if (checkAvailable(id, metadata.getName()) != null) {
+            throw new IllegalStateException("Player is already registered!");
+        }
+
+        ServerSnake snake = new ServerSnake(nextEntityId(), id, metadata, spawn);
+        byHandle.put(snake.getHandle(), snake);
+        byName.put(snake.getName(), snake);
+        byId.put(id, snake);
+        return snake;
+    }
+
+    /**
+     * Removes a snake from all indexes.
+     * @return True if this exact snake was registered.
+     */
+    public synchronized boolean remove(@NotNull ServerSnake snake) {
+        if (!byHandle.remove(snake.getHandle(), snake))
+            return false;
+
+        byName.remove(snake.getName());
+        byId.remove(snake.getId());
+        return true;
+    }
+
+    /**
+     * Gets a player by their unique session ID without locking.
+     */
+    @Nullable
+    public ServerSnake getById(@NotNull String id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Gets a player by their snake's name.
+     */
+    @Nullable
+    public synchronized ServerSnake getByName(@NotNull String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Gets a player by their numeric handle without locking.
+     */
+    @Nullable
+    public ServerSnake getByHandle(int handle) {
+        return byHandle.get(handle);
+    }
+
+    /**
+     * Gets a read-only view of all registered players.
+     */
+    @NotNull
+    public Collection<ServerSnake> getPlayers() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    /**
+     * Returns the amount of registered players.
+     */
+    public int size() {
+        return byId.size();
+    }
+}
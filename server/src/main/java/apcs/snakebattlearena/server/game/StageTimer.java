@@ -0,0 +1,58 @@
+package apcs.snakebattlearena.server.game;
+
+/**
+ * Timing statistics of a single stage or phase of a tick.
+ * Recording is synchronized since multiple arenas may record into the same timer at once.
+ */
+public class StageTimer {
+    private volatile long count = 0;
+    private volatile long lastNanos = 0;
+    private volatile long maxNanos = 0;
+    private volatile long totalNanos = 0;
+
+    /**
+     * Records how long a single tick took in this stage.
+     */
+    public synchronized void record(long nanos) {
+        count++;
+        lastNanos = nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        totalNanos += nanos;
+    }
+
+    /**
+     * Gets the amount of ticks that went through this stage.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets how long the last tick took in this stage, in nanoseconds.
+     */
+    public long getLastNanos() {
+        return lastNanos;
+    }
+
+    /**
+     * Gets the longest any tick took in this stage, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Gets the total time all ticks took in this stage, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Gets the average time ticks took in this stage, in nanoseconds.
+     */
+    public long getMeanNanos() {
+        long ticks = count;
+        return ticks == 0 ? 0 : totalNanos / ticks;
+    }
+}
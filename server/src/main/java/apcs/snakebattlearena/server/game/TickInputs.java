@@ -0,0 +1,121 @@
+package apcs.snakebattlearena.server.game;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything players did that went into a single tick of a {@link GameService},
+ * so that the tick can be recorded and analysed together with its results.
+ * <p>
+ * Snakes are referred to by their entity ID, the same IDs used in delta ticks.
+ */
+public final class TickInputs {
+    private final List<Join> joins;
+    private final List<Integer> leaves;
+    private final List<Move> moves;
+
+    public TickInputs(@NotNull List<Join> joins, @NotNull List<Integer> leaves, @NotNull List<Move> moves) {
+        this.joins = Collections.unmodifiableList(joins);
+        this.leaves = Collections.unmodifiableList(leaves);
+        this.moves = Collections.unmodifiableList(moves);
+    }
+
+    /**
+     * Gets the snakes that joined since the previous tick, in the order they joined.
+     */
+    @NotNull
+    public List<Join> getJoins() {
+        return joins;
+    }
+
+    /**
+     * Gets the IDs of the snakes that disconnected or timed out in this tick.
+     */
+    @NotNull
+    public List<Integer> getLeaves() {
+        return leaves;
+    }
+
+    /**
+     * Gets the queued moves taken by this tick, snakes without a move keep going the same way.
+     */
+    @NotNull
+    public List<Move> getMoves() {
+        return moves;
+    }
+
+    /**
+     * A snake joining the arena.
+     */
+    public static final class Join {
+        private final int id;
+        private final String playerId;
+        private final SnakeMetadata metadata;
+        private final Point spawn;
+
+        public Join(int id, @NotNull String playerId, @NotNull SnakeMetadata metadata, @NotNull Point spawn) {
+            this.id = id;
+            this.playerId = playerId;
+            this.metadata = metadata;
+            this.spawn = spawn;
+        }
+
+        /**
+         * Gets the entity ID of the new snake.
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Gets the unique ID of the player's connection.
+         */
+        @NotNull
+        public String getPlayerId() {
+            return playerId;
+        }
+
+        @NotNull
+        public SnakeMetadata getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * Gets the initial head of the snake.
+         */
+        @NotNull
+        public Point getSpawn() {
+            return spawn;
+        }
+    }
+
+    /**
+     * A queued move taken by a snake.
+     */
+    public static final class Move {
+        private final int id;
+        private final Direction direction;
+
+        public Move(int id, @NotNull Direction direction) {
+            this.id = id;
+            this.direction = direction;
+        }
+
+        /**
+         * Gets the entity ID of the snake.
+         */
+        public int getId() {
+            return id;
+        }
+
+        @NotNull
+        public Direction getDirection() {
+            return direction;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package apcs.snakebattlearena.server.game;
+
+/**
+ * The phases of a single {@link GameService} tick, in the order they run.
+ * Serializing and sending the tick are timed separately by the tick pipeline.
+ */
+public enum TickPhase {
+    /**
+     * Polling the queued move of every snake and resolving its new head.
+     */
+    MOVES,
+
+    /**
+     * Moving the snakes on the board.
+     */
+    BOARD,
+
+    /**
+     * Processing every touched board square, which kills snakes and eats apples.
+     */
+    COLLISIONS,
+
+    /**
+     * Removing dead snakes and eaten apples, and regenerating the eaten apples.
+     */
+    REMOVALS,
+
+    /**
+     * Building the {@link apcs.snakebattlearena.models.TickData} and delta tick snapshots.
+     */
+    BUILD,
+}
@@ -0,0 +1,195 @@
+package apcs.snakebattlearena.server.game;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a tick at a fixed timestep on a (shared) high priority executor.
+ * Each tick is scheduled against an absolute nanosecond deadline rather than relative
+ * to the end of the previous tick, so that ticks do not drift over time.
+ * <p>
+ * When a tick runs past the deadline of the next one (an overrun), the
+ * {@link OverrunPolicy} decides whether the missed ticks are caught up or skipped.
+ * Only one tick of a scheduler runs at a time, even if the executor has multiple threads.
+ */
+public class TickScheduler {
+    /**
+     * What to do with ticks whose deadline has passed by the time the previous tick finishes.
+     */
+    public enum OverrunPolicy {
+        /**
+         * Run every missed tick back-to-back until the schedule has caught up.
+         */
+        CATCH_UP,
+
+        /**
+         * Drop the missed ticks and continue at the next deadline in the future.
+         */
+        SKIP,
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String name;
+    private final Runnable tick;
+    private final long periodNanos;
+    private final OverrunPolicy overrunPolicy;
+    private final ScheduledExecutorService executor;
+
+    private long deadline;
+    private volatile boolean running = false;
+
+    // Statistics, only written by the tick thread
+    private volatile long tickCount = 0;
+    private volatile long overrunCount = 0;
+    private volatile long skippedTickCount = 0;
+    private volatile long lastJitterNanos = 0;
+    private volatile long maxJitterNanos = 0;
+    private volatile long totalJitterNanos = 0;
+
+    /**
+     * Creates a new scheduler, which doesn't start until {@link TickScheduler#start()}.
+     * @param name          The name of this scheduler used when logging.
+     * @param tickRateMs    Period between the start of each tick in milliseconds.
+     * @param overrunPolicy What to do when a tick takes longer than the period.
+     * @param executor      The executor to run ticks on, refer to {@link TickScheduler#newExecutor(String, int)}
+     * @param tick          The tick to run.
+     */
+    public TickScheduler(@NotNull String name,
+                         long tickRateMs,
+                         @NotNull OverrunPolicy overrunPolicy,
+                         @NotNull ScheduledExecutorService executor,
+                         @NotNull Runnable tick) {
+        this.name = name;
+        this.tick = tick;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(tickRateMs);
+        this.overrunPolicy = overrunPolicy;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an executor with max priority daemon threads for running ticks.
+     * @param name    Prefix for the thread names.
+     * @param threads The amount of threads to run ticks on.
+     */
+    public static ScheduledExecutorService newExecutor(@NotNull String name, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        return new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts running ticks, with the first tick after one period.
+     */
+    public void start() {
+        running = true;
+        deadline = System.nanoTime() + periodNanos;
+        executor.schedule(this::run, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops scheduling new ticks. The executor is not shut down since it may be shared.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Runs a single tick then schedules the next one based on the deadline.
+     */
+    private void run() {
+        if (!running) return;
+
+        // Measure how late this tick started compared to its deadline
+        long jitter = Math.max(0, System.nanoTime() - deadline);
+        lastJitterNanos = jitter;
+        maxJitterNanos = Math.max(maxJitterNanos, jitter);
+        totalJitterNanos += jitter;
+        tickCount++;
+
+        try {
+            tick.run();
+        } catch (Throwable t) {
+            logger.error("Uncaught exception while running a tick for {}!", name, t);
+        }
+
+        long end = System.nanoTime();
+        deadline += periodNanos;
+
+        // The next tick should have already started
+        if (end > deadline) {
+            long overrun = end - deadline;
+            long missed = overrun / periodNanos + 1;
+            overrunCount++;
+
+            if (overrunPolicy == OverrunPolicy.SKIP) {
+                deadline += missed * periodNanos;
+                skippedTickCount += missed;
+            }
+
+            logger.warn("Tick for {} overran by {}ms, {} {} tick(s)",
+                    name,
+                    TimeUnit.NANOSECONDS.toMillis(overrun),
+                    overrunPolicy == OverrunPolicy.SKIP ? "skipping" : "catching up",
+                    missed);
+        }
+
+        if (running) {
+            executor.schedule(this::run, Math.max(0, deadline - end), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Gets the amount of ticks that have been run.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Gets the amount of ticks that ran longer than the tick period.
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * Gets the amount of ticks dropped by {@link OverrunPolicy#SKIP}.
+     */
+    public long getSkippedTickCount() {
+        return skippedTickCount;
+    }
+
+    /**
+     * Gets how late the last tick started compared to its deadline, in nanoseconds.
+     */
+    public long getLastJitterNanos() {
+        return lastJitterNanos;
+    }
+
+    /**
+     * Gets the latest any tick has started compared to its deadline, in nanoseconds.
+     */
+    public long getMaxJitterNanos() {
+        return maxJitterNanos;
+    }
+
+    /**
+     * Gets the average lateness of ticks compared to their deadlines, in nanoseconds.
+     */
+    public long getMeanJitterNanos() {
+        long ticks = tickCount;
+        return ticks == 0 ? 0 : totalJitterNanos / ticks;
+    }
+}
@@ -0,0 +1,190 @@
+package apcs.snakebattlearena.server.metrics;
+
+import apcs.snakebattlearena.models.DeathReason;
+import apcs.snakebattlearena.server.game.ArenaManager;
+import apcs.snakebattlearena.server.game.GameService;
+import apcs.snakebattlearena.server.game.PlayerRegistry;
+import apcs.snakebattlearena.server.game.StageTimer;
+import apcs.snakebattlearena.server.game.TickPhase;
+import apcs.snakebattlearena.server.game.TickScheduler;
+import apcs.snakebattlearena.server.websocket.OutboxStats;
+import apcs.snakebattlearena.server.websocket.TickBroadcaster;
+import apcs.snakebattlearena.server.websocket.TickOutbox;
+import apcs.snakebattlearena.server.websocket.TickPipeline;
+import apcs.snakebattlearena.server.websocket.WebsocketUserManager;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the statistics the game already keeps as Micrometer meters, which are scraped
+ * in the Prometheus text format from <code>/actuator/prometheus</code>.
+ * <p>
+ * Nothing is recorded through Micrometer on the tick threads, the meters only read
+ * the existing statistics when scraped.
+ */
+@Component
+public class GameMetrics implements MeterBinder {
+    private final ArenaManager arenas;
+    private final PlayerRegistry players;
+    private final TickPipeline pipeline;
+    private final TickBroadcaster broadcaster;
+    private final WebsocketUserManager websocketUsers;
+
+    public GameMetrics(ArenaManager arenas,
+                       PlayerRegistry players,
+                       TickPipeline pipeline,
+                       TickBroadcaster broadcaster,
+                       WebsocketUserManager websocketUsers) {
+        this.arenas = arenas;
+        this.players = players;
+        this.pipeline = pipeline;
+        this.broadcaster = broadcaster;
+        this.websocketUsers = websocketUsers;
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        for (GameService arena : arenas.getArenas()) {
+            bindArena(registry, arena);
+        }
+
+        bindStage(registry, "snake.pipeline.stage", Tags.of("stage", "simulate"), pipeline.getSimulateTimer());
+        bindStage(registry, "snake.pipeline.stage", Tags.of("stage", "serialize"), pipeline.getSerializeTimer());
+        bindStage(registry, "snake.pipeline.stage", Tags.of("stage", "broadcast"), pipeline.getBroadcastTimer());
+        bindStage(registry, "snake.pipeline.stage", Tags.of("stage", "latency"), pipeline.getLatencyTimer());
+
+        FunctionCounter.builder("snake.pipeline.dropped", pipeline, TickPipeline::getDroppedTickCount)
+                .description("Ticks dropped because a pipeline queue was full")
+                .register(registry);
+
+        Gauge.builder("snake.players", players, PlayerRegistry::size)
+                .description("Players with an alive snake in any arena")
+                .register(registry);
+        Gauge.builder("snake.sessions", websocketUsers, WebsocketUserManager::getSessionCount)
+                .description("Open websocket connections")
+                .register(registry);
+        TimeGauge.builder("snake.outbox.lag.current.max", broadcaster, TimeUnit.NANOSECONDS, GameMetrics::getMaxOutboxLag)
+                .description("Longest time the last tick of any websocket subscription took to be sent")
+                .register(registry);
+
+        // Tick destinations only appear once something subscribes to them
+        broadcaster.setStatsListener(stats -> bindOutboxStats(registry, stats));
+        broadcaster.getStats().forEach(stats -> bindOutboxStats(registry, stats));
+    }
+
+    /**
+     * Binds the outbound statistics of every websocket session subscribed to a tick destination.
+     * Registering the same destination twice is a no-op.
+     */
+    private static void bindOutboxStats(MeterRegistry registry, OutboxStats stats) {
+        Tags tags = Tags.of("destination", stats.getDestination());
+
+        FunctionTimer.builder("snake.outbox.lag", stats, OutboxStats::getSentCount, OutboxStats::getTotalLagNanos, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("Time sent ticks waited in an outbox plus how long they took to send")
+                .register(registry);
+        TimeGauge.builder("snake.outbox.lag.max", stats, TimeUnit.NANOSECONDS, OutboxStats::getMaxLagNanos)
+                .tags(tags)
+                .description("Longest time any tick took to be sent")
+                .register(registry);
+        FunctionCounter.builder("snake.outbox.coalesced", stats, OutboxStats::getCoalescedCount)
+                .tags(tags)
+                .description("Unsent ticks replaced by a newer tick for a slow session")
+                .register(registry);
+        FunctionCounter.builder("snake.outbox.dropped", stats, OutboxStats::getDroppedCount)
+                .tags(tags)
+                .description("Ticks never sent to a session, including ticks skipped while waiting for a keyframe")
+                .register(registry);
+        FunctionCounter.builder("snake.outbox.keyframe.requests", stats, OutboxStats::getKeyframeRequestCount)
+                .tags(tags)
+                .description("Keyframes requested because a session had to skip a tick")
+                .register(registry);
+        FunctionCounter.builder("snake.sessions.slow", stats, OutboxStats::getSlowSessionCount)
+                .tags(tags)
+                .description("Websocket sessions closed for taking too long to send a tick")
+                .register(registry);
+    }
+
+    /**
+     * Binds the tick phases, scheduler and board statistics of a single arena.
+     */
+    private static void bindArena(MeterRegistry registry, GameService arena) {
+        Tags tags = Tags.of("arena", arena.getName());
+        TickScheduler scheduler = arena.getScheduler();
+
+        for (TickPhase phase : TickPhase.values()) {
+            bindStage(registry,
+                    "snake.tick.phase",
+                    tags.and("phase", phase.name().toLowerCase(Locale.ROOT)),
+                    arena.getPhaseTimer(phase));
+        }
+
+        for (DeathReason reason : DeathReason.values()) {
+            FunctionCounter.builder("snake.deaths", arena, a -> a.getDeathCount(reason))
+                    .tags(tags.and("reason", reason.name()))
+                    .description("Snakes that died")
+                    .register(registry);
+        }
+
+        Gauge.builder("snake.arena.entities", arena, GameService::getEntityCount)
+                .tags(tags)
+                .description("Entities on the board, including snakes")
+                .register(registry);
+        Gauge.builder("snake.arena.snakes", arena, GameService::getSnakeCount)
+                .tags(tags)
+                .description("Alive snakes on the board")
+                .register(registry);
+        Gauge.builder("snake.arena.moves", arena, GameService::getLastMoveCount)
+                .tags(tags)
+                .description("Queued moves taken by the last tick")
+                .register(registry);
+
+        FunctionCounter.builder("snake.tick.overruns", scheduler, TickScheduler::getOverrunCount)
+                .tags(tags)
+                .description("Ticks that ran past the deadline of the next tick")
+                .register(registry);
+        FunctionCounter.builder("snake.tick.skipped", scheduler, TickScheduler::getSkippedTickCount)
+                .tags(tags)
+                .description("Ticks skipped after an overrun")
+                .register(registry);
+        TimeGauge.builder("snake.tick.jitter", scheduler, TimeUnit.NANOSECONDS, TickScheduler::getLastJitterNanos)
+                .tags(tags)
+                .description("How late the last tick started")
+                .register(registry);
+        TimeGauge.builder("snake.tick.jitter.max", scheduler, TimeUnit.NANOSECONDS, TickScheduler::getMaxJitterNanos)
+                .tags(tags)
+                .description("The latest any tick started")
+                .register(registry);
+    }
+
+    /**
+     * Binds a stage timer as a timer with its max as a separate gauge.
+     */
+    private static void bindStage(MeterRegistry registry, String name, Tags tags, StageTimer timer) {
+        FunctionTimer.builder(name, timer, StageTimer::getCount, StageTimer::getTotalNanos, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .register(registry);
+        TimeGauge.builder(name + ".max", timer, TimeUnit.NANOSECONDS, StageTimer::getMaxNanos)
+                .tags(tags)
+                .register(registry);
+    }
+
+    private static double getMaxOutboxLag(TickBroadcaster broadcaster) {
+        long max = 0;
+        for (TickOutbox outbox : broadcaster.getOutboxes()) {
+            max = Math.max(max, outbox.getLastLagNanos());
+        }
+
+        return max;
+    }
+}
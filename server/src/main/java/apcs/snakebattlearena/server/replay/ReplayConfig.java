@@ -0,0 +1,69 @@
+package apcs.snakebattlearena.server.replay;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+
+/**
+ * Injected config for the optional replay recording ({@link ReplayRecorder}) and playback ({@link ReplayPlayer}),
+ * loaded and validated by Spring from <code>replay.*</code> in any <code>application.properties</code> file present.
+ */
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "replay")
+public class ReplayConfig {
+    private boolean enabled = false;
+    @NotEmpty
+    private String directory = "replays";
+    @Min(64 * 1024)
+    private int segmentSize = 64 * 1024 * 1024;
+    @Min(1)
+    private int queueSize = 256;
+    @Min(1)
+    private int maxFrameRate = 30;
+
+    // ------------------ Getters and required auto-setters ------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getMaxFrameRate() {
+        return maxFrameRate;
+    }
+
+    public void setMaxFrameRate(int maxFrameRate) {
+        this.maxFrameRate = maxFrameRate;
+    }
+}
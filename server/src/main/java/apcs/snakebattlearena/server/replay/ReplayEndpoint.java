@@ -0,0 +1,87 @@
+package apcs.snakebattlearena.server.replay;
+
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to browse, inspect and play back recordings, once exposed
+ * through <code>management.endpoints.web.exposure.include</code>:
+ * <ul>
+ *     <li><code>GET /actuator/replays</code>: Lists every recording and running playback.</li>
+ *     <li><code>GET /actuator/replays/{arena}/{recording}/{tick}</code>: The board and inputs at a tick.</li>
+ *     <li><code>POST /actuator/replays/{arena}/{recording}</code>: Plays a recording back to spectators,
+ *     with an optional JSON body of <code>{"from": tick, "speed": 10}</code>.</li>
+ *     <li><code>DELETE /actuator/replays/{name}</code>: Stops a playback.</li>
+ * </ul>
+ * Responses are converted with the server's {@link ObjectMapper}, since the actuator has its own without the custom serializers.
+ */
+@Component
+@Endpoint(id = "replays")
+public class ReplayEndpoint {
+    private final ReplayPlayer player;
+    private final ObjectMapper mapper;
+
+    public ReplayEndpoint(ReplayPlayer player, ObjectMapper mapper) {
+        this.player = player;
+        this.mapper = mapper;
+    }
+
+    @ReadOperation
+    public Map<String, Object> list() throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("recordings", player.getRecordings());
+        result.put("playbacks", player.getPlaybacks());
+        return result;
+    }
+
+    /**
+     * Restores the board at a tick, to inspect what happened in it.
+     */
+    @ReadOperation
+    public Map<String, Object> inspect(@Selector String arena, @Selector String recording, @Selector long tick) throws IOException {
+        ReplayReader reader = player.open(arena, recording);
+        ReplayReader.Cursor cursor = reader.seek(tick);
+        if (cursor == null) return null;
+
+        ReplayTick current = cursor.getCurrent();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tick", current.getTick());
+        result.put("time", current.getTimeMillis());
+        result.put("inputs", mapper.convertValue(current.getInputs(), Map.class));
+        result.put("board", mapper.convertValue(cursor.getState().toTickData(), Map.class));
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> play(@Selector String arena,
+                                    @Selector String recording,
+                                    @Nullable Long from,
+                                    @Nullable Double speed) throws IOException {
+        String name = player.play(arena, recording, from, speed != null ? speed : 1);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", name);
+        for (TickEncoding encoding : TickEncoding.values()) {
+            result.put(encoding.name().toLowerCase(Locale.ROOT), TickProtocol.getSpectatorDestination(name, encoding));
+        }
+        return result;
+    }
+
+    @DeleteOperation
+    public boolean stop(@Selector String name) {
+        return player.stop(name);
+    }
+}
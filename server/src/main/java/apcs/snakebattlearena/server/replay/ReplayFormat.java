@@ -0,0 +1,249 @@
+package apcs.snakebattlearena.server.replay;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.server.game.TickInputs;
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary layout of replay segments, written by {@link ReplayLog}.
+ * All integers are big-endian.
+ * <pre>
+ * segment = header record* end
+ * header  = magic:i32 version:i32 startTick:i64 createdMillis:i64 width:i16 height:i16 arena:string
+ * record  = length:i32 type:u8 tick:i64 timeMillis:i64 body      (length of everything after itself)
+ * end     = 0:i32                                                 (or the end of the file)
+ *
+ * tick    = type 1: count join* count leave:i32* count move* length:i32 delta
+ * join    = id:i32 x:i16 y:i16 color:i32 name:string player:string
+ * move    = id:i32 direction:u8
+ * delta   = a delta frame of {@link BinaryTickCodec}
+ * string  = length:u16 utf8*
+ *
+ * index   = firstTick:i64 lastTick:i64 count:i32 (tick:i64 offset:i32)*   (every keyframe tick of a segment)
+ * </pre>
+ * The length of a record is written last, so a record cut short by a crash reads as the end of the segment.
+ * Each segment has an index of its range of ticks and its keyframes next to it, written once the segment is full,
+ * so that readers never have to walk its records.
+ * Segments without an index, such as the last one of a crashed server, are scanned for keyframes instead.
+ */
+final class ReplayFormat {
+    static final int MAGIC = 0x534E4B52; // "SNKR"
+    static final int VERSION = 1;
+
+    /**
+     * Record types.
+     */
+    static final int TICK = 1;
+
+    /**
+     * Size of the header fields up to the length of the arena name.
+     */
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 2 + 2 + 2;
+
+    /**
+     * Size of the index fields before its keyframes, and of each keyframe.
+     */
+    static final int INDEX_HEADER_SIZE = 8 + 8 + 4;
+    static final int INDEX_ENTRY_SIZE = 8 + 4;
+
+    /**
+     * Size of the record fields before the body.
+     */
+    static final int RECORD_HEADER_SIZE = 4 + 1 + 8 + 8;
+
+    static final String FILE_EXTENSION = ".replay";
+    static final String INDEX_EXTENSION = ".index";
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private ReplayFormat() {
+    }
+
+    /**
+     * Writes the header at the start of a segment.
+     */
+    static void writeHeader(ByteBuffer out, long startTick, long createdMillis, int width, int height, String arena) {
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putLong(startTick);
+        out.putLong(createdMillis);
+        out.putShort((short) width);
+        out.putShort((short) height);
+        writeString(out, arena);
+    }
+
+    /**
+     * Writes the body of a tick record.
+     * @throws java.nio.BufferOverflowException When the buffer is too small.
+     */
+    static void writeTick(ByteBuffer out, TickInputs inputs, byte[] delta) {
+        out.putInt(inputs.getJoins().size());
+        for (TickInputs.Join join : inputs.getJoins()) {
+            Point spawn = join.getSpawn();
+
+            out.putInt(join.getId());
+            out.putShort((short) spawn.getX());
+            out.putShort((short) spawn.getY());
+            out.putInt(join.getMetadata().getColor().getRGB());
+            writeString(out, join.getMetadata().getName());
+            writeString(out, join.getPlayerId());
+        }
+
+        out.putInt(inputs.getLeaves().size());
+        for (int id : inputs.getLeaves()) {
+            out.putInt(id);
+        }
+
+        out.putInt(inputs.getMoves().size());
+        for (TickInputs.Move move : inputs.getMoves()) {
+            out.putInt(move.getId());
+            out.put((byte) move.getDirection().ordinal());
+        }
+
+        out.putInt(delta.length);
+        out.put(delta);
+    }
+
+    /**
+     * Reads and validates the header at the start of a segment.
+     * @throws IOException When the segment is not a replay of a supported version.
+     */
+    static SegmentHeader readHeader(ByteBuffer in) throws IOException {
+        if (in.remaining() < 4 + 4 || in.getInt() != MAGIC) {
+            throw new IOException("Not a replay segment!");
+        }
+
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version: " + version);
+        }
+
+        return new SegmentHeader(in.getLong(), in.getLong(), in.getShort(), in.getShort(), readString(in));
+    }
+
+    /**
+     * Validates the contents of an index file.
+     * @return The index, or null if it is cut short or corrupt, such as by a crash while writing it.
+     */
+    static ByteBuffer readIndex(byte[] index) {
+        ByteBuffer in = ByteBuffer.wrap(index);
+        if (index.length < INDEX_HEADER_SIZE) return null;
+
+        int count = in.getInt(8 + 8);
+        return count >= 0 && index.length == INDEX_HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE ? in : null;
+    }
+
+    /**
+     * Reads the inputs at the start of the body of a tick record.
+     */
+    static TickInputs readInputs(ByteBuffer in) {
+        int joinCount = in.getInt();
+        List<TickInputs.Join> joins = new ArrayList<>(joinCount);
+        for (int i = 0; i < joinCount; i++) {
+            int id = in.getInt();
+            Point spawn = Point.of(in.getShort(), in.getShort());
+            Color color = new Color(in.getInt());
+            SnakeMetadata metadata = SnakeMetadata.Builder.builder()
+                    .setName(readString(in))
+                    .setColor(color)
+                    .build();
+
+            joins.add(new TickInputs.Join(id, readString(in), metadata, spawn));
+        }
+
+        int leaveCount = in.getInt();
+        List<Integer> leaves = new ArrayList<>(leaveCount);
+        for (int i = 0; i < leaveCount; i++) {
+            leaves.add(in.getInt());
+        }
+
+        int moveCount = in.getInt();
+        List<TickInputs.Move> moves = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            moves.add(new TickInputs.Move(in.getInt(), DIRECTIONS[in.get()]));
+        }
+
+        return new TickInputs(joins, leaves, moves);
+    }
+
+    /**
+     * Reads the delta frame after the inputs of a tick record.
+     */
+    static byte[] readDelta(ByteBuffer in) {
+        byte[] delta = new byte[in.getInt()];
+        in.get(delta);
+        return delta;
+    }
+
+    /**
+     * Checks whether a tick record is a keyframe, without decoding it.
+     */
+    static boolean isKeyframe(ByteBuffer body) {
+        ByteBuffer in = body.duplicate();
+
+        // Skip the inputs
+        int joinCount = in.getInt();
+        for (int i = 0; i < joinCount; i++) {
+            in.position(in.position() + 4 + 2 + 2 + 4);
+            skipString(in);
+            skipString(in);
+        }
+        int leaveCount = in.getInt();
+        in.position(in.position() + leaveCount * 4);
+        int moveCount = in.getInt();
+        in.position(in.position() + moveCount * 5);
+
+        // Skip the length, frame type and varint tick number of the delta
+        in.position(in.position() + 4 + 1);
+        while (in.get() < 0) {
+            // Continuation bytes
+        }
+
+        return in.get() != 0;
+    }
+
+    private static void writeString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        in.position(in.position() + length);
+    }
+
+    /**
+     * The header at the start of a segment.
+     */
+    static final class SegmentHeader {
+        final long startTick;
+        final long createdMillis;
+        final int boardWidth;
+        final int boardHeight;
+        final String arena;
+
+        SegmentHeader(long startTick, long createdMillis, int boardWidth, int boardHeight, String arena) {
+            this.startTick = startTick;
+            this.createdMillis = createdMillis;
+            this.boardWidth = boardWidth;
+            this.boardHeight = boardHeight;
+            this.arena = arena;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package apcs.snakebattlearena.server.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The append-only replay of a single arena, split into memory-mapped segment files.
+ * Refer to {@link ReplayFormat} for the layout of a segment.
+ * <p>
+ * Each segment is mapped at its full size up front, so appending a record is a plain memory copy
+ * and the OS writes the pages out in the background. Records are never split across segments,
+ * a new segment named after its first tick is started once a record doesn't fit.
+ * The keyframes of a segment are indexed by tick, and the index is written next to the segment once it is full
+ * along with the range of ticks in it.
+ * Not thread-safe, only used by the writer thread of {@link ReplayRecorder}.
+ */
+class ReplayLog implements Closeable {
+    private final Path directory;
+    private final String arena;
+    private final int boardWidth;
+    private final int boardHeight;
+    private final int segmentSize;
+
+    private Path segmentPath;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long firstTick;
+    private long lastTick;
+
+    /**
+     * Keyframe tick -> Offset in the current segment.
+     */
+    private final ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+    private final DataOutputStream index = new DataOutputStream(indexBytes);
+    private int indexCount = 0;
+
+    /**
+     * @param directory   The directory of this recording, which is created if missing.
+     * @param arena       The name of the recorded arena.
+     * @param boardWidth  The width of the arena's board.
+     * @param boardHeight The height of the arena's board.
+     * @param segmentSize The size of each segment file in bytes, unless a single record is larger.
+     */
+    ReplayLog(Path directory, String arena, int boardWidth, int boardHeight, int segmentSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.arena = arena;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Appends a record, starting a new segment first if it doesn't fit in the current one.
+     * @param type       The type of record, refer to {@link ReplayFormat}.
+     * @param tick       The tick the record belongs to.
+     * @param timeMillis When the tick happened.
+     * @param body       The body of the record, from its position to its limit.
+     * @param keyframe   Whether the record contains the full state of the arena, to be indexed.
+     * @return True if a new segment was started for this record.
+     */
+    boolean append(int type, long tick, long timeMillis, ByteBuffer body, boolean keyframe) throws IOException {
+        int length = ReplayFormat.RECORD_HEADER_SIZE - 4 + body.remaining();
+        boolean started = false;
+
+        // Keep room for the end marker
+        if (segment == null || segment.remaining() < 4 + length + 4) {
+            closeSegment();
+            openSegment(tick, 4 + length + 4);
+            started = true;
+        }
+
+        int start = segment.position();
+        segment.position(start + 4);
+        segment.put((byte) type);
+        segment.putLong(tick);
+        segment.putLong(timeMillis);
+        segment.put(body);
+
+        // Only complete records have a length, so readers never see one half-written
+        segment.putInt(start, length);
+        lastTick = tick;
+
+        if (keyframe) {
+            index.writeLong(tick);
+            index.writeInt(start);
+            indexCount++;
+        }
+
+        return started;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+    private void openSegment(long startTick, int recordSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(64 + arena.length() * 3);
+        ReplayFormat.writeHeader(header, startTick, System.currentTimeMillis(), boardWidth, boardHeight, arena);
+        header.flip();
+
+        segmentPath = directory.resolve(String.format("%012d%s", startTick, ReplayFormat.FILE_EXTENSION));
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, header.remaining() + recordSize));
+        segment.put(header);
+        firstTick = lastTick = startTick;
+    }
+
+    /**
+     * Flushes the current segment, trims its unused space and writes its index.
+     * The index is written last, since readers take its presence to mean that the segment is finished.
+     */
+    private void closeSegment() throws IOException {
+        if (segment == null) return;
+
+        try {
+            segment.force();
+
+            // Some platforms can't truncate a mapped file, readers stop at the zeroed space just the same
+            try {
+                channel.truncate(segment.position());
+            } catch (IOException ignored) {
+            }
+        } finally {
+            segment = null;
+            channel.close();
+        }
+
+        Path indexPath = segmentPath.resolveSibling(segmentPath.getFileName().toString()
+                .replace(ReplayFormat.FILE_EXTENSION, ReplayFormat.INDEX_EXTENSION));
+
+        Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+
+        // Move the index in place once complete, so readers never see half of it
+        try (OutputStream out = Files.newOutputStream(tempPath)) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeLong(firstTick);
+            data.writeLong(lastTick);
+            data.writeInt(indexCount);
+            indexBytes.writeTo(out);
+        } finally {
+            indexBytes.reset();
+            indexCount = 0;
+        }
+
+        Files.move(tempPath, indexPath, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
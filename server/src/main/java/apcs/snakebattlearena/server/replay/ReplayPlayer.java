@@ -0,0 +1,323 @@
+package apcs.snakebattlearena.server.replay;
+
+import apcs.snakebattlearena.models.TickData;
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+import apcs.snakebattlearena.server.websocket.EncodedTick;
+import apcs.snakebattlearena.server.websocket.SpectatorStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Plays recordings back to spectators, as if the recorded arena was live on
+ * {@link TickProtocol#getSpectatorDestination(String, TickEncoding)} under the name <code>replay-{arena}-{recording}</code>.
+ * <p>
+ * Ticks are applied at the recorded pace times a speed, so a recording can be played back at many times
+ * real speed. Every tick is applied, but spectators receive at most <code>replay.max-frame-rate</code> ticks per second.
+ * Pauses in the recording (ie: while an arena was empty) are skipped.
+ * All playbacks share a single thread, which only encodes ticks that have spectators.
+ * Frames are handed to the {@link SpectatorStream}, so sending them never holds up playback.
+ */
+@Component
+public class ReplayPlayer {
+    /**
+     * Valid arena and recording names, since they are used as part of paths and websocket destinations.
+     */
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    /**
+     * Longest time between two ticks, any longer pause in the recording is skipped.
+     */
+    private static final long MAX_TICK_DELAY_MILLIS = 1000;
+
+    /**
+     * How often a playback that caught up with a recording in progress checks for new ticks.
+     */
+    private static final long REFRESH_INTERVAL_MILLIS = 100;
+
+    /**
+     * Most recordings kept open at once. The segments of the others are unmapped once their cursors are gone.
+     */
+    private static final int MAX_OPEN_RECORDINGS = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ReplayConfig config;
+    private final SpectatorStream spectators;
+    private final ObjectMapper mapper;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Playback name -> Playback.
+     */
+    private final ConcurrentHashMap<String, Playback> playbacks = new ConcurrentHashMap<>();
+
+    /**
+     * Recording directory -> Its reader, least recently opened first.
+     * Guarded by itself.
+     */
+    private final Map<Path, ReplayReader> readers = new LinkedHashMap<Path, ReplayReader>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, ReplayReader> eldest) {
+            return size() > MAX_OPEN_RECORDINGS;
+        }
+    };
+
+    public ReplayPlayer(ReplayConfig config, SpectatorStream spectators, ObjectMapper mapper) {
+        this.config = config;
+        this.spectators = spectators;
+        this.mapper = mapper;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replay-playback");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    private void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Gets every recording on disk.
+     * @return Arena name -> Names of its recordings, oldest first.
+     */
+    @NotNull
+    public Map<String, List<String>> getRecordings() throws IOException {
+        Map<String, List<String>> recordings = new LinkedHashMap<>();
+        Path directory = Paths.get(config.getDirectory());
+        if (!Files.isDirectory(directory)) return recordings;
+
+        for (Path arena : listDirectories(directory)) {
+            recordings.put(arena.getFileName().toString(), listDirectories(arena).stream()
+                    .map(recording -> recording.getFileName().toString())
+                    .collect(Collectors.toList()));
+        }
+
+        return recordings;
+    }
+
+    /**
+     * Opens a recording on disk. Readers are shared, so a recording is only read once
+     * and then only again for what was recorded since, if it is still being recorded.
+     * @throws IllegalArgumentException When the names are invalid.
+     * @throws IOException              When the recording doesn't exist or can't be read.
+     */
+    @NotNull
+    public ReplayReader open(@NotNull String arena, @NotNull String recording) throws IOException {
+        if (!NAME.matcher(arena).matches() || !NAME.matcher(recording).matches()) {
+            throw new IllegalArgumentException("Invalid recording: " + arena + "/" + recording);
+        }
+
+        Path directory = Paths.get(config.getDirectory(), arena, recording);
+        ReplayReader reader;
+        synchronized (readers) {
+            reader = readers.get(directory);
+        }
+
+        if (reader != null) {
+            if (!reader.isFinished()) {
+                reader.refresh();
+            }
+            return reader;
+        }
+
+        // Opened outside the lock since it reads every index, a reader opened at the same time is simply replaced
+        reader = new ReplayReader(directory);
+        synchronized (readers) {
+            readers.put(directory, reader);
+        }
+        return reader;
+    }
+
+    /**
+     * Starts playing a recording back to spectators, replacing any playback of the same recording.
+     * @param arena     The name of the recorded arena.
+     * @param recording The name of the recording.
+     * @param fromTick  The tick to start from, or null for the start of the recording.
+     * @param speed     How many times faster than real time to play back.
+     * @return The name of the playback, which spectators use in place of an arena name.
+     * @throws IllegalArgumentException When the names, tick or speed are invalid.
+     * @throws IOException              When the recording doesn't exist or can't be read.
+     */
+    @NotNull
+    public String play(@NotNull String arena, @NotNull String recording, @Nullable Long fromTick, double speed) throws IOException {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be positive: " + speed);
+        }
+
+        ReplayReader reader = open(arena, recording);
+        ReplayReader.Cursor cursor = fromTick != null ? reader.seek(fromTick) : reader.seekToStart();
+        if (cursor == null) {
+            throw new IllegalArgumentException("Nothing was recorded from tick " + fromTick + " in " + arena + "/" + recording);
+        }
+
+        String name = "replay-" + arena + "-" + recording;
+        Playback playback = new Playback(name, reader, cursor, speed);
+
+        Playback previous = playbacks.put(name, playback);
+        if (previous != null) {
+            previous.stopped = true;
+        }
+
+        logger.info("Playing back {} from tick {} at {}x", name, cursor.getCurrent().getTick(), speed);
+        executor.execute(playback);
+        return name;
+    }
+
+    /**
+     * Stops a playback.
+     * @return False if there is no playback with the name.
+     */
+    public boolean stop(@NotNull String name) {
+        Playback playback = playbacks.remove(name);
+        if (playback == null) return false;
+
+        playback.stopped = true;
+        return true;
+    }
+
+    /**
+     * Gets the names of every running playback.
+     */
+    @NotNull
+    public Collection<String> getPlaybacks() {
+        return Collections.unmodifiableCollection(playbacks.keySet());
+    }
+
+    private static List<Path> listDirectories(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * A recording being played back, which reschedules itself for every tick.
+     * A recording still in progress is followed until it is finished.
+     */
+    private class Playback implements Runnable {
+        final String name;
+        final ReplayReader reader;
+        final ReplayReader.Cursor cursor;
+        final double speed;
+        final long minFrameNanos;
+        long lastFrameAt = 0;
+        volatile boolean stopped = false;
+
+        Playback(String name, ReplayReader reader, ReplayReader.Cursor cursor, double speed) {
+            this.name = name;
+            this.reader = reader;
+            this.cursor = cursor;
+            this.speed = speed;
+            this.minFrameNanos = TimeUnit.SECONDS.toNanos(1) / config.getMaxFrameRate();
+        }
+
+        /**
+         * Sends the current tick if a frame is due, then moves on to the next tick.
+         */
+        @Override
+        public void run() {
+            if (stopped) return;
+
+            long now = System.nanoTime();
+
+            try {
+                if (now - lastFrameAt >= minFrameNanos) {
+                    lastFrameAt = now;
+                    send(cursor.getCurrent().getTick());
+                }
+
+                scheduleNext(false);
+            } catch (Exception e) {
+                logger.error("Failed to play back {}, stopping it!", name, e);
+                playbacks.remove(name, this);
+            }
+        }
+
+        /**
+         * Checks again for new ticks of a recording in progress, after the playback caught up with it.
+         */
+        private void waitForTicks() {
+            if (stopped) return;
+
+            try {
+                scheduleNext(true);
+            } catch (Exception e) {
+                logger.error("Failed to play back {}, stopping it!", name, e);
+                playbacks.remove(name, this);
+            }
+        }
+
+        /**
+         * Moves on to the next tick and schedules it at the recorded pace. At the end of a recording in progress,
+         * refreshes the reader and waits for newer ticks instead, the playback only finishes with the recording.
+         * @param waited Whether the playback already waited for the next tick, so that it is sent right away.
+         */
+        private void scheduleNext(boolean waited) throws IOException {
+            ReplayTick current = cursor.getCurrent();
+            ReplayTick next = cursor.next();
+
+            if (next == null && !reader.isFinished()) {
+                reader.refresh();
+                next = cursor.next();
+            }
+
+            if (next != null) {
+                long delay = waited ? 0 : Math.min(MAX_TICK_DELAY_MILLIS, next.getTimeMillis() - current.getTimeMillis());
+                executor.schedule(this, (long) (Math.max(0, delay) * 1000 / speed), TimeUnit.MICROSECONDS);
+            } else if (reader.isFinished()) {
+                logger.info("Finished playing back {}", name);
+                playbacks.remove(name, this);
+            } else {
+                executor.schedule(this::waitForTicks, REFRESH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Sends the current state to the spectators of each encoding, if there are any.
+         */
+        private void send(long tick) throws IOException {
+            TickData data = null;
+
+            for (TickEncoding encoding : TickEncoding.values()) {
+                if (!spectators.hasSpectators(name, encoding)) continue;
+
+                if (data == null) {
+                    data = cursor.getState().toTickData();
+                }
+
+                byte[] payload = encoding == TickEncoding.BINARY
+                        ? BinaryTickCodec.encode(data)
+                        : mapper.writeValueAsBytes(data);
+
+                String destination = TickProtocol.getSpectatorDestination(name, encoding);
+                spectators.sendFrame(new EncodedTick(name, tick, destination, payload, encoding, true, () -> {
+                }));
+            }
+        }
+    }
+}
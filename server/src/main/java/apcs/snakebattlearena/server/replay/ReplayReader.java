@@ -0,0 +1,402 @@
+package apcs.snakebattlearena.server.replay;
+
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+import apcs.snakebattlearena.server.game.TickInputs;
+import apcs.snakebattlearena.util.TickState;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads back a recording of a single arena written by {@link ReplayRecorder}, such as to play it back
+ * or to inspect the board at any tick. Refer to {@link ReplayFormat} for the layout.
+ * <p>
+ * Every segment is memory-mapped read-only, and every keyframe is indexed by its tick.
+ * Finished segments never change again, so they are opened once from their index file without walking their records.
+ * The segment still being written is only mapped up to its last complete record, since the writer trims it once full,
+ * and is scanned again from there on every {@link #refresh()}.
+ * Seeking restores the nearest keyframe at or before a tick, and only applies the delta ticks after it.
+ * Readers are thread-safe, every {@link Cursor} has its own state.
+ */
+public class ReplayReader {
+    private final Path directory;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    /**
+     * Keyframe tick -> Position of its record.
+     */
+    private final ConcurrentSkipListMap<Long, Position> keyframes = new ConcurrentSkipListMap<>();
+
+    private final ReplayFormat.SegmentHeader header;
+
+    /**
+     * Opens a recording.
+     * @param directory The directory of the recording, containing its segments.
+     * @throws IOException When the recording has no valid segments.
+     */
+    public ReplayReader(@NotNull Path directory) throws IOException {
+        this.directory = directory;
+        refresh();
+
+        if (segments.isEmpty()) {
+            throw new IOException("No replay segments in " + directory);
+        }
+
+        this.header = segments.get(0).header;
+    }
+
+    /**
+     * Picks up what was recorded since the recording was opened, if it is still being recorded.
+     * Only segments that weren't finished yet are read again.
+     * @throws IOException When a segment can't be read.
+     */
+    public synchronized void refresh() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(ReplayFormat.FILE_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        for (int i = 0; i < paths.size(); i++) {
+            Segment previous = i < segments.size() ? segments.get(i) : null;
+            if (previous != null && previous.finished) continue;
+
+            // Replace an unfinished segment before adding the next one, so cursors never skip its last records
+            Segment segment = openSegment(paths.get(i), i, previous);
+            if (previous != null) {
+                segments.set(i, segment);
+            } else {
+                segments.add(segment);
+            }
+        }
+    }
+
+    /**
+     * Checks whether every segment is finished, so that the recording will never change again.
+     */
+    public boolean isFinished() {
+        return segments.get(segments.size() - 1).finished;
+    }
+
+    /**
+     * Gets the name of the recorded arena.
+     */
+    @NotNull
+    public String getArena() {
+        return header.arena;
+    }
+
+    public int getBoardWidth() {
+        return header.boardWidth;
+    }
+
+    public int getBoardHeight() {
+        return header.boardHeight;
+    }
+
+    /**
+     * Gets the first recorded tick, or -1 if nothing was recorded.
+     */
+    public long getFirstTick() {
+        for (Segment segment : segments) {
+            if (segment.firstTick >= 0) return segment.firstTick;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the last recorded tick, or -1 if nothing was recorded.
+     */
+    public long getLastTick() {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (segments.get(i).lastTick >= 0) return segments.get(i).lastTick;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the amount of indexed keyframes.
+     */
+    public int getKeyframeCount() {
+        return keyframes.size();
+    }
+
+    /**
+     * Restores the state at a tick, from the nearest keyframe at or before it.
+     * @param tick The tick to seek to. If it wasn't recorded, the first recorded tick after it is used instead.
+     * @return A cursor positioned at the tick, or null if there is no keyframe before it or nothing after it.
+     */
+    @Nullable
+    public Cursor seek(long tick) {
+        Map.Entry<Long, Position> keyframe = keyframes.floorEntry(tick);
+        if (keyframe == null) return null;
+
+        Cursor cursor = new Cursor(keyframe.getValue());
+        ReplayTick current;
+        do {
+            current = cursor.next();
+        } while (current != null && current.getTick() < tick);
+
+        return current != null ? cursor : null;
+    }
+
+    /**
+     * Restores the state at the first keyframe, to play the recording from the start.
+     * @return A cursor positioned at the first keyframe, or null if there is none.
+     */
+    @Nullable
+    public Cursor seekToStart() {
+        return keyframes.isEmpty() ? null : seek(keyframes.firstKey());
+    }
+
+    /**
+     * Maps a segment and indexes its keyframes, from its index file if it has one.
+     * @param previous The segment as it was last opened while unfinished, to only scan the records after it.
+     */
+    private Segment openSegment(Path path, int index, @Nullable Segment previous) throws IOException {
+        Path indexPath = path.resolveSibling(path.getFileName().toString()
+                .replace(ReplayFormat.FILE_EXTENSION, ReplayFormat.INDEX_EXTENSION));
+        ByteBuffer indexIn = Files.isRegularFile(indexPath) ? ReplayFormat.readIndex(Files.readAllBytes(indexPath)) : null;
+
+        try (FileChannel channel = FileChannel.open(path)) {
+            if (indexIn != null) {
+                // Finished segments were trimmed to their records
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                ByteBuffer in = buffer.duplicate();
+                ReplayFormat.SegmentHeader segmentHeader = ReplayFormat.readHeader(in);
+
+                long firstTick = indexIn.getLong();
+                long lastTick = indexIn.getLong();
+                for (int i = indexIn.getInt(); i > 0; i--) {
+                    keyframes.put(indexIn.getLong(), new Position(index, indexIn.getInt()));
+                }
+
+                return new Segment(buffer, in.position(), segmentHeader, firstTick, lastTick, true);
+            }
+
+            ReplayFormat.SegmentHeader segmentHeader;
+            int dataStart;
+            int end;
+            long firstTick;
+            long lastTick;
+
+            if (previous != null) {
+                segmentHeader = previous.header;
+                dataStart = previous.dataStart;
+                end = previous.buffer.limit();
+                firstTick = previous.firstTick;
+                lastTick = previous.lastTick;
+            } else {
+                ByteBuffer in = read(channel, 0, ReplayFormat.HEADER_SIZE);
+                if (in.remaining() == ReplayFormat.HEADER_SIZE) {
+                    in = read(channel, 0, ReplayFormat.HEADER_SIZE + (in.getShort(ReplayFormat.HEADER_SIZE - 2) & 0xFFFF));
+                }
+
+                segmentHeader = ReplayFormat.readHeader(in);
+                dataStart = end = in.position();
+                firstTick = lastTick = -1;
+            }
+
+            // Walk the records through the channel rather than the mapping, the writer may trim the file meanwhile
+            while (true) {
+                ByteBuffer length = read(channel, end, 4);
+                if (length.remaining() < 4 || length.getInt(0) <= 0) break;
+
+                ByteBuffer record = read(channel, end, 4 + length.getInt(0));
+                if (record.remaining() < record.capacity()) break;
+
+                long tick = record.getLong(5);
+                if (firstTick < 0) {
+                    firstTick = tick;
+                }
+                lastTick = tick;
+
+                record.position(ReplayFormat.RECORD_HEADER_SIZE);
+                if (record.get(4) == ReplayFormat.TICK && ReplayFormat.isKeyframe(record)) {
+                    keyframes.put(tick, new Position(index, end));
+                }
+
+                end += record.capacity();
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+            return new Segment(buffer, dataStart, segmentHeader, firstTick, lastTick, false);
+        }
+    }
+
+    /**
+     * Reads part of a file, stopping early at its end.
+     * @return The bytes read, from its position 0 to its limit.
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // Until the end of the file
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Reads through a recording from a position, applying every tick to its own {@link TickState}.
+     * Not thread-safe.
+     */
+    public final class Cursor {
+        private final TickState state = new TickState();
+        private int segment;
+        private int offset;
+        private long lastTick = Long.MIN_VALUE;
+        private boolean synced = false;
+        private ReplayTick current;
+
+        private Cursor(Position position) {
+            this.segment = position.segment;
+            this.offset = position.offset;
+        }
+
+        /**
+         * Reads and applies the next tick. After a tick was dropped while recording,
+         * every tick until the next keyframe is skipped since they can't be applied.
+         * At the end of a recording still in progress, call again after {@link ReplayReader#refresh()} for newer ticks.
+         * @return The tick, or null at the end of the recording.
+         */
+        @Nullable
+        public ReplayTick next() {
+            while (segment < segments.size()) {
+                Segment current = segments.get(segment);
+                int length = current.getRecordLength(offset);
+
+                if (length == 0) {
+                    // The segment still being written gets more records, stay at its end until then
+                    if (!current.finished && segment == segments.size() - 1) return null;
+
+                    segment++;
+                    offset = segment < segments.size() ? segments.get(segment).dataStart : 0;
+                    continue;
+                }
+
+                int recordOffset = offset;
+                offset += 4 + length;
+
+                // Skip record types added in later versions
+                if (current.buffer.get(recordOffset + 4) != ReplayFormat.TICK) continue;
+
+                long tick = current.buffer.getLong(recordOffset + 5);
+                long timeMillis = current.buffer.getLong(recordOffset + 13);
+                ByteBuffer body = current.getBody(recordOffset, length);
+                TickInputs inputs = ReplayFormat.readInputs(body);
+                DeltaTickData delta = BinaryTickCodec.decodeDelta(ReplayFormat.readDelta(body));
+
+                if (delta.isKeyframe()) {
+                    synced = true;
+                } else if (tick != lastTick + 1) {
+                    synced = false;
+                }
+                lastTick = tick;
+
+                if (!synced) continue;
+
+                state.apply(delta);
+                this.current = new ReplayTick(tick, timeMillis, inputs, delta);
+                return this.current;
+            }
+
+            return null;
+        }
+
+        /**
+         * Gets the last tick applied to the state.
+         */
+        @Nullable
+        public ReplayTick getCurrent() {
+            return current;
+        }
+
+        /**
+         * Gets the state after the current tick.
+         */
+        @NotNull
+        public TickState getState() {
+            return state;
+        }
+    }
+
+    /**
+     * A mapped segment file.
+     */
+    private static final class Segment {
+        final MappedByteBuffer buffer;
+        final int dataStart;
+        final ReplayFormat.SegmentHeader header;
+        final long firstTick;
+        final long lastTick;
+
+        /**
+         * Whether the segment has an index, so it will never change again.
+         */
+        final boolean finished;
+
+        Segment(MappedByteBuffer buffer,
+                int dataStart,
+                ReplayFormat.SegmentHeader header,
+                long firstTick,
+                long lastTick,
+                boolean finished) {
+            this.buffer = buffer;
+            this.dataStart = dataStart;
+            this.header = header;
+            this.firstTick = firstTick;
+            this.lastTick = lastTick;
+            this.finished = finished;
+        }
+
+        /**
+         * Gets the length of the record at an offset.
+         * @return The length, or 0 at the end of the segment, including a record cut short by a crash.
+         */
+        int getRecordLength(int offset) {
+            if (offset + 4 > buffer.limit()) return 0;
+
+            int length = buffer.getInt(offset);
+            return length > 0 && offset + 4 + length <= buffer.limit() ? length : 0;
+        }
+
+        /**
+         * Gets the body of the record at an offset, without copying it.
+         */
+        ByteBuffer getBody(int offset, int length) {
+            ByteBuffer body = buffer.duplicate();
+            body.limit(offset + 4 + length);
+            body.position(offset + ReplayFormat.RECORD_HEADER_SIZE);
+            return body;
+        }
+    }
+
+    /**
+     * The position of a record.
+     */
+    private static final class Position {
+        final int segment;
+        final int offset;
+
+        Position(int segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+}
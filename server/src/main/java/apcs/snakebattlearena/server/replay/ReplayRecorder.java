@@ -0,0 +1,206 @@
+package apcs.snakebattlearena.server.replay;
+
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+import apcs.snakebattlearena.server.game.Board;
+import apcs.snakebattlearena.server.game.GameService;
+import apcs.snakebattlearena.server.game.TickInputs;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optionally records every tick of every arena (<code>replay.enabled</code>) to a {@link ReplayLog},
+ * so that games can be reproduced and analysed after the server stops.
+ * <p>
+ * Each tick is recorded as its inputs (joins, leaves and moves) together with its results (the delta tick).
+ * The tick thread only hands the immutable snapshots over through a bounded queue, encoding and writing
+ * happens on a single writer thread. When the queue is full the tick is dropped rather than blocking
+ * the tick thread, and the arena is told to send a keyframe next so that the replay can recover.
+ * <p>
+ * Every server run is recorded to its own directory, <code>{replay.directory}/{arena}/{start time}/</code>.
+ */
+@Component
+@ConditionalOnProperty(prefix = "replay", name = "enabled", havingValue = "true")
+public class ReplayRecorder {
+    private static final DateTimeFormatter DIRECTORY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ReplayConfig config;
+    private final String startTime = DIRECTORY_FORMAT.format(LocalDateTime.now());
+    private final BlockingQueue<RecordedTick> queue;
+    private final Thread writerThread;
+    private final AtomicLong droppedTickCount = new AtomicLong();
+
+    // Only accessed by the writer thread
+    private final HashMap<String, ReplayLog> logs = new HashMap<>();
+    private final Set<String> failedArenas = new HashSet<>();
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+
+    private volatile boolean running = false;
+
+    public ReplayRecorder(ReplayConfig config) {
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueSize());
+        this.writerThread = new Thread(this::runWriter, "replay-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    @PostConstruct
+    private void start() {
+        logger.info("Recording replays to {}", Paths.get(config.getDirectory()).toAbsolutePath());
+
+        running = true;
+        writerThread.start();
+    }
+
+    /**
+     * Stops the writer thread once every queued tick has been written.
+     */
+    @PreDestroy
+    private void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Hands a finished tick off to be recorded. This never blocks.
+     * @param game   The arena that ticked.
+     * @param inputs The inputs of the tick.
+     * @param delta  The results of the tick.
+     * @return False if the queue is full and the tick was dropped.
+     */
+    public boolean record(@NotNull GameService game, @NotNull TickInputs inputs, @NotNull DeltaTickData delta) {
+        if (!queue.offer(new RecordedTick(game, inputs, delta, System.currentTimeMillis()))) {
+            droppedTickCount.incrementAndGet();
+            logger.warn("Replay queue is full, dropping tick {} of {}!", delta.getTick(), game.getName());
+            game.requestKeyframe();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the amount of ticks not recorded because the queue was full.
+     */
+    public long getDroppedTickCount() {
+        return droppedTickCount.get();
+    }
+
+    private void runWriter() {
+        try {
+            while (running || !queue.isEmpty()) {
+                RecordedTick recorded = queue.poll(100, TimeUnit.MILLISECONDS);
+
+                if (recorded != null) {
+                    write(recorded);
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Replay writer interrupted, {} tick(s) were not recorded!", queue.size());
+        } finally {
+            logs.forEach((arena, log) -> {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    logger.error("Failed to close the replay of {}!", arena, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Encodes and appends a tick to the replay of its arena, on the writer thread.
+     */
+    private void write(RecordedTick recorded) {
+        GameService game = recorded.game;
+        String arena = game.getName();
+        if (failedArenas.contains(arena)) return;
+
+        try {
+            ReplayLog log = logs.get(arena);
+            if (log == null) {
+                Board board = game.getBoard();
+                Path directory = Paths.get(config.getDirectory(), arena, startTime);
+
+                log = new ReplayLog(directory, arena, board.getBoardWidth(), board.getBoardHeight(), config.getSegmentSize());
+                logs.put(arena, log);
+            }
+
+            byte[] delta = BinaryTickCodec.encode(recorded.delta);
+            ByteBuffer body = encodeTick(recorded.inputs, delta);
+
+            // Segments should play back on their own, which needs a keyframe near their start
+            boolean keyframe = recorded.delta.isKeyframe();
+            if (log.append(ReplayFormat.TICK, recorded.delta.getTick(), recorded.timeMillis, body, keyframe) && !keyframe) {
+                game.requestKeyframe();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to record a tick of {}, no longer recording it!", arena, e);
+            failedArenas.add(arena);
+
+            ReplayLog log = logs.remove(arena);
+            if (log != null) {
+                try {
+                    log.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes the body of a tick record into the scratch buffer, growing it as needed.
+     */
+    private ByteBuffer encodeTick(TickInputs inputs, byte[] delta) {
+        while (true) {
+            scratch.clear();
+
+            try {
+                ReplayFormat.writeTick(scratch, inputs, delta);
+                scratch.flip();
+                return scratch;
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * A tick waiting to be written.
+     */
+    private static class RecordedTick {
+        final GameService game;
+        final TickInputs inputs;
+        final DeltaTickData delta;
+        final long timeMillis;
+
+        RecordedTick(GameService game, TickInputs inputs, DeltaTickData delta, long timeMillis) {
+            this.game = game;
+            this.inputs = inputs;
+            this.delta = delta;
+            this.timeMillis = timeMillis;
+        }
+    }
+}
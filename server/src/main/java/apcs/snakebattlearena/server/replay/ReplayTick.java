@@ -0,0 +1,52 @@
+package apcs.snakebattlearena.server.replay;
+
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.server.game.TickInputs;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A single recorded tick read back from a replay.
+ */
+public final class ReplayTick {
+    private final long tick;
+    private final long timeMillis;
+    private final TickInputs inputs;
+    private final DeltaTickData delta;
+
+    ReplayTick(long tick, long timeMillis, @NotNull TickInputs inputs, @NotNull DeltaTickData delta) {
+        this.tick = tick;
+        this.timeMillis = timeMillis;
+        this.inputs = inputs;
+        this.delta = delta;
+    }
+
+    /**
+     * Gets the number of the tick in its arena.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets when the tick happened, in milliseconds since the epoch.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Gets the joins, leaves and moves that went into the tick.
+     */
+    @NotNull
+    public TickInputs getInputs() {
+        return inputs;
+    }
+
+    /**
+     * Gets the results of the tick.
+     */
+    @NotNull
+    public DeltaTickData getDelta() {
+        return delta;
+    }
+}
@@ -0,0 +1,104 @@
+package apcs.snakebattlearena.server.tcp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread running a single {@link Selector}, which handles the IO of every channel registered to it.
+ * Channels can only be registered and have their interest changed by this thread,
+ * so other threads hand that work off with {@link SelectorLoop#execute(Runnable)}.
+ */
+class SelectorLoop {
+    /**
+     * Handles a ready channel, attached to its {@link SelectionKey}.
+     */
+    @FunctionalInterface
+    interface Handler {
+        void handle(SelectionKey key) throws IOException;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Selector selector;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = false;
+
+    SelectorLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Stops the thread and closes the selector. Registered channels are not closed.
+     */
+    void stop() throws InterruptedException, IOException {
+        running = false;
+        selector.wakeup();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+        selector.close();
+    }
+
+    /**
+     * Runs a task on this thread before the next select, from any thread.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Registers a channel to this selector. Must be called on this thread.
+     */
+    SelectionKey register(SelectableChannel channel, int interestOps, Handler handler) throws IOException {
+        return channel.register(selector, interestOps, handler);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) continue;
+
+                    try {
+                        ((Handler) key.attachment()).handle(key);
+                    } catch (IOException e) {
+                        // The handler is responsible for closing its own channel
+                        logger.debug("Unhandled IO exception in {}", thread.getName(), e);
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (Throwable t) {
+                logger.error("Uncaught exception in {}!", thread.getName(), t);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package apcs.snakebattlearena.server.tcp;
+
+import apcs.snakebattlearena.models.RawCommand;
+import apcs.snakebattlearena.server.websocket.EncodedTick;
+import apcs.snakebattlearena.server.websocket.TickTransport;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends ticks to the TCP connections subscribed to them. Each tick is framed once,
+ * and the same bytes are queued on every subscribed connection.
+ */
+@Component
+@ConditionalOnProperty(prefix = "tcp", name = "enabled", havingValue = "true")
+public class TcpBroadcaster implements TickTransport {
+    /**
+     * Destination -> Connections subscribed to that destination.
+     */
+    private final ConcurrentHashMap<String, Set<TcpConnection>> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes a connection to a destination, replacing its subscription to any other destination.
+     */
+    synchronized void subscribe(TcpConnection connection, String destination) {
+        subscriptions.forEach((subscribed, subs) -> {
+            if (!subscribed.equals(destination)) {
+                subs.remove(connection);
+            }
+        });
+        subscriptions.computeIfAbsent(destination, d -> ConcurrentHashMap.newKeySet()).add(connection);
+    }
+
+    /**
+     * Removes all of a connection's subscriptions.
+     */
+    synchronized void unsubscribe(TcpConnection connection) {
+        subscriptions.values().forEach(subs -> subs.remove(connection));
+    }
+
+    @Override
+    public boolean wantsTick(@NotNull String destination, long tick) {
+        Set<TcpConnection> subs = subscriptions.get(destination);
+        return subs != null && !subs.isEmpty();
+    }
+
+    @Override
+    public int sendTick(@NotNull EncodedTick tick) {
+        Set<TcpConnection> subs = subscriptions.get(tick.getDestination());
+        if (subs == null || subs.isEmpty()) return 0;
+
+        byte[] frame = TcpConnection.encodeFrame(RawCommand.TICK, tick.getPayload());
+        int sent = 0;
+
+        for (TcpConnection connection : subs) {
+            if (connection.sendFrame(frame)) {
+                sent++;
+            }
+        }
+
+        return sent;
+    }
+}
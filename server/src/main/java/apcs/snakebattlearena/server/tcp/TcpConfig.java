@@ -0,0 +1,60 @@
+package apcs.snakebattlearena.server.tcp;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Injected config for the optional TCP transport ({@link TcpServer}),
+ * loaded and validated by Spring from <code>tcp.*</code> in any <code>application.properties</code> file present.
+ */
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "tcp")
+public class TcpConfig {
+    private boolean enabled = false;
+    @Min(0)
+    @Max(65535)
+    private int port = 8081;
+    @Min(1)
+    private int selectorThreads = 1;
+    @Min(1)
+    private int sendBufferSize = 512 * 1024;
+
+    // ------------------ Getters and required auto-setters ------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getSelectorThreads() {
+        return selectorThreads;
+    }
+
+    public void setSelectorThreads(int selectorThreads) {
+        this.selectorThreads = selectorThreads;
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+}
@@ -0,0 +1,260 @@
+package apcs.snakebattlearena.server.tcp;
+
+import apcs.snakebattlearena.models.RawCommand;
+import apcs.snakebattlearena.server.game.PlayerRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single non-blocking TCP connection of a bot, using length-prefixed {@link RawCommand} frames.
+ * <p>
+ * Reads are handled by its {@link SelectorLoop} thread. Frames can be sent from any thread, where they are
+ * queued and written out by the selector thread as the socket allows. Connections that fall too far
+ * behind are closed rather than buffering without a limit.
+ */
+class TcpConnection implements SelectorLoop.Handler {
+    /**
+     * Max length of a frame sent by a client, which only sends small commands.
+     */
+    private static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String id;
+    private final SocketChannel channel;
+    private final SelectorLoop loop;
+    private final TcpServer server;
+    private final int sendBufferSize;
+
+    private volatile SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(512);
+
+    /**
+     * Handle of this connection's snake, or 0 before it joins since handles start at 1.
+     * Only used on the selector thread.
+     */
+    private int snakeHandle;
+
+    /**
+     * Frames waiting to be written, shared frames are wrapped separately for each connection.
+     */
+    private final ConcurrentLinkedQueue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedBytes = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    TcpConnection(String id, SocketChannel channel, SelectorLoop loop, TcpServer server, int sendBufferSize) {
+        this.id = id;
+        this.channel = channel;
+        this.loop = loop;
+        this.server = server;
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    /**
+     * Encodes a frame, which can be sent to any amount of connections.
+     */
+    @NotNull
+    static byte[] encodeFrame(@NotNull RawCommand command, @NotNull byte[] payload) {
+        return ByteBuffer.allocate(RawCommand.FRAME_HEADER_LENGTH + payload.length)
+                .putInt(payload.length + 1)
+                .put((byte) command.id)
+                .put(payload)
+                .array();
+    }
+
+    /**
+     * Gets the unique ID of this connection, which is also its player ID.
+     */
+    String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the handle of this connection's snake, refer to {@link PlayerRegistry#getByHandle(int)}.
+     */
+    int getSnakeHandle() {
+        return snakeHandle;
+    }
+
+    void setSnakeHandle(int snakeHandle) {
+        this.snakeHandle = snakeHandle;
+    }
+
+    /**
+     * Registers this connection to its selector. Must be called on the selector thread.
+     */
+    void register() throws IOException {
+        if (closed.get()) return;
+        key = loop.register(channel, SelectionKey.OP_READ, this);
+
+        // Closed by another thread while registering
+        if (closed.get()) {
+            key.cancel();
+            return;
+        }
+
+        // Frames were queued before the connection could be flushed
+        if (flushScheduled.get()) {
+            flush();
+        }
+    }
+
+    @Override
+    public void handle(SelectionKey key) throws IOException {
+        try {
+            if (key.isReadable()) {
+                read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush();
+            }
+        } catch (IOException e) {
+            logger.debug("TCP connection {} failed", id, e);
+            close();
+        }
+    }
+
+    /**
+     * Reads all available bytes and handles every complete frame.
+     */
+    private void read() throws IOException {
+        if (channel.read(readBuffer) < 0) {
+            close();
+            return;
+        }
+
+        readBuffer.flip();
+
+        while (!closed.get() && readBuffer.remaining() >= 4) {
+            int length = readBuffer.getInt(readBuffer.position());
+
+            if (length < 1 || length > MAX_FRAME_LENGTH) {
+                logger.debug("Invalid frame length {} from TCP connection {}", length, id);
+                close();
+                return;
+            }
+
+            // Wait for the rest of the frame
+            if (readBuffer.remaining() < 4 + length) break;
+
+            readBuffer.getInt();
+            int command = readBuffer.get() & 0xFF;
+            byte[] payload = new byte[length - 1];
+            readBuffer.get(payload);
+
+            server.handleFrame(this, command, payload);
+        }
+
+        readBuffer.compact();
+
+        // Grow the buffer to fit the next frame if needed
+        if (readBuffer.position() >= 4) {
+            int frameLength = 4 + readBuffer.getInt(0);
+
+            if (frameLength > readBuffer.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(frameLength);
+                readBuffer.flip();
+                grown.put(readBuffer);
+                readBuffer = grown;
+            }
+        }
+    }
+
+    /**
+     * Queues a frame to be sent, from any thread.
+     */
+    void send(@NotNull RawCommand command, @NotNull byte[] payload) {
+        sendFrame(encodeFrame(command, payload));
+    }
+
+    /**
+     * Queues an already encoded frame to be sent, from any thread.
+     * @param frame A frame from {@link TcpConnection#encodeFrame(RawCommand, byte[])}, which must not be modified.
+     * @return False if the connection is closed, or was closed for falling behind.
+     */
+    boolean sendFrame(@NotNull byte[] frame) {
+        if (closed.get()) return false;
+
+        if (queuedBytes.addAndGet(frame.length) > sendBufferSize) {
+            logger.warn("TCP connection {} is too slow, closing it!", id);
+            close();
+            return false;
+        }
+
+        writeQueue.add(ByteBuffer.wrap(frame));
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(this::flushSafely);
+        }
+        return true;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.debug("TCP connection {} failed", id, e);
+            close();
+        }
+    }
+
+    /**
+     * Writes as many queued frames as the socket allows, then waits until it is writable
+     * again if any are left. Must be called on the selector thread.
+     */
+    private void flush() throws IOException {
+        if (closed.get() || key == null) return;
+
+        while (true) {
+            ByteBuffer buffer;
+
+            while ((buffer = writeQueue.peek()) != null) {
+                channel.write(buffer);
+
+                if (buffer.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+
+                writeQueue.poll();
+                queuedBytes.addAndGet(-buffer.capacity());
+            }
+
+            key.interestOps(SelectionKey.OP_READ);
+            flushScheduled.set(false);
+
+            // Another thread may have queued a frame without scheduling a flush since this one was running
+            if (writeQueue.isEmpty() || !flushScheduled.compareAndSet(false, true)) return;
+        }
+    }
+
+    /**
+     * Closes the connection from any thread, and removes it from the server.
+     */
+    void close() {
+        if (!closed.compareAndSet(false, true)) return;
+
+        if (key != null) {
+            key.cancel();
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close TCP connection {}", id, e);
+        }
+
+        writeQueue.clear();
+        server.onClosed(this);
+    }
+}
@@ -0,0 +1,244 @@
+package apcs.snakebattlearena.server.tcp;
+
+import apcs.snakebattlearena.models.*;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import apcs.snakebattlearena.server.game.ArenaManager;
+import apcs.snakebattlearena.server.game.PlayerConnections;
+import apcs.snakebattlearena.server.game.PlayerRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An optional non-blocking TCP listener for bots (<code>tcp.enabled</code>), which skips the HTTP upgrade
+ * and websocket framing entirely. Refer to {@link RawCommand} for the protocol.
+ * <p>
+ * Connections are spread across a configurable amount of {@link SelectorLoop} threads,
+ * so a few threads can serve thousands of connections.
+ */
+@Component
+@ConditionalOnProperty(prefix = "tcp", name = "enabled", havingValue = "true")
+public class TcpServer implements PlayerConnections {
+    /**
+     * Moves are immutable, so share one per direction instead of creating one per frame.
+     */
+    private static final MoveData[] MOVES = new MoveData[Direction.values().length];
+
+    static {
+        for (Direction direction : Direction.values()) {
+            MOVES[direction.ordinal()] = MoveData.Builder.builder().setDirection(direction).build();
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final TcpConfig config;
+    private final ArenaManager arenas;
+    private final PlayerRegistry players;
+    private final TcpBroadcaster broadcaster;
+    private final ObjectMapper mapper;
+
+    /**
+     * Connection ID -> Connection
+     */
+    private final ConcurrentHashMap<String, TcpConnection> connections = new ConcurrentHashMap<>();
+    private final AtomicLong nextConnectionId = new AtomicLong();
+
+    private final ArrayList<SelectorLoop> loops = new ArrayList<>();
+    private ServerSocketChannel serverChannel;
+    private int nextLoop = 0;
+
+    public TcpServer(TcpConfig config,
+                     ArenaManager arenas,
+                     PlayerRegistry players,
+                     TcpBroadcaster broadcaster,
+                     ObjectMapper mapper) {
+        this.config = config;
+        this.arenas = arenas;
+        this.players = players;
+        this.broadcaster = broadcaster;
+        this.mapper = mapper;
+    }
+
+    @PostConstruct
+    private void start() throws IOException {
+        for (int i = 0; i < config.getSelectorThreads(); i++) {
+            loops.add(new SelectorLoop("tcp-selector-" + i));
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(config.getPort()));
+
+        // Connections are accepted by the first selector thread
+        SelectorLoop acceptLoop = loops.get(0);
+        acceptLoop.execute(() -> {
+            try {
+                acceptLoop.register(serverChannel, SelectionKey.OP_ACCEPT, key -> accept());
+            } catch (IOException e) {
+                logger.error("Failed to start accepting TCP connections!", e);
+            }
+        });
+
+        loops.forEach(SelectorLoop::start);
+        logger.info("Listening for TCP connections on port {} with {} selector thread(s)", config.getPort(), loops.size());
+    }
+
+    @PreDestroy
+    private void stop() throws IOException, InterruptedException {
+        serverChannel.close();
+        connections.values().forEach(TcpConnection::close);
+
+        for (SelectorLoop loop : loops) {
+            loop.stop();
+        }
+    }
+
+    /**
+     * Accepts all pending connections, and hands each off to the next selector thread.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+
+            SelectorLoop loop = loops.get(nextLoop++ % loops.size());
+            TcpConnection connection = new TcpConnection(
+                    "tcp-" + nextConnectionId.getAndIncrement(),
+                    channel,
+                    loop,
+                    this,
+                    config.getSendBufferSize());
+
+            connections.put(connection.getId(), connection);
+            loop.execute(() -> {
+                try {
+                    connection.register();
+                } catch (IOException e) {
+                    logger.debug("Failed to register TCP connection {}", connection.getId(), e);
+                    connection.close();
+                }
+            });
+
+            logger.debug("New TCP connection initialized! (User: {})", connection.getId());
+        }
+    }
+
+    /**
+     * Closes a bot's connection by its unique ID, which removes its snake at the next tick.
+     * @return Whether the bot had an open connection.
+     */
+    @Override
+    public boolean disconnectUser(@NotNull String id) {
+        TcpConnection connection = connections.get(id);
+        if (connection == null) return false;
+
+        connection.close();
+        return true;
+    }
+
+    /**
+     * Handles a frame received from a connection, on its selector thread.
+     */
+    void handleFrame(TcpConnection connection, int commandId, byte[] payload) {
+        RawCommand command = RawCommand.fromId(commandId);
+
+        try {
+            if (command == null) {
+                throw new IllegalArgumentException("Unknown command " + commandId);
+            }
+
+            switch (command) {
+                case JOIN: {
+                    join(connection, new String(payload, StandardCharsets.UTF_8).trim());
+                    break;
+                }
+                case MOVE: {
+                    if (payload.length != 1 || (payload[0] & 0xFF) >= MOVES.length) {
+                        throw new IllegalArgumentException("Invalid move");
+                    }
+
+                    ServerSnake snake = players.getByHandle(connection.getSnakeHandle());
+                    if (snake != null) {
+                        snake.queueMove(MOVES[payload[0]]);
+                    }
+                    break;
+                }
+                case LEAVE: {
+                    arenas.removePlayer(connection.getId());
+                    connection.close();
+                    break;
+                }
+                default: {
+                    throw new IllegalArgumentException("Clients cannot send " + command);
+                }
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            // Includes unknown commands, directions and invalid JSON
+            logger.debug("Invalid TCP frame from {}", connection.getId(), e);
+            connection.close();
+        }
+    }
+
+    /**
+     * Handle new snakes connecting to an arena, then start sending them ticks.
+     * @param args Either <code>{JoinData}</code> or <code>arena {JoinData}</code>
+     */
+    private void join(TcpConnection connection, String args) throws IOException {
+        String arena = null;
+        String json = args;
+
+        if (!args.startsWith("{")) {
+            int space = args.indexOf(' ');
+            arena = space < 0 ? args : args.substring(0, space);
+            json = space < 0 ? "" : args.substring(space + 1);
+        }
+
+        JoinData joinData = mapper.readValue(json, JoinData.class);
+        JoinResponseData response = arenas.join(arena, connection.getId(), joinData, true);
+
+        ServerSnake snake = players.getById(connection.getId());
+        if (snake != null) {
+            connection.setSnakeHandle(snake.getHandle());
+        }
+
+        // Queue the response before subscribing so that it always arrives before the first tick
+        connection.send(RawCommand.JOIN, mapper.writeValueAsBytes(response));
+
+        if (response.getDestination().isPresent()) {
+            broadcaster.subscribe(connection, response.getDestination().get());
+        }
+    }
+
+    /**
+     * Removes a closed connection, and removes its snake from the game at the next tick if it had one.
+     */
+    void onClosed(TcpConnection connection) {
+        logger.debug("TCP connection has disconnected. (User: {})", connection.getId());
+
+        connections.remove(connection.getId());
+        broadcaster.unsubscribe(connection);
+
+        ServerSnake snake = players.getById(connection.getId());
+        if (snake != null) {
+            snake.requestDisconnect();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.TickData;
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A tick serialized by {@link TickPipeline} (or a replay being played back) for a single protocol and encoding,
+ * ready to be sent by a {@link TickTransport}.
+ */
+public final class EncodedTick {
+    private final String arena;
+    private final long tick;
+    private final String destination;
+    private final byte[] payload;
+    private final TickEncoding encoding;
+    private final boolean keyframe;
+    private final Runnable requestKeyframe;
+
+    public EncodedTick(@NotNull String arena,
+                long tick,
+                @NotNull String destination,
+                @NotNull byte[] payload,
+                @NotNull TickEncoding encoding,
+                boolean keyframe,
+                @NotNull Runnable requestKeyframe) {
+        this.arena = arena;
+        this.tick = tick;
+        this.destination = destination;
+        this.payload = payload;
+        this.encoding = encoding;
+        this.keyframe = keyframe;
+        this.requestKeyframe = requestKeyframe;
+    }
+
+    /**
+     * Gets a copy of this tick with the same payload for another destination.
+     */
+    @NotNull
+    EncodedTick withDestination(@NotNull String destination) {
+        return new EncodedTick(arena, tick, destination, payload, encoding, keyframe, requestKeyframe);
+    }
+
+    /**
+     * Gets the name of the arena the tick belongs to.
+     */
+    @NotNull
+    public String getArena() {
+        return arena;
+    }
+
+    /**
+     * Gets the number of the tick in its arena.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the topic of the tick's protocol and encoding,
+     * refer to {@link TickProtocol#getDestination(String, int, TickEncoding)}.
+     */
+    @NotNull
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Gets the encoded {@link TickData} or {@link DeltaTickData}, which must not be modified.
+     */
+    @NotNull
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    /**
+     * Gets the format of the payload.
+     */
+    @NotNull
+    public TickEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Checks whether this tick can be applied without any previous tick, which is the case for
+     * full ticks and delta keyframes. Any other tick can't be skipped by a client.
+     */
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    /**
+     * Asks the arena of this tick to send a keyframe as soon as possible,
+     * for clients that had to skip a tick.
+     */
+    public void requestKeyframe() {
+        requestKeyframe.run();
+    }
+}
@@ -0,0 +1,106 @@
+package apcs.snakebattlearena.server.websocket;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbound tick statistics shared by every {@link TickOutbox} of a single destination, so that they outlive
+ * the sessions and can be exported as metrics without a meter per session.
+ * Recorded by many send threads at once, so counters are striped.
+ */
+public class OutboxStats {
+    private final String destination;
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder keyframeRequestCount = new LongAdder();
+    private final LongAdder slowSessionCount = new LongAdder();
+    private final LongAdder totalLagNanos = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    OutboxStats(String destination) {
+        this.destination = destination;
+    }
+
+    void recordSent(long lagNanos) {
+        sentCount.increment();
+        totalLagNanos.add(lagNanos);
+        maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    void recordCoalesced() {
+        coalescedCount.increment();
+    }
+
+    void recordDropped(int ticks) {
+        droppedCount.add(ticks);
+    }
+
+    void recordKeyframeRequest() {
+        keyframeRequestCount.increment();
+    }
+
+    void recordSlowSession() {
+        slowSessionCount.increment();
+    }
+
+    /**
+     * Gets the destination of the ticks.
+     */
+    @NotNull
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Gets the amount of ticks sent to any session.
+     */
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    /**
+     * Gets the amount of unsent ticks that were replaced by a newer tick.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Gets the amount of ticks that were never sent, including ticks skipped while waiting for a keyframe.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Gets the amount of keyframes requested because a session had to skip a tick.
+     */
+    public long getKeyframeRequestCount() {
+        return keyframeRequestCount.sum();
+    }
+
+    /**
+     * Gets the amount of sessions closed for taking longer than the send time limit to send a tick.
+     */
+    public long getSlowSessionCount() {
+        return slowSessionCount.sum();
+    }
+
+    /**
+     * Gets the total time sent ticks waited in their outbox plus how long they took to send, in nanoseconds.
+     */
+    public long getTotalLagNanos() {
+        return totalLagNanos.sum();
+    }
+
+    /**
+     * Gets the longest lag of any tick sent, in nanoseconds.
+     */
+    public long getMaxLagNanos() {
+        return maxLagNanos.get();
+    }
+}
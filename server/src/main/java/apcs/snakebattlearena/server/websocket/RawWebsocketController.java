@@ -0,0 +1,26 @@
+package apcs.snakebattlearena.server.websocket;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Configure a plain websocket receiver on (/raw) for bots, without SockJS or STOMP.
+ * Refer to {@link RawWebsocketHandler} for the protocol.
+ */
+@Configuration
+@EnableWebSocket
+@SuppressWarnings("unused")
+public class RawWebsocketController implements WebSocketConfigurer {
+    @Autowired
+    private RawWebsocketHandler handler;
+
+    @Override
+    public void registerWebSocketHandlers(@NotNull WebSocketHandlerRegistry registry) {
+        registry.addHandler(handler, "/raw")
+                .setAllowedOriginPatterns("*"); // Disable CORS
+    }
+}
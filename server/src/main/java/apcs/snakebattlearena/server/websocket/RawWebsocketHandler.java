@@ -0,0 +1,143 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.*;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import apcs.snakebattlearena.server.game.ArenaManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handles connections to the plain websocket endpoint (/raw), which uses the minimal
+ * {@link RawCommand} protocol instead of STOMP so that bots skip the broker entirely.
+ * Each connection's session ID is also its player ID.
+ */
+@Component
+public class RawWebsocketHandler extends TextWebSocketHandler {
+    /**
+     * Moves are immutable, so share one per direction instead of creating one per message.
+     */
+    private static final Map<Direction, MoveData> MOVES = new EnumMap<>(Direction.class);
+
+    static {
+        for (Direction direction : Direction.values()) {
+            MOVES.put(direction, MoveData.Builder.builder().setDirection(direction).build());
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Session ID -> Session that is safe to send to from multiple threads.
+     */
+    private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ArenaManager arenas;
+    @Autowired
+    private WebsocketUserManager websocketUsers;
+    @Autowired
+    private TickBroadcaster broadcaster;
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Override
+    public void afterConnectionEstablished(@NotNull WebSocketSession session) {
+        logger.info("New raw websocket connection initialized! (User: {})", session.getId());
+
+        websocketUsers.addSession(session.getId(), session);
+        sessions.put(session.getId(), broadcaster.addSession(session));
+    }
+
+    @Override
+    protected void handleTextMessage(@NotNull WebSocketSession session, @NotNull TextMessage message) throws IOException {
+        String text = message.getPayload();
+        int space = text.indexOf(' ');
+        String command = space < 0 ? text : text.substring(0, space);
+        String args = space < 0 ? "" : text.substring(space + 1).trim();
+
+        try {
+            switch (RawCommand.valueOf(command)) {
+                case JOIN: {
+                    join(session.getId(), args);
+                    break;
+                }
+                case MOVE: {
+                    ServerSnake snake = websocketUsers.getSnake(session.getAttributes());
+                    if (snake != null) {
+                        snake.queueMove(MOVES.get(Direction.valueOf(args)));
+                    }
+                    break;
+                }
+                case LEAVE: {
+                    broadcaster.unsubscribeRaw(session.getId());
+
+                    if (!arenas.removePlayer(session.getId()) || !websocketUsers.disconnectUser(session.getId())) {
+                        session.close();
+                    }
+                    break;
+                }
+                default: {
+                    throw new IllegalArgumentException("Clients cannot send " + command);
+                }
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            // Includes unknown commands, directions and invalid JSON
+            logger.debug("Invalid raw websocket message from {}", session.getId(), e);
+            session.close(CloseStatus.BAD_DATA);
+        }
+    }
+
+    /**
+     * Handle new snakes connecting to an arena, then start sending them ticks.
+     * @param args Either <code>{JoinData}</code> or <code>arena {JoinData}</code>
+     */
+    private void join(String id, String args) throws IOException {
+        String arena = null;
+        String json = args;
+
+        if (!args.startsWith("{")) {
+            int space = args.indexOf(' ');
+            arena = space < 0 ? args : args.substring(0, space);
+            json = space < 0 ? "" : args.substring(space + 1);
+        }
+
+        JoinData joinData = mapper.readValue(json, JoinData.class);
+        JoinResponseData response = arenas.join(arena, id, joinData, true);
+
+        WebSocketSession session = sessions.get(id);
+        if (session == null) return;
+        websocketUsers.rememberSnake(id, session.getAttributes());
+
+        // Send the response before subscribing so that it always arrives before the first tick
+        session.sendMessage(new TextMessage(RawCommand.JOIN.name() + " " + mapper.writeValueAsString(response)));
+
+        if (response.getDestination().isPresent()) {
+            broadcaster.subscribeRaw(id, response.getDestination().get());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(@NotNull WebSocketSession session, @NotNull CloseStatus status) {
+        logger.info("Raw websocket session has disconnected with code {}. (User: {})",
+                status.getCode(),
+                session.getId());
+
+        // Remove the stored session and the player from the game
+        sessions.remove(session.getId());
+        broadcaster.removeSession(session.getId());
+        websocketUsers.removeSession(session.getId());
+    }
+}
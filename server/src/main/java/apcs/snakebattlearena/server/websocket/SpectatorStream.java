@@ -0,0 +1,162 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import apcs.snakebattlearena.server.game.GameConfig;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends every Nth full tick of an arena to its spectators, refer to {@link TickProtocol#getSpectatorDestination(String, TickEncoding)}.
+ * <p>
+ * Spectators reuse the bytes already encoded for full tick subscribers, so they cost nothing to serialize.
+ * The tick pipeline only hands ticks over, the fan-out to spectators runs on its own thread
+ * and spectator outboxes on their own pool, so spectators can never delay the ticks of players.
+ * If the fan-out falls behind, only the latest tick of each destination is kept.
+ * Replays are sent to their spectators the same way, refer to {@link SpectatorStream#sendFrame(EncodedTick)}.
+ */
+@Component
+public class SpectatorStream implements TickTransport {
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    /**
+     * The end of the full tick destination of any arena, by encoding.
+     */
+    private static final String[] FULL_SUFFIXES = new String[TickEncoding.values().length];
+
+    static {
+        for (TickEncoding encoding : TickEncoding.values()) {
+            FULL_SUFFIXES[encoding.ordinal()] = TickProtocol.getDestination("", TickProtocol.FULL, encoding)
+                    .substring(TOPIC_PREFIX.length());
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final TickBroadcaster broadcaster;
+    private final int frameDivisor;
+    private final ExecutorService fanOutExecutor;
+
+    /**
+     * Spectator destination -> Latest tick not yet fanned out.
+     */
+    private final ConcurrentHashMap<String, EncodedTick> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean fanOutScheduled = new AtomicBoolean();
+
+    public SpectatorStream(TickBroadcaster broadcaster, GameConfig config) {
+        this.broadcaster = broadcaster;
+        this.frameDivisor = config.getSpectatorFrameDivisor();
+        this.fanOutExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spectator-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    private void stop() {
+        fanOutExecutor.shutdownNow();
+    }
+
+    /**
+     * Spectators need the full ticks of their arena, so every Nth one is encoded whenever an arena has spectators.
+     */
+    @Override
+    public boolean wantsTick(@NotNull String destination, long tick) {
+        if (tick % frameDivisor != 0) return false;
+
+        String spectatorDestination = getSpectatorDestination(destination);
+        return spectatorDestination != null && broadcaster.hasSubscribers(spectatorDestination);
+    }
+
+    @Override
+    public int sendTick(@NotNull EncodedTick tick) {
+        if (tick.getTick() % frameDivisor != 0) return 0;
+
+        String spectatorDestination = getSpectatorDestination(tick.getDestination());
+        if (spectatorDestination == null || !broadcaster.hasSubscribers(spectatorDestination)) return 0;
+
+        queue(tick.withDestination(spectatorDestination));
+        return 0;
+    }
+
+    /**
+     * Checks whether anyone spectates an arena in an encoding, including arenas that only exist as a replay.
+     */
+    public boolean hasSpectators(@NotNull String arena, @NotNull TickEncoding encoding) {
+        return broadcaster.hasSubscribers(TickProtocol.getSpectatorDestination(arena, encoding));
+    }
+
+    /**
+     * Sends a full tick straight to spectators without the frame divisor, for replays which pace their own frames.
+     * @param tick A full tick for a spectator destination, refer to {@link TickProtocol#getSpectatorDestination(String, TickEncoding)}.
+     * @throws IllegalArgumentException When the tick isn't for a spectator destination.
+     */
+    public void sendFrame(@NotNull EncodedTick tick) {
+        if (!TickProtocol.isSpectatorDestination(tick.getDestination())) {
+            throw new IllegalArgumentException("Not a spectator destination: " + tick.getDestination());
+        }
+
+        queue(tick);
+    }
+
+    /**
+     * Replaces the pending tick of a spectator destination, and schedules a fan-out if none is.
+     */
+    private void queue(EncodedTick tick) {
+        pending.put(tick.getDestination(), tick);
+
+        if (fanOutScheduled.compareAndSet(false, true)) {
+            fanOutExecutor.execute(this::fanOut);
+        }
+    }
+
+    /**
+     * Broadcasts the pending ticks to spectators, on the fan-out thread.
+     */
+    private void fanOut() {
+        fanOutScheduled.set(false);
+
+        for (Map.Entry<String, EncodedTick> entry : pending.entrySet()) {
+            EncodedTick tick = entry.getValue();
+
+            // Keep a newer tick queued meanwhile, it is picked up by the next fan-out
+            if (!pending.remove(entry.getKey(), tick)) continue;
+
+            try {
+                broadcaster.broadcast(tick);
+            } catch (Exception e) {
+                logger.error("Failed to send a tick to the spectators of {}!", tick.getArena(), e);
+            }
+        }
+    }
+
+    /**
+     * Gets the spectator destination fed by a full tick destination.
+     * @return The spectator destination, or null if the destination isn't a full tick destination.
+     */
+    private static String getSpectatorDestination(String destination) {
+        if (!destination.startsWith(TOPIC_PREFIX)) return null;
+
+        for (TickEncoding encoding : TickEncoding.values()) {
+            String suffix = FULL_SUFFIXES[encoding.ordinal()];
+            if (!destination.endsWith(suffix)) continue;
+
+            String arena = destination.substring(TOPIC_PREFIX.length(), destination.length() - suffix.length());
+            if (!arena.isEmpty()) {
+                return TickProtocol.getSpectatorDestination(arena, encoding);
+            }
+        }
+
+        return null;
+    }
+}
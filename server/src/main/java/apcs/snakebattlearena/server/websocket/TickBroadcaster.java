@@ -0,0 +1,387 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.RawCommand;
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import apcs.snakebattlearena.server.game.GameConfig;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts ticks by writing pre-encoded STOMP frames straight to the subscribed websocket sessions,
+ * bypassing message conversion and the simple broker which would encode a new frame for every subscriber.
+ * <p>
+ * Subscriptions are tracked by intercepting the STOMP frames sent by clients. Every broadcast encodes the
+ * frame once for each distinct subscription ID (clients usually share the same few IDs), and the
+ * resulting read-only message is handed to the {@link TickOutbox} of every subscription with that ID.
+ * The outboxes send ticks on a shared pool of threads, and coalesce the ticks of slow sessions.
+ * Spectators have their own pool of threads, so that they can never delay the ticks of players.
+ * <p>
+ * Sessions of the raw websocket endpoint ({@link RawWebsocketHandler}) are subscribed directly instead,
+ * and receive the payload without any STOMP frame.
+ */
+@Component
+public class TickBroadcaster implements ChannelInterceptor {
+    private final int sendTimeLimit;
+    private final int sendBufferSizeLimit;
+    private final ExecutorService sendExecutor;
+    private final ExecutorService spectatorSendExecutor;
+
+    /**
+     * Session ID -> Session that is safe to send to from multiple threads.
+     */
+    private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Destination -> Subscriptions to that destination.
+     */
+    private final ConcurrentHashMap<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Destination -> Outbound statistics, only for destinations that ticks were broadcast to.
+     */
+    private final ConcurrentHashMap<String, OutboxStats> stats = new ConcurrentHashMap<>();
+    private volatile Consumer<OutboxStats> statsListener = null;
+
+    private final AtomicLong messageId = new AtomicLong();
+
+    public TickBroadcaster(GameConfig config) {
+        this.sendTimeLimit = config.getSendTimeLimit();
+        this.sendBufferSizeLimit = config.getSendBufferSizeLimit();
+
+        int threads = config.getSendThreads() > 0
+                ? config.getSendThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.sendExecutor = newSendExecutor("tick-send", threads);
+        this.spectatorSendExecutor = newSendExecutor("spectator-send", config.getSpectatorThreads());
+    }
+
+    private static ExecutorService newSendExecutor(String name, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    private void stop() {
+        sendExecutor.shutdownNow();
+        spectatorSendExecutor.shutdownNow();
+    }
+
+    /**
+     * Stores a newly established websocket session.
+     * @return The session wrapped to allow sending from multiple threads, which must be used by
+     *         the rest of the websocket handlers so that all sends to the session are serialized.
+     */
+    @NotNull
+    public WebSocketSession addSession(@NotNull WebSocketSession session) {
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, sendBufferSizeLimit);
+        sessions.put(session.getId(), concurrent);
+        return concurrent;
+    }
+
+    /**
+     * Removes a closed websocket session along with all of its subscriptions.
+     */
+    public void removeSession(@NotNull String sessionId) {
+        if (sessions.remove(sessionId) != null) {
+            subscriptions.values().forEach(subs -> subs.removeIf(sub -> sub.sessionId.equals(sessionId)));
+        }
+    }
+
+    /**
+     * Tracks subscriptions from the STOMP frames sent by clients. The frames are still
+     * passed on to the broker as usual.
+     */
+    @Override
+    public Message<?> preSend(@NotNull Message<?> message, @NotNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null || accessor.getSessionId() == null)
+            return message;
+
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+
+        switch (accessor.getCommand()) {
+            case SUBSCRIBE: {
+                String destination = accessor.getDestination();
+                WebSocketSession session = sessions.get(sessionId);
+
+                if (destination != null && subscriptionId != null && session != null) {
+                    subscriptions.computeIfAbsent(destination, d -> new CopyOnWriteArrayList<>())
+                            .add(newSubscription(sessionId, subscriptionId, destination, session));
+                }
+                break;
+            }
+            case UNSUBSCRIBE: {
+                if (subscriptionId != null) {
+                    subscriptions.values().forEach(subs -> subs.removeIf(sub ->
+                            sub.sessionId.equals(sessionId) && sub.subscriptionId.equals(subscriptionId)));
+                }
+                break;
+            }
+            case DISCONNECT: {
+                removeSession(sessionId);
+                break;
+            }
+        }
+
+        return message;
+    }
+
+    /**
+     * Subscribes a raw websocket session to a destination, refer to {@link RawWebsocketHandler}.
+     * Raw sessions only have a single subscription, which replaces any subscription to another destination.
+     * The session must have been added with {@link TickBroadcaster#addSession(WebSocketSession)}.
+     */
+    public synchronized void subscribeRaw(@NotNull String sessionId, @NotNull String destination) {
+        WebSocketSession session = sessions.get(sessionId);
+        if (session == null) return;
+
+        // Bots rejoin the same arena after every death, keep sending to them without a gap
+        List<Subscription> subs = subscriptions.get(destination);
+        if (subs != null && subs.stream().anyMatch(sub -> isRawSubscription(sub, sessionId))) return;
+
+        unsubscribeRaw(sessionId);
+        subscriptions.computeIfAbsent(destination, d -> new CopyOnWriteArrayList<>())
+                .add(newSubscription(sessionId, null, destination, session));
+    }
+
+    /**
+     * Removes the subscription of a raw websocket session, if it has one.
+     */
+    public synchronized void unsubscribeRaw(@NotNull String sessionId) {
+        subscriptions.values().forEach(subs -> subs.removeIf(sub -> isRawSubscription(sub, sessionId)));
+    }
+
+    private static boolean isRawSubscription(Subscription sub, String sessionId) {
+        return sub.subscriptionId == null && sub.sessionId.equals(sessionId);
+    }
+
+    private Subscription newSubscription(String sessionId,
+                                         String subscriptionId,
+                                         String destination,
+                                         WebSocketSession session) {
+        TickOutbox outbox = new TickOutbox(
+                sessionId,
+                destination,
+                session,
+                TickProtocol.isSpectatorDestination(destination) ? spectatorSendExecutor : sendExecutor,
+                TimeUnit.MILLISECONDS.toNanos(sendTimeLimit));
+
+        return new Subscription(sessionId, subscriptionId, session, outbox);
+    }
+
+    /**
+     * Checks whether any session is subscribed to a destination.
+     */
+    public boolean hasSubscribers(@NotNull String destination) {
+        List<Subscription> subs = subscriptions.get(destination);
+        return subs != null && !subs.isEmpty();
+    }
+
+    /**
+     * Queues an encoded tick to every session subscribed to its destination.
+     * @return The amount of sessions the tick was queued to.
+     */
+    public int broadcast(@NotNull EncodedTick tick) {
+        List<Subscription> subs = subscriptions.get(tick.getDestination());
+        if (subs == null || subs.isEmpty()) return 0;
+
+        OutboxStats destinationStats = getStats(tick.getDestination());
+        byte[] payload = tick.getPayload();
+        TickEncoding encoding = tick.getEncoding();
+        byte[] prefix = encodeFramePrefix(tick.getDestination(), payload.length, encoding);
+
+        // Frames are only different by their subscription header, so share them between equal IDs
+        Map<String, WebSocketMessage<?>> textFrames = new HashMap<>();
+        Map<String, WebSocketMessage<?>> binaryFrames = new HashMap<>();
+        WebSocketMessage<?> rawFrame = null;
+        int queued = 0;
+
+        for (Subscription sub : subs) {
+            WebSocketMessage<?> frame;
+
+            if (sub.subscriptionId == null) {
+                if (rawFrame == null) {
+                    rawFrame = encodeRawFrame(payload, encoding);
+                }
+                frame = rawFrame;
+            } else {
+                // Binary frames can't be sent over SockJS, which is also the case for the STOMP handler
+                boolean binary = encoding == TickEncoding.BINARY && !sub.sockJs;
+
+                frame = (binary ? binaryFrames : textFrames).computeIfAbsent(sub.subscriptionId,
+                        id -> encodeFrame(prefix, id, payload, binary));
+            }
+
+            if (sub.outbox.offer(frame, tick, destinationStats)) {
+                queued++;
+            }
+        }
+
+        return queued;
+    }
+
+    /**
+     * Gets the outbound tick statistics of every subscribed session.
+     */
+    @NotNull
+    public List<TickOutbox> getOutboxes() {
+        List<TickOutbox> outboxes = new ArrayList<>();
+        subscriptions.values().forEach(subs -> subs.forEach(sub -> outboxes.add(sub.outbox)));
+        return outboxes;
+    }
+
+    /**
+     * Gets the outbound statistics of every destination that ticks were broadcast to.
+     */
+    @NotNull
+    public Collection<OutboxStats> getStats() {
+        return Collections.unmodifiableCollection(stats.values());
+    }
+
+    /**
+     * Sets a listener called with the statistics of every new destination, such as to export them as metrics.
+     * Destinations before the listener was set are only available from {@link TickBroadcaster#getStats()}.
+     */
+    public void setStatsListener(@NotNull Consumer<OutboxStats> listener) {
+        this.statsListener = listener;
+    }
+
+    private OutboxStats getStats(String destination) {
+        OutboxStats existing = stats.get(destination);
+        if (existing != null) return existing;
+
+        OutboxStats created = new OutboxStats(destination);
+        existing = stats.putIfAbsent(destination, created);
+        if (existing != null) return existing;
+
+        Consumer<OutboxStats> listener = statsListener;
+        if (listener != null) {
+            listener.accept(created);
+        }
+        return created;
+    }
+
+    /**
+     * Encodes all the headers of a MESSAGE frame that are the same for every subscriber,
+     * ending with the name of the subscription header.
+     */
+    private byte[] encodeFramePrefix(String destination, int contentLength, TickEncoding encoding) {
+        String prefix = StompCommand.MESSAGE.name() + "\n"
+                + "destination:" + escapeHeader(destination) + "\n"
+                + "content-type:" + (encoding == TickEncoding.BINARY
+                        ? MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE
+                        : MimeTypeUtils.APPLICATION_JSON_VALUE) + "\n"
+                + "message-id:tick-" + messageId.getAndIncrement() + "\n"
+                + "content-length:" + contentLength + "\n"
+                + "subscription:";
+
+        return prefix.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Completes a frame for a single subscription ID.
+     */
+    private static WebSocketMessage<?> encodeFrame(byte[] prefix, String subscriptionId, byte[] payload, boolean binary) {
+        byte[] subscription = (escapeHeader(subscriptionId) + "\n\n").getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(prefix.length + subscription.length + payload.length + 1);
+
+        frame.write(prefix, 0, prefix.length);
+        frame.write(subscription, 0, subscription.length);
+        frame.write(payload, 0, payload.length);
+        frame.write(0);
+
+        return binary
+                ? new BinaryMessage(frame.toByteArray())
+                : new TextMessage(frame.toByteArray());
+    }
+
+    /**
+     * Encodes a tick for raw websocket sessions, refer to {@link RawCommand#TICK}.
+     */
+    private static WebSocketMessage<?> encodeRawFrame(byte[] payload, TickEncoding encoding) {
+        if (encoding == TickEncoding.BINARY) {
+            return new BinaryMessage(payload);
+        }
+
+        byte[] command = (RawCommand.TICK.name() + " ").getBytes(StandardCharsets.UTF_8);
+        byte[] frame = Arrays.copyOf(command, command.length + payload.length);
+        System.arraycopy(payload, 0, frame, command.length, payload.length);
+
+        return new TextMessage(frame);
+    }
+
+    /**
+     * Escapes a STOMP 1.2 header value.
+     */
+    private static String escapeHeader(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf(':') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+
+        return value.replace("\\", "\\\\")
+                .replace(":", "\\c")
+                .replace("\n", "\\n")
+                .replace("\r", "\\r");
+    }
+
+    /**
+     * A single subscription of a session to a destination.
+     */
+    private static class Subscription {
+        final String sessionId;
+        /**
+         * The STOMP subscription ID, or null for raw sessions.
+         */
+        final String subscriptionId;
+        final WebSocketSession session;
+        final boolean sockJs;
+        final TickOutbox outbox;
+
+        Subscription(String sessionId, String subscriptionId, WebSocketSession session, TickOutbox outbox) {
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+            this.session = session;
+            this.outbox = outbox;
+            this.sockJs = session instanceof ConcurrentWebSocketSessionDecorator
+                    && ((ConcurrentWebSocketSessionDecorator) session).getLastSession() instanceof SockJsSession;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.TickProtocol;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Outbound ticks of a single subscription, which holds at most one unsent tick so that a slow
+ * session can never buffer more than a tick behind.
+ * <p>
+ * When a new tick arrives before the previous one could be sent, the previous one is replaced
+ * if the new tick is a keyframe. Otherwise the client can't skip the previous tick, so both are
+ * dropped and every tick is skipped until the next keyframe, which is requested from the arena.
+ * New delta subscriptions also skip every tick until a keyframe, which is requested with the first tick they get,
+ * since a keyframe requested when the client joined may have been sent before it subscribed.
+ * Sessions that are stuck sending a single tick for longer than the send time limit are closed.
+ * <p>
+ * Ticks are sent on a shared executor so a slow session never blocks the broadcast of the others.
+ * Everything that happens to the ticks is recorded into the {@link OutboxStats} of their destination.
+ */
+public class TickOutbox {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String sessionId;
+    private final String destination;
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final long sendTimeLimitNanos;
+
+    // Guarded by this
+    private Pending pending = null;
+    private boolean draining = false;
+    private boolean awaitingKeyframe;
+    private boolean keyframeRequested = false;
+    private boolean closing = false;
+
+    /**
+     * When the tick currently being sent started sending, or 0 if idle.
+     */
+    private volatile long sendStartedAt = 0;
+
+    // Statistics of this session, the rest are kept per destination
+    private volatile long lastLagNanos = 0;
+    private volatile long maxLagNanos = 0;
+
+    TickOutbox(String sessionId,
+               String destination,
+               WebSocketSession session,
+               Executor executor,
+               long sendTimeLimitNanos) {
+        this.sessionId = sessionId;
+        this.destination = destination;
+        this.session = session;
+        this.executor = executor;
+        this.sendTimeLimitNanos = sendTimeLimitNanos;
+
+        // Full ticks are always keyframes, which includes every spectator destination
+        this.awaitingKeyframe = !TickProtocol.isSpectatorDestination(destination);
+    }
+
+    /**
+     * Queues a tick to be sent as soon as the session has finished sending the previous one.
+     * This never blocks.
+     * @param frame The encoded tick frame.
+     * @param tick  The tick of the frame.
+     * @param stats The statistics of the tick's destination.
+     * @return False if the tick was dropped.
+     */
+    boolean offer(@NotNull WebSocketMessage<?> frame, @NotNull EncodedTick tick, @NotNull OutboxStats stats) {
+        long now = System.nanoTime();
+        long started = sendStartedAt;
+        boolean slow = false;
+        boolean requestKeyframe = false;
+        boolean startDraining = false;
+
+        synchronized (this) {
+            if (closing) return false;
+
+            if (started != 0 && now - started > sendTimeLimitNanos) {
+                closing = slow = true;
+                pending = null;
+            } else if (awaitingKeyframe && !tick.isKeyframe()) {
+                stats.recordDropped(1);
+                if (keyframeRequested) return false;
+
+                stats.recordKeyframeRequest();
+                keyframeRequested = requestKeyframe = true;
+            } else if (pending != null && !tick.isKeyframe()) {
+                // The client can't apply this tick without the unsent one, so skip both until a keyframe
+                stats.recordDropped(2);
+                stats.recordKeyframeRequest();
+                pending = null;
+                awaitingKeyframe = keyframeRequested = requestKeyframe = true;
+            } else {
+                if (pending != null) {
+                    stats.recordCoalesced();
+                }
+
+                pending = new Pending(frame, now, stats);
+                awaitingKeyframe = keyframeRequested = false;
+                startDraining = !draining;
+                draining = true;
+            }
+        }
+
+        if (slow) {
+            close(stats);
+            return false;
+        }
+        if (requestKeyframe) {
+            tick.requestKeyframe();
+            return false;
+        }
+        if (startDraining) {
+            executor.execute(this::drain);
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends pending ticks until none are left, on the executor.
+     */
+    private void drain() {
+        while (true) {
+            Pending next;
+
+            synchronized (this) {
+                next = pending;
+                pending = null;
+
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            }
+
+            sendStartedAt = System.nanoTime();
+
+            try {
+                session.sendMessage(next.frame);
+
+                long lag = System.nanoTime() - next.queuedAt;
+                lastLagNanos = lag;
+                maxLagNanos = Math.max(maxLagNanos, lag);
+                next.stats.recordSent(lag);
+            } catch (Exception e) {
+                logger.debug("Failed to send a tick to session {}", sessionId, e);
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+    }
+
+    /**
+     * Closes a session that took too long to send a tick, off the calling thread since it may block.
+     */
+    private void close(OutboxStats stats) {
+        logger.warn("Session {} took longer than the send time limit to send a tick, closing it!", sessionId);
+        stats.recordSlowSession();
+
+        executor.execute(() -> {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (Exception e) {
+                logger.debug("Failed to close slow session {}", sessionId, e);
+            }
+        });
+    }
+
+    /**
+     * Gets the ID of the subscribed session.
+     */
+    @NotNull
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Gets the destination the session is subscribed to.
+     */
+    @NotNull
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Gets the time the last sent tick waited in this outbox plus how long it took to send, in nanoseconds.
+     */
+    public long getLastLagNanos() {
+        return lastLagNanos;
+    }
+
+    /**
+     * Gets the longest lag of any tick sent to this session, in nanoseconds.
+     */
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    /**
+     * A tick waiting to be sent.
+     */
+    private static class Pending {
+        final WebSocketMessage<?> frame;
+        final long queuedAt;
+        final OutboxStats stats;
+
+        Pending(WebSocketMessage<?> frame, long queuedAt, OutboxStats stats) {
+            this.frame = frame;
+            this.queuedAt = queuedAt;
+            this.stats = stats;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.TickData;
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import apcs.snakebattlearena.models.entities.EntityData;
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+import apcs.snakebattlearena.serializers.PointListSerializer;
+import apcs.snakebattlearena.serializers.PointSerializer;
+import apcs.snakebattlearena.server.game.GameConfig;
+import apcs.snakebattlearena.server.game.StageTimer;
+import apcs.snakebattlearena.util.TickState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serializes and broadcasts the ticks of every arena off the tick threads.
+ * <p>
+ * Each tick passes through three stages, each on its own thread so that they overlap:
+ * <ol>
+ *     <li><b>Simulate</b>: The arena's tick thread publishes an immutable {@link DeltaTickData} snapshot.</li>
+ *     <li><b>Serialize</b>: The deltas are applied to a {@link TickState} of each arena, from which {@link TickData}
+ *     is only built when full ticks have subscribers. They are converted into JSON and {@link BinaryTickCodec} bytes,
+ *     skipping any protocol and encoding combination without subscribers.</li>
+ *     <li><b>Broadcast</b>: The bytes are sent out to every client of the arena, over every {@link TickTransport}.</li>
+ * </ol>
+ * The stages are connected by bounded queues. When a queue is full the newest tick is dropped
+ * rather than blocking the tick thread, and the arena is told to send a keyframe next.
+ * Until that keyframe, neither delta clients nor the state of the arena can apply any deltas, so full ticks are skipped.
+ */
+@Component
+public class TickPipeline {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter packedWriter;
+    private final ObjectWriter runsWriter;
+    private final List<TickTransport> transports;
+
+    private final BlockingQueue<PublishedTick> serializeQueue;
+    private final BlockingQueue<SerializedTick> broadcastQueue;
+
+    private final Thread serializeThread;
+    private final Thread broadcastThread;
+
+    /**
+     * Arena name -> State rebuilt from its deltas, only used by the serialize thread.
+     */
+    private final HashMap<String, ArenaState> states = new HashMap<>();
+
+    private final StageTimer simulateTimer = new StageTimer();
+    private final StageTimer serializeTimer = new StageTimer();
+    private final StageTimer broadcastTimer = new StageTimer();
+    private final StageTimer latencyTimer = new StageTimer();
+    private final AtomicLong droppedTickCount = new AtomicLong();
+
+    private volatile boolean running = false;
+
+    public TickPipeline(GameConfig config, ObjectMapper mapper, List<TickTransport> transports) {
+        this.mapper = mapper;
+        this.packedWriter = mapper.writer().withAttribute(PointSerializer.NUMERIC, true);
+        this.runsWriter = packedWriter.withAttribute(PointListSerializer.DIRECTION_RUNS, true);
+        this.transports = transports;
+        this.serializeQueue = new ArrayBlockingQueue<>(config.getTickQueueSize());
+        this.broadcastQueue = new ArrayBlockingQueue<>(config.getTickQueueSize());
+        this.serializeThread = newStageThread("tick-serialize", this::runSerialize);
+        this.broadcastThread = newStageThread("tick-broadcast", this::runBroadcast);
+    }
+
+    /**
+     * Starts the stage threads, which Spring does on its own.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        serializeThread.start();
+        broadcastThread.start();
+    }
+
+    /**
+     * Stops the stage threads, waiting for the current ticks to finish.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        serializeThread.interrupt();
+        broadcastThread.interrupt();
+        serializeThread.join(TimeUnit.SECONDS.toMillis(5));
+        broadcastThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Hands a finished tick off to be serialized and broadcast. This never blocks.
+     * @param arena         The arena the tick belongs to.
+     * @param delta         The immutable delta tick snapshot.
+     * @param removed       The entities removed in the tick, for full ticks.
+     * @param simulateNanos How long the tick took to simulate, for statistics.
+     * @param onDropped     Requests a keyframe, called if the tick is dropped at any stage or a client had to skip it.
+     * @return False if the pipeline is full and the tick was dropped.
+     */
+    public boolean publish(@NotNull String arena,
+                           @NotNull DeltaTickData delta,
+                           @NotNull List<EntityData> removed,
+                           long simulateNanos,
+                           @NotNull Runnable onDropped) {
+        simulateTimer.record(simulateNanos);
+
+        if (!serializeQueue.offer(new PublishedTick(arena, delta, removed, simulateNanos, System.nanoTime(), onDropped))) {
+            droppedTickCount.incrementAndGet();
+            logger.warn("Tick pipeline is full, dropping a tick for {}!", arena);
+            onDropped.run();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Serialize stage, converts published ticks into the bytes of every encoding.
+     */
+    private void runSerialize() throws InterruptedException {
+        PublishedTick published = serializeQueue.take();
+        long start = System.nanoTime();
+
+        List<EncodedTick> encoded = new ArrayList<>();
+        Set<String> destinations = new HashSet<>();
+        try {
+            ArenaState state = states.computeIfAbsent(published.arena, arena -> new ArenaState());
+            boolean synced = state.apply(published.delta);
+            TickData tick = null;
+
+            for (TickEncoding encoding : TickEncoding.values()) {
+                for (int protocol = TickProtocol.FULL; protocol <= TickProtocol.LATEST; protocol++) {
+                    String destination = TickProtocol.getDestination(published.arena, protocol, encoding);
+
+                    // Nobody would receive it, or protocols share the same format
+                    if (!destinations.add(destination) || !wantsTick(destination, published.delta.getTick())) continue;
+
+                    Object data = published.delta;
+                    if (protocol < TickProtocol.DELTA) {
+                        // The keyframe that fixes the state has already been requested
+                        if (!synced) continue;
+
+                        if (tick == null) {
+                            tick = TickData.Builder.builder()
+                                    .setEntities(state.state.getEntities())
+                                    .setRemovedEntities(published.removed)
+                                    .build();
+                        }
+                        data = tick;
+                    }
+
+                    encoded.add(new EncodedTick(
+                            published.arena,
+                            published.delta.getTick(),
+                            destination,
+                            encode(data, protocol, encoding),
+                            encoding,
+                            protocol < TickProtocol.DELTA || published.delta.isKeyframe(),
+                            published.onDropped));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to serialize a tick for {}!", published.arena, e);
+            published.onDropped.run();
+            return;
+        }
+
+        long serializeNanos = System.nanoTime() - start;
+        serializeTimer.record(serializeNanos);
+
+        if (!broadcastQueue.offer(new SerializedTick(published, encoded, serializeNanos))) {
+            droppedTickCount.incrementAndGet();
+            logger.warn("Tick broadcast queue is full, dropping a tick for {}!", published.arena);
+            published.onDropped.run();
+        }
+    }
+
+    /**
+     * Broadcast stage, sends serialized ticks to the clients of their arena.
+     */
+    private void runBroadcast() throws InterruptedException {
+        SerializedTick serialized = broadcastQueue.take();
+        PublishedTick published = serialized.published;
+        long start = System.nanoTime();
+
+        try {
+            for (EncodedTick encoded : serialized.encoded) {
+                for (TickTransport transport : transports) {
+                    transport.sendTick(encoded);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to broadcast a tick for {}!", published.arena, e);
+        }
+
+        long end = System.nanoTime();
+        broadcastTimer.record(end - start);
+        latencyTimer.record(end - published.publishedAt);
+
+        logger.debug("Tick pipeline for {}: simulate {}us, serialize {}us, broadcast {}us, latency {}us",
+                published.arena,
+                TimeUnit.NANOSECONDS.toMicros(published.simulateNanos),
+                TimeUnit.NANOSECONDS.toMicros(serialized.serializeNanos),
+                TimeUnit.NANOSECONDS.toMicros(end - start),
+                TimeUnit.NANOSECONDS.toMicros(end - published.publishedAt));
+    }
+
+    /**
+     * Checks whether any transport would send a tick to a destination.
+     */
+    private boolean wantsTick(String destination, long tick) {
+        for (TickTransport transport : transports) {
+            if (transport.wantsTick(destination, tick)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Encodes a full or delta tick for a single protocol and encoding.
+     */
+    private byte[] encode(Object data, int protocol, TickEncoding encoding) throws IOException {
+        if (encoding == TickEncoding.BINARY) {
+            return data instanceof DeltaTickData
+                    ? BinaryTickCodec.encode((DeltaTickData) data)
+                    : BinaryTickCodec.encode((TickData) data);
+        }
+
+        if (protocol >= TickProtocol.DIRECTION_RUNS) {
+            return runsWriter.writeValueAsBytes(data);
+        }
+        if (protocol >= TickProtocol.PACKED_POINTS) {
+            return packedWriter.writeValueAsBytes(data);
+        }
+
+        return mapper.writeValueAsBytes(data);
+    }
+
+    /**
+     * Creates a daemon thread repeatedly running a stage until the pipeline is stopped.
+     */
+    private Thread newStageThread(String name, Stage stage) {
+        Thread thread = new Thread(() -> {
+            while (running) {
+                try {
+                    stage.run();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Throwable t) {
+                    logger.error("Uncaught exception in {}!", name, t);
+                }
+            }
+        }, name);
+
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Gets the timing of the simulation stage, from the start of a tick until it is published.
+     */
+    public StageTimer getSimulateTimer() {
+        return simulateTimer;
+    }
+
+    /**
+     * Gets the timing of the serialization stage.
+     */
+    public StageTimer getSerializeTimer() {
+        return serializeTimer;
+    }
+
+    /**
+     * Gets the timing of the broadcast stage.
+     */
+    public StageTimer getBroadcastTimer() {
+        return broadcastTimer;
+    }
+
+    /**
+     * Gets the time from a tick being published until it has been broadcast, including queueing.
+     */
+    public StageTimer getLatencyTimer() {
+        return latencyTimer;
+    }
+
+    /**
+     * Gets the amount of ticks dropped because a queue was full.
+     */
+    public long getDroppedTickCount() {
+        return droppedTickCount.get();
+    }
+
+    /**
+     * A single iteration of a stage thread.
+     */
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Output of the simulation stage.
+     */
+    private static class PublishedTick {
+        final String arena;
+        final DeltaTickData delta;
+        final List<EntityData> removed;
+        final long simulateNanos;
+        final long publishedAt;
+        final Runnable onDropped;
+
+        PublishedTick(String arena,
+                      DeltaTickData delta,
+                      List<EntityData> removed,
+                      long simulateNanos,
+                      long publishedAt,
+                      Runnable onDropped) {
+            this.arena = arena;
+            this.delta = delta;
+            this.removed = removed;
+            this.simulateNanos = simulateNanos;
+            this.publishedAt = publishedAt;
+            this.onDropped = onDropped;
+        }
+    }
+
+    /**
+     * The state of an arena rebuilt by the serialize stage, which can only apply deltas
+     * while no tick has been skipped since the last keyframe.
+     */
+    private static class ArenaState {
+        final TickState state = new TickState();
+        long lastTick = -1;
+        boolean synced = false;
+
+        /**
+         * Applies a delta tick if possible.
+         * @return True if the state is up to date with the tick.
+         */
+        boolean apply(DeltaTickData delta) {
+            if (delta.isKeyframe()) {
+                synced = true;
+            } else if (delta.getTick() != lastTick + 1) {
+                synced = false;
+            }
+            lastTick = delta.getTick();
+
+            if (synced) {
+                try {
+                    state.apply(delta);
+                } catch (RuntimeException e) {
+                    synced = false;
+                    throw e;
+                }
+            }
+
+            return synced;
+        }
+    }
+
+    /**
+     * Output of the serialization stage.
+     */
+    private static class SerializedTick {
+        final PublishedTick published;
+        final List<EncodedTick> encoded;
+        final long serializeNanos;
+
+        SerializedTick(PublishedTick published, List<EncodedTick> encoded, long serializeNanos) {
+            this.published = published;
+            this.encoded = encoded;
+            this.serializeNanos = serializeNanos;
+        }
+    }
+}
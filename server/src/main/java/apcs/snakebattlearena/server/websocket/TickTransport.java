@@ -0,0 +1,24 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A way of sending serialized ticks to clients, which {@link TickPipeline} broadcasts every tick to.
+ * Any bean implementing this is picked up automatically.
+ */
+public interface TickTransport {
+    /**
+     * Checks whether a tick would be sent to any client, to avoid encoding ticks nobody receives.
+     * @param destination Refer to {@link TickProtocol#getDestination(String, int, TickEncoding)}
+     * @param tick        The number of the tick in its arena.
+     */
+    boolean wantsTick(@NotNull String destination, long tick);
+
+    /**
+     * Sends an already serialized tick to all subscribers of its destination.
+     * @return The amount of clients the tick was sent or queued to.
+     */
+    int sendTick(@NotNull EncodedTick tick);
+}
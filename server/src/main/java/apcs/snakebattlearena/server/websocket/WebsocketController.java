@@ -1,11 +1,14 @@
 package apcs.snakebattlearena.server.websocket;
 
+import apcs.snakebattlearena.server.game.GameConfig;
 import com.sun.security.auth.UserPrincipal;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketHandler;
@@ -17,43 +20,54 @@ import org.springframework.web.socket.config.annotation.WebSocketTransportRegist
 import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
-import java.lang.ref.WeakReference;
 import java.security.Principal;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 /**
- * Configure a SockJS Websocket receiver on (/) for communication over
+ * Configure a SockJS Websocket receiver on (/), and a plain websocket receiver on (/ws)
+ * for clients that want binary frames, for communication over
  * the STOMP sub-protocol between:
  * <ul>
  *     <li><b>Server <--> Client</b>: Server sends game data, client sends commands about itself</li>
- *     <li><b>Server --> Dashboard</b>: Server sends game data</li>
+ *     <li><b>Server --> Dashboard</b>: Server sends game data at a reduced rate on /topic/{arena}/spectate,
+ *     refer to {@link SpectatorStream}</li>
  * </ul>
  */
 @Configuration
 @EnableWebSocketMessageBroker
 @SuppressWarnings("unused")
 public class WebsocketController implements WebSocketMessageBrokerConfigurer {
-    /**
-     * Stores all active websocket connections by the associated random principal ID -> websocket connection.
-     */
-    public final Map<String, WeakReference<WebSocketSession>> sessions = new HashMap<>();
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    @Autowired
+    private WebsocketUserManager websocketUsers;
+    @Autowired
+    private TickBroadcaster broadcaster;
+    @Autowired
+    private GameConfig config;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Handle new connections to add a unique identifier to them
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler() {
+            @Override
+            protected Principal determineUser(@NotNull ServerHttpRequest request,
+                                              @NotNull WebSocketHandler wsHandler,
+                                              @NotNull Map<String, Object> attributes) {
+                return new UserPrincipal(UUID.randomUUID().toString());
+            }
+        };
+
         registry.addEndpoint("/") // Register WebSocket handler to (/)
                 .setAllowedOriginPatterns("*") // Disable CORS
-                .setHandshakeHandler(new DefaultHandshakeHandler() { // Handle new connections to add a unique identifier to them
-                    @Override
-                    protected Principal determineUser(@NotNull ServerHttpRequest request,
-                                                      @NotNull WebSocketHandler wsHandler,
-                                                      @NotNull Map<String, Object> attributes) {
-                        return new UserPrincipal(UUID.randomUUID().toString());
-                    }
-                })
+                .setHandshakeHandler(handshakeHandler)
                 .withSockJS(); // Use the SockJS protocol
+
+        // SockJS only supports text, so binary ticks need a plain websocket
+        registry.addEndpoint("/ws")
+                .setAllowedOriginPatterns("*")
+                .setHandshakeHandler(handshakeHandler);
     }
 
     // Configure STOMP message filters
@@ -65,9 +79,19 @@ public class WebsocketController implements WebSocketMessageBrokerConfigurer {
         registry.setApplicationDestinationPrefixes("/client");
     }
 
+    // Track subscriptions to send ticks to, refer to TickBroadcaster
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(broadcaster);
+    }
+
     // Store all active websocket connections
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registry) {
+        // Limits for everything other than ticks, which are limited by TickOutbox
+        registry.setSendTimeLimit(config.getSendTimeLimit());
+        registry.setSendBufferSizeLimit(config.getSendBufferSizeLimit());
+
         registry.addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
             @Override
             public void afterConnectionEstablished(@NotNull WebSocketSession session) throws Exception {
@@ -78,15 +102,13 @@ public class WebsocketController implements WebSocketMessageBrokerConfigurer {
 
                 // Store the new session
                 if (user != null) {
-                    synchronized (sessions) {
-                        sessions.put(user.getName(), new WeakReference<>(session));
-                    }
+                    websocketUsers.addSession(user.getName(), session);
                 }
 
-                super.afterConnectionEstablished(session);
+                // Ticks are sent to this session from other threads, so all sends need to go through the same decorator
+                super.afterConnectionEstablished(broadcaster.addSession(session));
             }
 
-            // TODO: remove player from game after disconnect
             @Override
             public void afterConnectionClosed(@NotNull WebSocketSession session,
                                               @NotNull CloseStatus closeStatus) throws Exception {
@@ -96,12 +118,11 @@ public class WebsocketController implements WebSocketMessageBrokerConfigurer {
                         closeStatus.getCode(),
                         user != null ? user.getName() : "UNKNOWN");
 
-                // Remove the stored session
+                // Remove the stored session and the player from the game
                 if (user != null) {
-                    synchronized (sessions) {
-                        sessions.remove(user.getName());
-                    }
+                    websocketUsers.removeSession(user.getName());
                 }
+                broadcaster.removeSession(session.getId());
 
                 super.afterConnectionClosed(session, closeStatus);
             }
@@ -1,16 +1,16 @@
 package apcs.snakebattlearena.server.websocket;
 
 import apcs.snakebattlearena.models.*;
-import apcs.snakebattlearena.server.game.GameConfig;
-import apcs.snakebattlearena.server.game.GameService;
-import apcs.snakebattlearena.utils.Constants;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import apcs.snakebattlearena.server.game.ArenaManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
-import java.util.Optional;
 
 /**
  * Handle incoming websocket STOMP messages.
@@ -19,41 +19,28 @@ import java.util.Optional;
 @SuppressWarnings("unused")
 public class WebsocketReceiver {
     @Autowired
-    private GameService game;
-    @Autowired
-    private GameConfig config;
+    private ArenaManager arenas;
     @Autowired
     private WebsocketUserManager websocketUsers;
 
     /**
-     * Handle new snakes connecting and make new entity for them.
+     * Handle new snakes connecting to the default arena and make new entity for them.
      */
     @MessageMapping("/join")
     @SendToUser(value = "/topic/join", broadcast = false)
-    private JoinResponseData join(JoinData joinData, Principal user) {
-        // Check that the client major/minor version matches the server
-        if (!Constants.VERSION.equalsIgnore(joinData.getClientVersion(), false, true)) {
-            return JoinResponseData.Builder.builder()
-                    .setError(JoinError.VERSION_MISMATCH)
-                    .build();
-        }
-
-        // Add new player to the game
-        Optional<JoinError> err = game.addPlayer(user.getName(), joinData.getSnake());
-
-        // Return the error
-        if (err.isPresent()) {
-            return JoinResponseData.Builder.builder()
-                    .setError(err.get())
-                    .build();
-        }
+    private JoinResponseData join(JoinData joinData, Principal user, SimpMessageHeaderAccessor headers) {
+        return joinArena(null, joinData, user, headers);
+    }
 
-        // Return game data
-        return JoinResponseData.Builder.builder()
-                .setBoard(BoardData.Builder.builder()
-                        .setWidth(config.getBoardWidth())
-                        .setHeight(config.getBoardHeight()).build())
-                .build();
+    /**
+     * Handle new snakes connecting to a specific arena and make new entity for them.
+     */
+    @MessageMapping("/{arena}/join")
+    @SendToUser(value = "/topic/join", broadcast = false)
+    private JoinResponseData joinArena(@DestinationVariable("arena") String arena, JoinData joinData, Principal user, SimpMessageHeaderAccessor headers) {
+        JoinResponseData response = arenas.join(arena, user.getName(), joinData, websocketUsers.supportsBinary(user.getName()));
+        websocketUsers.rememberSnake(user.getName(), headers.getSessionAttributes());
+        return response;
     }
 
     /**
@@ -63,19 +50,20 @@ public class WebsocketReceiver {
     private void leave(Principal user) {
         if (user == null) return;
 
-        if (game.removePlayer(user.getName())) {
+        if (arenas.removePlayer(user.getName())) {
             websocketUsers.disconnectUser(user.getName());
         }
     }
 
     /**
      * Handle authenticated incoming move commands ({@link Direction})
-     * based on the source websocket.
+     * based on the source websocket. Moves are queued onto the snake without locking.
      */
     @MessageMapping("/move")
-    private void move(MoveData data, Principal user) {
-        if (user == null) return;
-
-        game.addPlayerMoveToQueue(user.getName(), data);
+    private void move(MoveData data, SimpMessageHeaderAccessor headers) {
+        ServerSnake snake = websocketUsers.getSnake(headers.getSessionAttributes());
+        if (snake != null) {
+            snake.queueMove(data);
+        }
     }
 }
@@ -1,8 +1,9 @@
 package apcs.snakebattlearena.server.websocket;
 
-import apcs.snakebattlearena.models.TickData;
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 /**
@@ -10,14 +11,26 @@ import org.springframework.stereotype.Controller;
  */
 @Controller
 @SuppressWarnings("unused")
-public class WebsocketSender {
+public class WebsocketSender implements TickTransport {
     @Autowired
-    private SimpMessagingTemplate messaging;
+    private TickBroadcaster broadcaster;
 
     /**
-     * Send a game tick to all clients, with the new/removed entity data.
+     * Checks whether any session is subscribed to a destination, to avoid encoding ticks nobody receives.
      */
-    public void sendTick(TickData data) {
-        messaging.convertAndSend("/topic/tick", data);
+    @Override
+    public boolean wantsTick(@NotNull String destination, long tick) {
+        return broadcaster.hasSubscribers(destination);
+    }
+
+    /**
+     * Send an already serialized tick to all of its subscribers without converting it again,
+     * refer to {@link TickPipeline} and {@link TickProtocol#getDestination(String, int, TickEncoding)}.
+     * The STOMP frame is encoded once and shared by every subscriber, refer to {@link TickBroadcaster}.
+     * @return The amount of sessions the tick was queued to.
+     */
+    @Override
+    public int sendTick(@NotNull EncodedTick tick) {
+        return broadcaster.broadcast(tick);
     }
 }
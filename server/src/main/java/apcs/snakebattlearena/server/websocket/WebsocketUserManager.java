@@ -1,35 +1,120 @@
 package apcs.snakebattlearena.server.websocket;
 
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import apcs.snakebattlearena.server.game.PlayerConnections;
+import apcs.snakebattlearena.server.game.PlayerRegistry;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Manage websocket connections based on their associated user ID.
  */
 @Configuration
-public class WebsocketUserManager {
+public class WebsocketUserManager implements PlayerConnections {
+    /**
+     * Session attribute holding the handle of the connection's snake once it joined.
+     */
+    private static final String SNAKE_HANDLE_ATTRIBUTE = "snakeHandle";
+
+    /**
+     * Stores all active websocket connections by the associated random principal ID -> websocket connection.
+     */
+    private final Map<String, WeakReference<WebSocketSession>> sessions = new HashMap<>();
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
-    private WebsocketController controller;
+    private PlayerRegistry players;
+
+    /**
+     * Stores a newly established websocket connection by its user ID.
+     */
+    public void addSession(@NotNull String id, @NotNull WebSocketSession session) {
+        synchronized (sessions) {
+            sessions.put(id, new WeakReference<>(session));
+        }
+    }
+
+    /**
+     * Removes a closed websocket connection, and removes the
+     * user's snake from the game at the next tick if they had one.
+     */
+    public void removeSession(@NotNull String id) {
+        synchronized (sessions) {
+            sessions.remove(id);
+        }
+
+        ServerSnake snake = players.getById(id);
+        if (snake != null) {
+            snake.requestDisconnect();
+        }
+    }
+
+    /**
+     * Remembers the handle of a user's snake in their session attributes after joining,
+     * so that moves can find the snake by its handle, refer to {@link PlayerRegistry#getByHandle(int)}.
+     */
+    public void rememberSnake(@NotNull String id, @Nullable Map<String, Object> attributes) {
+        ServerSnake snake = players.getById(id);
+        if (snake != null && attributes != null) {
+            attributes.put(SNAKE_HANDLE_ATTRIBUTE, snake.getHandle());
+        }
+    }
+
+    /**
+     * Gets the snake remembered in a user's session attributes, if they joined and it is still alive.
+     */
+    @Nullable
+    public ServerSnake getSnake(@Nullable Map<String, Object> attributes) {
+        Object handle = attributes != null ? attributes.get(SNAKE_HANDLE_ATTRIBUTE) : null;
+        return handle != null ? players.getByHandle((Integer) handle) : null;
+    }
+
+    /**
+     * Gets the amount of open websocket connections.
+     */
+    public int getSessionCount() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    /**
+     * Checks whether a user's connection can receive binary frames,
+     * which is only the case for plain websocket connections and not SockJS.
+     */
+    public boolean supportsBinary(@NotNull String id) {
+        WebSocketSession session;
+
+        synchronized (sessions) {
+            WeakReference<WebSocketSession> sessionRef = sessions.get(id);
+            session = sessionRef != null ? sessionRef.get() : null;
+        }
+
+        return session != null && !(session instanceof SockJsSession);
+    }
 
     /**
      * Disconnects a user's websocket connection by their unique ID.
      * @return Whether the user had an active connection that was removed.
      */
+    @Override
     public boolean disconnectUser(@NotNull String id) {
         WebSocketSession session;
 
         // Get the WS session
-        synchronized (controller.sessions) {
-            WeakReference<WebSocketSession> sessionRef = controller.sessions.remove(id);
+        synchronized (sessions) {
+            WeakReference<WebSocketSession> sessionRef = sessions.remove(id);
 
             if (sessionRef == null || (session = sessionRef.get()) == null) {
                 return false;
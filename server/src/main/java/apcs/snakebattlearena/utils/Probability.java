@@ -11,9 +11,20 @@ import java.util.Random;
  * @param <V> Item value type
  */
 public class Probability<V> {
-    private final Random random = new Random();
+    private final Random random;
     private final ArrayList<Item> items = new ArrayList<>();
 
+    public Probability() {
+        this(new Random());
+    }
+
+    /**
+     * @param random The source of randomness, which can be seeded for reproducible values.
+     */
+    public Probability(@NotNull Random random) {
+        this.random = random;
+    }
+
     /**
      * Add a value to the set of possible values. The sum of probabilities must not exceed 1.0
      * @param value       The target value
@@ -0,0 +1,125 @@
+package apcs.snakebattlearena.server.game;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.entities.Apple;
+import apcs.snakebattlearena.entities.Entity;
+import apcs.snakebattlearena.entities.Snake;
+import apcs.snakebattlearena.models.DeathReason;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardTest {
+    private final Board board = new Board((short) 32, (short) 32, new Random(1));
+
+    @Test
+    void collidesSnakesMovingIntoTheSameSquare() {
+        Snake first = spawn("a", Point.of(4, 5));
+        Snake second = spawn("b", Point.of(6, 5));
+        assertEquals(Arrays.asList(), processCollisions());
+
+        assertTrue(board.moveSnake(first, Point.of(5, 5)));
+        assertTrue(board.moveSnake(second, Point.of(5, 5)));
+
+        assertEquals(Arrays.asList(first, second), processCollisions());
+        assertEquals(DeathReason.COLLISION, first.getDeathReason());
+        assertEquals(DeathReason.COLLISION, second.getDeathReason());
+        assertEquals(0, board.occupyingCount(Point.of(5, 5)));
+    }
+
+    @Test
+    void onlyProcessesTouchedSquaresOnce() {
+        Snake snake = spawn("a", Point.of(4, 5));
+        Apple apple = new Apple(Point.of(5, 5), 2);
+        board.addOccupier(apple.getPosition(), apple);
+
+        // The square is touched twice before it is processed
+        assertTrue(board.moveSnake(snake, Point.of(5, 5)));
+        assertTrue(board.removeOccupier(Point.of(5, 5), snake));
+        board.addOccupier(Point.of(5, 5), snake);
+
+        assertEquals(Arrays.asList(apple), processCollisions());
+        assertEquals(2, snake.getCurledLength());
+
+        // Nothing was touched since
+        assertEquals(Arrays.asList(), processCollisions());
+    }
+
+    @Test
+    void processesEveryTouchedSquare() {
+        List<Snake> snakes = new ArrayList<>();
+
+        // More squares than the initial capacity of the dirty list
+        for (int x = 0; x < 32; x++) {
+            for (int y = 0; y < 4; y++) {
+                snakes.add(spawn(x + "," + y + "a", Point.of(x, y)));
+                snakes.add(spawn(x + "," + y + "b", Point.of(x, y)));
+            }
+        }
+
+        List<Entity<?>> removed = processCollisions();
+        assertEquals(snakes.size(), removed.size());
+        assertTrue(snakes.stream().allMatch(Snake::isDead));
+    }
+
+    @Test
+    void letsSnakesFollowTheirOwnTail() {
+        Snake snake = spawn("a", Point.of(1, 1));
+        snake.internalAddCurledLength(3);
+
+        // Grow into a square, then keep moving around it
+        Point[] square = {Point.of(2, 1), Point.of(2, 2), Point.of(1, 2), Point.of(1, 1)};
+        for (int i = 0; i < 3 * square.length; i++) {
+            assertTrue(board.moveSnake(snake, square[i % square.length]));
+            assertEquals(Arrays.asList(), processCollisions(), "Move " + i);
+        }
+
+        assertFalse(snake.isDead());
+        assertEquals(4, snake.getLength());
+
+        // Turning back into its body is a collision with itself
+        assertTrue(board.moveSnake(snake, snake.getBody().get(0)));
+        assertEquals(Arrays.asList(snake), processCollisions());
+        assertEquals(DeathReason.SELF_COLLISION, snake.getDeathReason());
+    }
+
+    @Test
+    void doesNotMoveOffTheBoard() {
+        Snake snake = spawn("a", Point.of(0, 0));
+
+        assertFalse(board.moveSnake(snake, Point.of(-1, 0)));
+        assertEquals(Point.of(0, 0), snake.getHead());
+        assertEquals(1, board.occupyingCount(Point.of(0, 0)));
+    }
+
+    @Test
+    void spawnsOnlyOnEmptySquares() {
+        Board small = new Board((short) 3, (short) 3, new Random(2));
+
+        for (int i = 0; i < 9; i++) {
+            Point point = small.getRandomPoint();
+            assertEquals(0, small.occupyingCount(point));
+            small.addOccupier(point, new Apple(point, 1));
+        }
+
+        assertThrows(IllegalStateException.class, small::getRandomPoint);
+    }
+
+    private Snake spawn(String name, Point head) {
+        Snake snake = new Snake(name, Color.RED, head);
+        board.addOccupier(head, snake);
+        return snake;
+    }
+
+    private List<Entity<?>> processCollisions() {
+        List<Entity<?>> removed = new ArrayList<>();
+        board.processCollisions(removed);
+        return removed;
+    }
+}
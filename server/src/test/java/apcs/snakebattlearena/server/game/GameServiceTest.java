@@ -0,0 +1,135 @@
+package apcs.snakebattlearena.server.game;
+
+import apcs.snakebattlearena.models.DeathReason;
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.models.MoveData;
+import apcs.snakebattlearena.models.entities.AppleData;
+import apcs.snakebattlearena.models.entities.EntityData;
+import apcs.snakebattlearena.models.entities.SnakeData;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import apcs.snakebattlearena.util.TickState;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameServiceTest {
+    /**
+     * Plays a busy game, and checks that applying its ticks always ends up with the snakes that are still alive.
+     */
+    @Test
+    void rebuildsTheEntitiesOfAGame() {
+        TickState state = new TickState();
+        PlayerRegistry players = new PlayerRegistry();
+        ScheduledExecutorService executor = TickScheduler.newExecutor("test-tick", 1);
+        List<DeltaTickData> deltas = new ArrayList<>();
+        List<List<EntityData>> removed = new ArrayList<>();
+
+        ArenaConfig config = new ArenaConfig();
+        config.setBoardWidth((short) 24);
+        config.setBoardHeight((short) 24);
+        config.setAppleCount(20);
+        config.setKeyframeInterval(50);
+        config.setSeed(1L);
+
+        GameService game = new GameService("test", config, players, executor, (arena, inputs, delta, removedData, simulateNanos) -> {
+            deltas.add(delta);
+            removed.add(removedData);
+        });
+
+        try {
+            Random moves = new Random(2);
+            int keyframeCount = 0;
+
+            for (int tick = 0; tick < 500; tick++) {
+                // Keep joining, so that snakes collide, eat and get replaced
+                if (tick % 5 == 0) {
+                    String id = "snake-" + tick;
+                    game.addPlayer(id, SnakeMetadata.Builder.builder().setName(id).setColor(Color.RED).build());
+                }
+
+                for (ServerSnake snake : players.getPlayers()) {
+                    Direction direction = Direction.values()[moves.nextInt(Direction.values().length)];
+                    snake.queueMove(MoveData.Builder.builder().setDirection(direction).build());
+                }
+
+                // Ticks without any snakes aren't published
+                int published = deltas.size();
+                game.gameTick();
+                if (deltas.size() == published) continue;
+
+                DeltaTickData delta = deltas.get(deltas.size() - 1);
+                state.apply(delta);
+                if (delta.isKeyframe()) keyframeCount++;
+
+                List<EntityData> snakes = new ArrayList<>();
+                players.getPlayers().forEach(snake -> snakes.add(snake.toJsonData()));
+
+                List<EntityData> entities = state.getEntities();
+                assertEquals(sorted(snakes), sorted(filter(entities, SnakeData.class)), "Tick " + tick);
+                assertEquals(game.getEntityCount(), entities.size(), "Tick " + tick);
+                for (EntityData apple : filter(entities, AppleData.class)) {
+                    assertEquals(1, game.getBoard().occupyingCount(((AppleData) apple).getPosition()), "Tick " + tick);
+                }
+
+                // The state only knows removed entities as they were last sent, so not whether they were eaten
+                // or how they died, and keyframes don't have the last move of removed snakes.
+                // The game also has snakes that joined and died within the tick, which were never sent at all.
+                List<EntityData> gameRemoved = removed.get(removed.size() - 1);
+                assertTrue(identities(gameRemoved).containsAll(identities(state.getLastRemoved())), "Tick " + tick);
+                assertTrue(gameRemoved.size() - state.getLastRemoved().size() <= 1, "Tick " + tick);
+            }
+
+            assertTrue(deltas.size() > 450);
+            assertTrue(keyframeCount >= 9);
+
+            long deaths = 0;
+            for (DeathReason reason : DeathReason.values()) {
+                deaths += game.getDeathCount(reason);
+            }
+            assertTrue(deaths > 50, "Only " + deaths + " snakes died");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the name of each snake and the position of each apple, in order.
+     */
+    private static List<String> identities(List<EntityData> entities) {
+        List<String> identities = new ArrayList<>();
+        for (EntityData entity : entities) {
+            identities.add(entity instanceof SnakeData
+                    ? ((SnakeData) entity).getMetadata().getName()
+                    : ((AppleData) entity).getPosition().toString());
+        }
+
+        Collections.sort(identities);
+        return identities;
+    }
+
+    private static List<EntityData> filter(List<EntityData> entities, Class<? extends EntityData> type) {
+        List<EntityData> filtered = new ArrayList<>();
+        for (EntityData entity : entities) {
+            if (type.isInstance(entity)) filtered.add(entity);
+        }
+        return filtered;
+    }
+
+    /**
+     * Sorts entities by their string form, since their order isn't part of the state.
+     */
+    private static List<EntityData> sorted(List<EntityData> entities) {
+        List<EntityData> sorted = new ArrayList<>(entities);
+        sorted.sort((a, b) -> a.toString().compareTo(b.toString()));
+        return sorted;
+    }
+}
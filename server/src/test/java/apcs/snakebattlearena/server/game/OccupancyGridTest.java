@@ -0,0 +1,270 @@
+package apcs.snakebattlearena.server.game;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.entities.Apple;
+import apcs.snakebattlearena.entities.Entity;
+import apcs.snakebattlearena.entities.Snake;
+import apcs.snakebattlearena.entities.Wall;
+import apcs.snakebattlearena.models.DeathReason;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that each square behaves like the <code>BoardSquare</code> it replaced.
+ */
+class OccupancyGridTest {
+    private final OccupancyGrid grid = new OccupancyGrid(4, 4);
+    private final int cell = grid.cellOf(1, 2);
+
+    @Test
+    void addsAndRemovesOccupiers() {
+        Snake snake = snake("a");
+        Apple apple = new Apple(Point.of(1, 2), 1);
+
+        grid.addOccupier(cell, snake);
+        grid.addOccupier(cell, apple);
+        assertEquals(2, grid.occupyingCount(cell));
+        assertEquals(0, grid.occupyingCount(grid.cellOf(2, 1)));
+
+        assertTrue(grid.removeOccupier(cell, snake));
+        assertFalse(grid.removeOccupier(cell, snake));
+        assertFalse(grid.removeOccupier(grid.cellOf(2, 1), apple));
+        assertEquals(1, grid.occupyingCount(cell));
+    }
+
+    @Test
+    void limitsOccupiersPerSquare() {
+        for (int i = 0; i < OccupancyGrid.MAX_OCCUPIERS; i++) {
+            grid.addOccupier(cell, snake("snake" + i));
+        }
+
+        assertThrows(IllegalStateException.class, () -> grid.addOccupier(cell, snake("extra")));
+        assertEquals(OccupancyGrid.MAX_OCCUPIERS, grid.occupyingCount(cell));
+    }
+
+    @Test
+    void ignoresASingleOccupier() {
+        Snake snake = snake("a");
+        grid.addOccupier(cell, snake);
+
+        assertEquals(Arrays.asList(), process());
+        assertFalse(snake.isDead());
+        assertEquals(1, grid.occupyingCount(cell));
+    }
+
+    @Test
+    void killsCollidingSnakes() {
+        Snake first = snake("a");
+        Snake second = snake("b");
+        grid.addOccupier(cell, first);
+        grid.addOccupier(cell, second);
+
+        assertEquals(Arrays.asList(first, second), process());
+        assertEquals(DeathReason.COLLISION, first.getDeathReason());
+        assertEquals(DeathReason.COLLISION, second.getDeathReason());
+        assertEquals(0, grid.occupyingCount(cell));
+    }
+
+    @Test
+    void killsSnakesRunningIntoWalls() {
+        Snake snake = snake("a");
+        Wall wall = new Wall(Point.of(1, 2), Point.of(1, 2));
+        grid.addOccupier(cell, wall);
+        grid.addOccupier(cell, snake);
+
+        assertEquals(Arrays.asList(snake), process());
+        assertEquals(DeathReason.COLLISION, snake.getDeathReason());
+
+        // The wall stays
+        assertEquals(1, grid.occupyingCount(cell));
+        assertTrue(grid.removeOccupier(cell, wall));
+    }
+
+    @Test
+    void feedsApplesToSnakes() {
+        Snake snake = snake("a");
+        Apple apple = new Apple(Point.of(1, 2), 3);
+        grid.addOccupier(cell, apple);
+        grid.addOccupier(cell, snake);
+
+        assertEquals(Arrays.asList(apple), process());
+        assertTrue(apple.isEaten());
+        assertFalse(snake.isDead());
+        assertEquals(3, snake.getCurledLength());
+
+        assertEquals(1, grid.occupyingCount(cell));
+        assertTrue(grid.removeOccupier(cell, snake));
+    }
+
+    @Test
+    void skipsSnakesThatAreAlreadyDead() {
+        Snake dead = snake("dead");
+        dead.internalSetDead(DeathReason.DISCONNECT);
+        Snake first = snake("a");
+        Snake second = snake("b");
+        grid.addOccupier(cell, dead);
+        grid.addOccupier(cell, first);
+        grid.addOccupier(cell, second);
+
+        assertEquals(Arrays.asList(first, second), process());
+        assertEquals(DeathReason.DISCONNECT, dead.getDeathReason());
+
+        // Dead snakes are still removed from the square
+        assertEquals(0, grid.occupyingCount(cell));
+    }
+
+    /**
+     * BoardSquare never got to see the second part of the snake, since it was filtered out once the snake was dead.
+     */
+    @Test
+    void reportsSelfCollisions() {
+        Snake snake = snake("a");
+        grid.addOccupier(cell, snake);
+        grid.addOccupier(cell, snake);
+
+        assertEquals(Arrays.asList(snake), process());
+        assertEquals(DeathReason.SELF_COLLISION, snake.getDeathReason());
+        assertEquals(0, grid.occupyingCount(cell));
+    }
+
+    /**
+     * BoardSquare dropped the apple from the square without reporting it as removed, which left it on the board for good.
+     */
+    @Test
+    void keepsApplesUnderCollidingSnakes() {
+        Apple apple = new Apple(Point.of(1, 2), 1);
+        Snake first = snake("a");
+        Snake second = snake("b");
+        grid.addOccupier(cell, apple);
+        grid.addOccupier(cell, first);
+        grid.addOccupier(cell, second);
+
+        assertEquals(Arrays.asList(first, second), process());
+        assertFalse(apple.isEaten());
+        assertEquals(1, grid.occupyingCount(cell));
+        assertTrue(grid.removeOccupier(cell, apple));
+    }
+
+    @Test
+    void tellsApartEqualEntities() {
+        // Snakes are compared by value, but each one is still its own occupier
+        Snake first = snake("a");
+        Snake second = snake("a");
+        assertEquals(first, second);
+
+        grid.addOccupier(cell, first);
+        grid.addOccupier(grid.cellOf(0, 0), second);
+
+        assertFalse(grid.removeOccupier(cell, second));
+        assertTrue(grid.removeOccupier(cell, first));
+        assertTrue(grid.removeOccupier(grid.cellOf(0, 0), second));
+    }
+
+    @Test
+    void indexesEveryFreeCell() {
+        Random rnd = new Random(1);
+        List<List<Entity<?>>> occupiers = new ArrayList<>();
+        for (int cell = 0; cell < 16; cell++) {
+            occupiers.add(new ArrayList<>());
+        }
+
+        // Fill and empty cells in a random order, so that cells are swapped around in the index
+        for (int i = 0; i < 1000; i++) {
+            int cell = rnd.nextInt(16);
+            List<Entity<?>> entities = occupiers.get(cell);
+
+            if (entities.isEmpty() || (entities.size() < 3 && rnd.nextBoolean())) {
+                Apple apple = new Apple(Point.of(cell % 4, cell / 4), 1);
+                grid.addOccupier(cell, apple);
+                entities.add(apple);
+            } else {
+                assertTrue(grid.removeOccupier(cell, entities.remove(rnd.nextInt(entities.size()))));
+            }
+
+            Set<Integer> expected = new HashSet<>();
+            for (int free = 0; free < 16; free++) {
+                if (occupiers.get(free).isEmpty()) expected.add(free);
+            }
+            assertEquals(expected, freeCells(), "Step " + i);
+        }
+    }
+
+    @Test
+    void freesCellsEmptiedByCollisions() {
+        grid.addOccupier(cell, snake("a"));
+        grid.addOccupier(cell, snake("b"));
+        assertFalse(freeCells().contains(cell));
+
+        process();
+        assertTrue(freeCells().contains(cell));
+    }
+
+    @Test
+    void runsOutOfFreeCells() {
+        for (int i = 0; i < 16; i++) {
+            grid.addOccupier(i, new Apple(Point.of(i % 4, i / 4), 1));
+        }
+        assertEquals(-1, grid.randomFreeCell(new Random()));
+
+        Apple apple = new Apple(Point.of(1, 2), 1);
+        grid.addOccupier(cell, apple);
+        assertTrue(grid.removeOccupier(cell, apple));
+        assertEquals(-1, grid.randomFreeCell(new Random()));
+    }
+
+    /**
+     * Lists the free cell index by picking each of its positions in turn.
+     */
+    private Set<Integer> freeCells() {
+        int[] freeCount = {0};
+        if (grid.randomFreeCell(new FixedRandom(0, freeCount)) < 0) return new HashSet<>();
+
+        Set<Integer> cells = new HashSet<>();
+        for (int i = 0; i < freeCount[0]; i++) {
+            cells.add(grid.randomFreeCell(new FixedRandom(i, freeCount)));
+        }
+
+        assertEquals(freeCount[0], cells.size(), "Free cells are listed once");
+        return cells;
+    }
+
+    private List<Entity<?>> process() {
+        List<Entity<?>> removed = new ArrayList<>();
+        grid.process(cell, removed);
+        return removed;
+    }
+
+    private static Snake snake(String name) {
+        return new Snake(name, Color.RED, Point.of(1, 2));
+    }
+
+    /**
+     * Always picks the same value, and records the bound it picked from.
+     */
+    private static class FixedRandom extends Random {
+        private static final long serialVersionUID = 1L;
+
+        private final int value;
+        private final int[] bound;
+
+        FixedRandom(int value, int[] bound) {
+            this.value = value;
+            this.bound = bound;
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            this.bound[0] = bound;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package apcs.snakebattlearena.server.game;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.server.entities.ServerSnake;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerRegistryTest {
+    private final PlayerRegistry players = new PlayerRegistry();
+
+    @Test
+    void indexesSnakesByHandle() {
+        ServerSnake first = register("a", "first");
+        ServerSnake second = register("b", "second");
+
+        assertNotEquals(first.getHandle(), second.getHandle());
+        assertSame(first, players.getByHandle(first.getHandle()));
+        assertSame(second, players.getByHandle(second.getHandle()));
+        assertSame(second, players.getById("b"));
+        assertSame(second, players.getByName("second"));
+        assertNull(players.getByHandle(0));
+    }
+
+    @Test
+    void neverReusesHandles() {
+        ServerSnake snake = register("a", "snake");
+        assertTrue(players.remove(snake));
+
+        assertNull(players.getByHandle(snake.getHandle()));
+        assertNull(players.getById("a"));
+        assertNull(players.getByName("snake"));
+        assertFalse(players.remove(snake));
+
+        // The same player joining again gets a new handle, so stale handles can't move it
+        ServerSnake rejoined = register("a", "snake");
+        assertNotEquals(snake.getHandle(), rejoined.getHandle());
+        assertNull(players.getByHandle(snake.getHandle()));
+    }
+
+    @Test
+    void sharesHandlesWithEntityIds() {
+        ServerSnake snake = register("a", "snake");
+        assertEquals(snake.getHandle() + 1, players.nextEntityId());
+    }
+
+    private ServerSnake register(String id, String name) {
+        SnakeMetadata metadata = SnakeMetadata.Builder.builder()
+                .setName(name)
+                .setColor(Color.RED)
+                .build();
+
+        return players.register(id, metadata, Point.of(0, 0));
+    }
+}
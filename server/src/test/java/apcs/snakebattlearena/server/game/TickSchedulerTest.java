@@ -0,0 +1,131 @@
+package apcs.snakebattlearena.server.game;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs real schedulers, so timings are only checked to within a few milliseconds of scheduling noise.
+ */
+class TickSchedulerTest {
+    private static final long PERIOD_MS = 50;
+    private static final long SLOW_TICK_MS = 260;
+    private static final long TOLERANCE_MS = 25;
+
+    private final ScheduledExecutorService executor = TickScheduler.newExecutor("test-tick", 1);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void catchesUpOnMissedTicks() throws InterruptedException {
+        Ticks ticks = new Ticks(10);
+        TickScheduler scheduler = new TickScheduler("test", PERIOD_MS, TickScheduler.OverrunPolicy.CATCH_UP, executor, ticks::run);
+
+        scheduler.start();
+        try {
+            assertTrue(ticks.await());
+        } finally {
+            scheduler.stop();
+        }
+
+        // Missed ticks are also late to finish until the schedule has caught up
+        assertTrue(scheduler.getOverrunCount() >= 1);
+        assertEquals(0, scheduler.getSkippedTickCount());
+
+        // The missed ticks run back to back, right after the slow one
+        long slowEnd = ticks.get(0) + SLOW_TICK_MS;
+        assertTrue(ticks.get(1) - slowEnd < TOLERANCE_MS, "The first missed tick waited");
+        assertTrue(ticks.get(2) - ticks.get(1) < TOLERANCE_MS, "The second missed tick waited");
+
+        // Then the schedule continues as if nothing happened
+        assertEquals(9 * PERIOD_MS, ticks.get(9) - ticks.get(0), TOLERANCE_MS);
+    }
+
+    @Test
+    void skipsMissedTicks() throws InterruptedException {
+        Ticks ticks = new Ticks(4);
+        TickScheduler scheduler = new TickScheduler("test", PERIOD_MS, TickScheduler.OverrunPolicy.SKIP, executor, ticks::run);
+
+        scheduler.start();
+        try {
+            assertTrue(ticks.await());
+        } finally {
+            scheduler.stop();
+        }
+
+        assertEquals(1, scheduler.getOverrunCount());
+        long skipped = scheduler.getSkippedTickCount();
+        assertTrue(skipped >= SLOW_TICK_MS / PERIOD_MS, "Only skipped " + skipped + " ticks");
+
+        // The next tick waits for the first deadline after the slow one, so ticks stay on the same schedule
+        long next = ticks.get(1) - ticks.get(0);
+        assertTrue(next >= SLOW_TICK_MS, "The next tick started during the slow one");
+        assertEquals((skipped + 1) * PERIOD_MS, next, TOLERANCE_MS);
+        assertEquals(PERIOD_MS, ticks.get(2) - ticks.get(1), TOLERANCE_MS);
+        assertEquals(PERIOD_MS, ticks.get(3) - ticks.get(2), TOLERANCE_MS);
+    }
+
+    @Test
+    void stopsRunningTicks() throws InterruptedException {
+        Ticks ticks = new Ticks(1);
+        TickScheduler scheduler = new TickScheduler("test", PERIOD_MS, TickScheduler.OverrunPolicy.CATCH_UP, executor, ticks::run);
+
+        scheduler.start();
+        assertTrue(ticks.await());
+        scheduler.stop();
+
+        long count = scheduler.getTickCount();
+        Thread.sleep(3 * PERIOD_MS);
+        assertEquals(count, scheduler.getTickCount());
+    }
+
+    /**
+     * Records when each tick started in milliseconds, with a slow first tick.
+     */
+    private static class Ticks {
+        private final List<Long> starts = new ArrayList<>();
+        private final CountDownLatch latch;
+
+        Ticks(int count) {
+            this.latch = new CountDownLatch(count);
+        }
+
+        void run() {
+            boolean first;
+            synchronized (starts) {
+                first = starts.isEmpty();
+                starts.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+            }
+
+            if (first) {
+                try {
+                    Thread.sleep(SLOW_TICK_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            latch.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(10, TimeUnit.SECONDS);
+        }
+
+        long get(int tick) {
+            synchronized (starts) {
+                return starts.get(tick);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package apcs.snakebattlearena.server.replay;
+
+import apcs.snakebattlearena.Point;
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.Direction;
+import apcs.snakebattlearena.models.entities.SnakeMetadata;
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+import apcs.snakebattlearena.server.game.TickInputs;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayFormatTest {
+    @Test
+    void readsHeaders() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        ReplayFormat.writeHeader(buffer, 42, 1234567890123L, 300, 200, "ar\u00e8na");
+
+        // The name is 6 bytes of UTF-8
+        assertEquals(ReplayFormat.HEADER_SIZE + 6, buffer.position());
+        buffer.flip();
+
+        ReplayFormat.SegmentHeader header = ReplayFormat.readHeader(buffer);
+        assertEquals(42, header.startTick);
+        assertEquals(1234567890123L, header.createdMillis);
+        assertEquals(300, header.boardWidth);
+        assertEquals(200, header.boardHeight);
+        assertEquals("ar\u00e8na", header.arena);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        ReplayFormat.writeHeader(buffer, 1, 0, 10, 10, "main");
+        buffer.flip();
+
+        ByteBuffer otherMagic = buffer.duplicate();
+        otherMagic.putInt(0, 0);
+        assertThrows(IOException.class, () -> ReplayFormat.readHeader(otherMagic));
+
+        ByteBuffer otherVersion = buffer.duplicate();
+        otherVersion.putInt(4, ReplayFormat.VERSION + 1);
+        assertThrows(IOException.class, () -> ReplayFormat.readHeader(otherVersion));
+
+        assertThrows(IOException.class, () -> ReplayFormat.readHeader(ByteBuffer.allocate(3)));
+    }
+
+    @Test
+    void readsTicks() {
+        SnakeMetadata metadata = SnakeMetadata.Builder.builder()
+                .setName("sn\u00e4ke \uD83D\uDC0D")
+                .setColor(new Color(12, 34, 56))
+                .build();
+        TickInputs inputs = new TickInputs(
+                Arrays.asList(new TickInputs.Join(7, "player-7", metadata, Point.of(299, 0)),
+                        new TickInputs.Join(8, "", metadata, Point.of(0, 199))),
+                Arrays.asList(3, Integer.MAX_VALUE),
+                Arrays.asList(new TickInputs.Move(1, Direction.UP),
+                        new TickInputs.Move(2, Direction.LEFT),
+                        new TickInputs.Move(3, Direction.DOWN),
+                        new TickInputs.Move(4, Direction.RIGHT)));
+        byte[] delta = BinaryTickCodec.encode(DeltaTickData.Builder.builder()
+                .setTick(123456789)
+                .setRemoved(Arrays.asList(5, 6))
+                .build());
+
+        ByteBuffer body = ByteBuffer.allocate(1024);
+        ReplayFormat.writeTick(body, inputs, delta);
+        body.flip();
+
+        assertFalse(ReplayFormat.isKeyframe(body));
+        assertEquals(0, body.position());
+
+        TickInputs read = ReplayFormat.readInputs(body);
+        assertEquals(2, read.getJoins().size());
+        for (int i = 0; i < 2; i++) {
+            TickInputs.Join expected = inputs.getJoins().get(i);
+            TickInputs.Join actual = read.getJoins().get(i);
+
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getPlayerId(), actual.getPlayerId());
+            assertEquals(expected.getMetadata(), actual.getMetadata());
+            assertEquals(expected.getSpawn(), actual.getSpawn());
+        }
+        assertEquals(inputs.getLeaves(), read.getLeaves());
+        assertEquals(4, read.getMoves().size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(inputs.getMoves().get(i).getId(), read.getMoves().get(i).getId());
+            assertEquals(inputs.getMoves().get(i).getDirection(), read.getMoves().get(i).getDirection());
+        }
+
+        assertArrayEquals(delta, ReplayFormat.readDelta(body));
+        assertFalse(body.hasRemaining());
+    }
+
+    @Test
+    void findsKeyframesWithoutDecoding() {
+        TickInputs inputs = new TickInputs(Collections.emptyList(), Collections.singletonList(1), Collections.emptyList());
+
+        // Tick numbers of every varint length
+        for (long tick : new long[]{0, 1, 127, 128, 16384, Integer.MAX_VALUE, Long.MAX_VALUE}) {
+            for (boolean keyframe : new boolean[]{false, true}) {
+                byte[] delta = BinaryTickCodec.encode(DeltaTickData.Builder.builder()
+                        .setTick(tick)
+                        .setKeyframe(keyframe)
+                        .build());
+
+                ByteBuffer body = ByteBuffer.allocate(256);
+                ReplayFormat.writeTick(body, inputs, delta);
+                body.flip();
+
+                assertEquals(keyframe, ReplayFormat.isKeyframe(body), "Tick " + tick);
+            }
+        }
+    }
+
+    @Test
+    void validatesIndexes() {
+        ByteBuffer index = ByteBuffer.allocate(ReplayFormat.INDEX_HEADER_SIZE + 2 * ReplayFormat.INDEX_ENTRY_SIZE);
+        index.putLong(1).putLong(20).putInt(2);
+        index.putLong(1).putInt(ReplayFormat.HEADER_SIZE);
+        index.putLong(11).putInt(1000);
+        byte[] bytes = index.array();
+
+        ByteBuffer read = ReplayFormat.readIndex(bytes);
+        assertNotNull(read);
+        assertEquals(1, read.getLong());
+        assertEquals(20, read.getLong());
+        assertEquals(2, read.getInt());
+
+        assertNull(ReplayFormat.readIndex(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertNull(ReplayFormat.readIndex(Arrays.copyOf(bytes, bytes.length + ReplayFormat.INDEX_ENTRY_SIZE)));
+        assertNull(ReplayFormat.readIndex(Arrays.copyOf(bytes, ReplayFormat.INDEX_HEADER_SIZE - 1)));
+
+        // A negative count
+        ByteBuffer.wrap(bytes).putInt(8 + 8, -1);
+        assertNull(ReplayFormat.readIndex(bytes));
+    }
+}
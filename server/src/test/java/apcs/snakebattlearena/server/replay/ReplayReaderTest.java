@@ -0,0 +1,156 @@
+package apcs.snakebattlearena.server.replay;
+
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+import apcs.snakebattlearena.server.game.TickInputs;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayReaderTest {
+    private static final TickInputs NO_INPUTS = new TickInputs(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+    /**
+     * Small enough for a handful of ticks per segment.
+     */
+    private static final int SEGMENT_SIZE = 512;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsFinishedSegmentsFromTheirIndex() throws IOException {
+        try (ReplayLog log = newLog()) {
+            appendTicks(log, 1, 100);
+        }
+
+        List<Path> indexes = list(ReplayFormat.INDEX_EXTENSION);
+        assertTrue(indexes.size() > 1, "The recording should span several segments");
+
+        // The first segment starts with the first tick
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexes.get(0)));
+        assertEquals(1, index.getLong());
+        assertTrue(index.getLong() > 1);
+
+        ReplayReader reader = new ReplayReader(directory);
+        assertTrue(reader.isFinished());
+        assertEquals(1, reader.getFirstTick());
+        assertEquals(100, reader.getLastTick());
+        assertEquals(10, reader.getKeyframeCount());
+
+        ReplayReader.Cursor cursor = reader.seek(55);
+        assertNotNull(cursor);
+        assertEquals(55, cursor.getCurrent().getTick());
+        assertEquals(56, cursor.next().getTick());
+    }
+
+    @Test
+    void scansSegmentsWithAnInvalidIndex() throws IOException {
+        try (ReplayLog log = newLog()) {
+            appendTicks(log, 1, 100);
+        }
+
+        // As if the server crashed while writing it
+        for (Path index : list(ReplayFormat.INDEX_EXTENSION)) {
+            byte[] bytes = Files.readAllBytes(index);
+            Files.write(index, Arrays.copyOf(bytes, bytes.length - 1));
+        }
+
+        ReplayReader reader = new ReplayReader(directory);
+        assertFalse(reader.isFinished());
+        assertEquals(1, reader.getFirstTick());
+        assertEquals(100, reader.getLastTick());
+        assertEquals(10, reader.getKeyframeCount());
+        assertEquals(100, reader.seek(100).getCurrent().getTick());
+    }
+
+    @Test
+    void refreshesARecordingInProgress() throws IOException {
+        try (ReplayLog log = newLog()) {
+            appendTicks(log, 1, 5);
+
+            ReplayReader reader = new ReplayReader(directory);
+            assertFalse(reader.isFinished());
+            assertEquals(5, reader.getLastTick());
+            assertNull(reader.seek(6));
+
+            ReplayReader.Cursor cursor = reader.seekToStart();
+            assertNotNull(cursor);
+
+            appendTicks(log, 6, 100);
+            reader.refresh();
+            assertEquals(100, reader.getLastTick());
+            assertEquals(10, reader.getKeyframeCount());
+
+            // An existing cursor carries on through the new records without gaps
+            for (long tick = 2; tick <= 100; tick++) {
+                assertEquals(tick, cursor.next().getTick());
+            }
+            assertNull(cursor.next());
+        }
+    }
+
+    @Test
+    void continuesFromTheEndOfARecordingInProgress() throws IOException {
+        try (ReplayLog log = newLog()) {
+            appendTicks(log, 1, 5);
+
+            ReplayReader reader = new ReplayReader(directory);
+            ReplayReader.Cursor cursor = reader.seekToStart();
+            assertNotNull(cursor);
+            for (long tick = 2; tick <= 5; tick++) {
+                assertEquals(tick, cursor.next().getTick());
+            }
+            assertNull(cursor.next());
+
+            // The cursor stays at the end of the segment being written, then follows it into the next ones
+            appendTicks(log, 6, 100);
+            reader.refresh();
+            for (long tick = 6; tick <= 100; tick++) {
+                assertEquals(tick, cursor.next().getTick());
+            }
+            assertNull(cursor.next());
+        }
+    }
+
+    private ReplayLog newLog() throws IOException {
+        return new ReplayLog(directory, "test", 10, 10, SEGMENT_SIZE);
+    }
+
+    /**
+     * Appends consecutive ticks, with a keyframe every 10 ticks starting from the first one.
+     */
+    private static void appendTicks(ReplayLog log, long from, long to) throws IOException {
+        for (long tick = from; tick <= to; tick++) {
+            DeltaTickData delta = DeltaTickData.Builder.builder()
+                    .setTick(tick)
+                    .setKeyframe(tick % 10 == 1)
+                    .build();
+
+            ByteBuffer body = ByteBuffer.allocate(256);
+            ReplayFormat.writeTick(body, NO_INPUTS, BinaryTickCodec.encode(delta));
+            body.flip();
+
+            log.append(ReplayFormat.TICK, tick, tick * 100, body, delta.isKeyframe());
+        }
+    }
+
+    private List<Path> list(String extension) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(extension))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package apcs.snakebattlearena.server.tcp;
+
+import apcs.snakebattlearena.models.RawCommand;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a connection on a real selector thread, with a loopback socket standing in for the bot.
+ */
+class TcpConnectionTest {
+    private SelectorLoop loop;
+    private RecordingServer server;
+    private SocketChannel client;
+    private TcpConnection connection;
+
+    @BeforeEach
+    void connect() throws Exception {
+        loop = new SelectorLoop("test-selector");
+        loop.start();
+        server = new RecordingServer();
+
+        try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+            listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            client = SocketChannel.open(listener.getLocalAddress());
+
+            SocketChannel channel = listener.accept();
+            channel.configureBlocking(false);
+            connection = new TcpConnection("tcp-test", channel, loop, server, 1024);
+        }
+
+        CountDownLatch registered = new CountDownLatch(1);
+        loop.execute(() -> {
+            try {
+                connection.register();
+            } catch (IOException e) {
+                fail(e);
+            }
+            registered.countDown();
+        });
+        assertTrue(registered.await(5, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        client.close();
+        connection.close();
+        loop.stop();
+    }
+
+    @Test
+    void readsFrames() throws Exception {
+        // Two frames in a single write
+        ByteBuffer both = ByteBuffer.allocate(64)
+                .put(TcpConnection.encodeFrame(RawCommand.MOVE, new byte[]{2}))
+                .put(TcpConnection.encodeFrame(RawCommand.LEAVE, new byte[0]));
+        both.flip();
+        write(both.array(), 0, both.limit());
+
+        assertFrame(RawCommand.MOVE, new byte[]{2}, server.frames.poll(5, TimeUnit.SECONDS));
+        assertFrame(RawCommand.LEAVE, new byte[0], server.frames.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void waitsForSplitFrames() throws Exception {
+        byte[] frame = TcpConnection.encodeFrame(RawCommand.JOIN, "{}".getBytes());
+
+        // Split inside the length, then inside the payload
+        write(frame, 0, 2);
+        Thread.sleep(50);
+        write(frame, 2, 4);
+        Thread.sleep(50);
+        assertTrue(server.frames.isEmpty());
+
+        write(frame, 6, frame.length - 6);
+        assertFrame(RawCommand.JOIN, "{}".getBytes(), server.frames.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void growsForLargeFrames() throws Exception {
+        // Larger than the initial read buffer, and written in pieces
+        byte[] payload = new byte[10_000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        byte[] frame = TcpConnection.encodeFrame(RawCommand.JOIN, payload);
+        for (int offset = 0; offset < frame.length; offset += 3000) {
+            write(frame, offset, Math.min(3000, frame.length - offset));
+            Thread.sleep(20);
+        }
+
+        assertFrame(RawCommand.JOIN, payload, server.frames.poll(5, TimeUnit.SECONDS));
+        assertFalse(server.closed.await(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void closesOnInvalidLengths() throws Exception {
+        // An empty frame has no command
+        write(ByteBuffer.allocate(4).putInt(0).array(), 0, 4);
+
+        assertTrue(server.closed.await(5, TimeUnit.SECONDS));
+        assertEquals(-1, client.read(ByteBuffer.allocate(1)));
+    }
+
+    @Test
+    void closesOnOversizedFrames() throws Exception {
+        write(ByteBuffer.allocate(4).putInt(64 * 1024 + 1).array(), 0, 4);
+
+        assertTrue(server.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(server.frames.isEmpty());
+    }
+
+    @Test
+    void sendsFrames() throws Exception {
+        byte[] payload = {1, 2, 3};
+        connection.send(RawCommand.TICK, payload);
+
+        ByteBuffer received = ByteBuffer.allocate(RawCommand.FRAME_HEADER_LENGTH + payload.length);
+        while (received.hasRemaining()) {
+            assertTrue(client.read(received) >= 0);
+        }
+
+        assertArrayEquals(TcpConnection.encodeFrame(RawCommand.TICK, payload), received.array());
+    }
+
+    @Test
+    void closesSlowConnections() throws Exception {
+        // Nothing is written until the selector thread runs, so the limit is reached right away
+        assertFalse(connection.sendFrame(new byte[1025]));
+        assertTrue(server.closed.await(5, TimeUnit.SECONDS));
+        assertFalse(connection.sendFrame(new byte[1]));
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining()) {
+            client.write(buffer);
+        }
+    }
+
+    private static void assertFrame(RawCommand command, byte[] payload, Frame frame) {
+        assertNotNull(frame);
+        assertEquals(command.id, frame.command);
+        assertArrayEquals(payload, frame.payload);
+    }
+
+    private static class Frame {
+        final int command;
+        final byte[] payload;
+
+        Frame(int command, byte[] payload) {
+            this.command = command;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Records what the connection hands to the server instead of handling it.
+     */
+    private static class RecordingServer extends TcpServer {
+        final BlockingQueue<Frame> frames = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        RecordingServer() {
+            super(null, null, null, null, null);
+        }
+
+        @Override
+        void handleFrame(TcpConnection connection, int commandId, byte[] payload) {
+            frames.add(new Frame(commandId, payload));
+        }
+
+        @Override
+        void onClosed(TcpConnection connection) {
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import apcs.snakebattlearena.server.game.GameConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorStreamTest {
+    private static final String FULL = TickProtocol.getDestination("main", TickProtocol.FULL, TickEncoding.BINARY);
+    private static final String SPECTATE = TickProtocol.getSpectatorDestination("main", TickEncoding.BINARY);
+
+    private final BlockingQueue<Long> received = new LinkedBlockingQueue<>();
+    private TickBroadcaster broadcaster;
+    private SpectatorStream stream;
+
+    @BeforeEach
+    void setup() {
+        GameConfig config = new GameConfig();
+        config.setSpectatorFrameDivisor(3);
+
+        broadcaster = new TickBroadcaster(config);
+        stream = new SpectatorStream(broadcaster, config);
+    }
+
+    @Test
+    void onlyWantsFullTicksOfWatchedArenas() {
+        assertFalse(stream.wantsTick(FULL, 0));
+
+        spectate();
+
+        assertTrue(stream.wantsTick(FULL, 0));
+        assertFalse(stream.wantsTick(TickProtocol.getDestination("main", TickProtocol.DELTA, TickEncoding.BINARY), 0));
+        assertFalse(stream.wantsTick(TickProtocol.getDestination("main", TickProtocol.FULL, TickEncoding.JSON), 0));
+        assertFalse(stream.wantsTick(TickProtocol.getDestination("other", TickProtocol.FULL, TickEncoding.BINARY), 0));
+    }
+
+    @Test
+    void onlyWantsEveryNthTick() {
+        spectate();
+
+        assertTrue(stream.wantsTick(FULL, 3));
+        assertFalse(stream.wantsTick(FULL, 4));
+        assertFalse(stream.wantsTick(FULL, 5));
+        assertTrue(stream.wantsTick(FULL, 6));
+    }
+
+    @Test
+    void sendsEveryNthTick() throws InterruptedException {
+        spectate();
+
+        for (long tick = 0; tick <= 6; tick++) {
+            stream.sendTick(tick(FULL, tick));
+
+            // Waiting for each tick that gets through, so that none of them are coalesced
+            if (tick % 3 == 0) {
+                assertEquals(tick, received.poll(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void ignoresOtherDestinations() throws InterruptedException {
+        spectate();
+
+        stream.sendTick(tick(TickProtocol.getDestination("main", TickProtocol.DELTA, TickEncoding.BINARY), 0));
+        stream.sendTick(tick(TickProtocol.getDestination("other", TickProtocol.FULL, TickEncoding.BINARY), 0));
+
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void sendsFramesWithoutTheDivisor() throws InterruptedException {
+        assertFalse(stream.hasSpectators("main", TickEncoding.BINARY));
+        spectate();
+        assertTrue(stream.hasSpectators("main", TickEncoding.BINARY));
+        assertFalse(stream.hasSpectators("main", TickEncoding.JSON));
+
+        stream.sendFrame(tick(SPECTATE, 1));
+        assertEquals(1, received.poll(5, TimeUnit.SECONDS));
+        stream.sendFrame(tick(SPECTATE, 2));
+        assertEquals(2, received.poll(5, TimeUnit.SECONDS));
+
+        assertThrows(IllegalArgumentException.class, () -> stream.sendFrame(tick(FULL, 3)));
+    }
+
+    private static EncodedTick tick(String destination, long tick) {
+        return new EncodedTick("main", tick, destination, new byte[]{(byte) tick}, TickEncoding.BINARY, true,
+                Assertions::fail);
+    }
+
+    /**
+     * Subscribes a raw session to the spectator topic, which records the number of every tick it is sent.
+     */
+    private void spectate() {
+        WebSocketSession session = (WebSocketSession) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{WebSocketSession.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "sendMessage": {
+                            received.add((long) ((BinaryMessage) args[0]).getPayload().get(0));
+                            return null;
+                        }
+                        case "getId": {
+                            return "spectator";
+                        }
+                        case "isOpen": {
+                            return true;
+                        }
+                        default: {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+
+        broadcaster.addSession(session);
+        broadcaster.subscribeRaw(session.getId(), SPECTATE);
+    }
+}
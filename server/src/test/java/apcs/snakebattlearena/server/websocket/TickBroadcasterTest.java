@@ -0,0 +1,229 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.server.game.GameConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickBroadcasterTest {
+    private static final String DESTINATION = "/topic/a/tick";
+    private static final byte[] PAYLOAD = "{\"entities\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    private final TickBroadcaster broadcaster = new TickBroadcaster(new GameConfig());
+
+    @Test
+    void sharesFramesBetweenSubscriptionIds() throws InterruptedException {
+        RecordingSession first = connect("1");
+        RecordingSession second = connect("2");
+        RecordingSession third = connect("3");
+        subscribe(first, "sub-0", DESTINATION);
+        subscribe(second, "sub-0", DESTINATION);
+        subscribe(third, "sub-1", DESTINATION);
+
+        assertEquals(3, broadcaster.broadcast(tick(DESTINATION, PAYLOAD, TickEncoding.JSON)));
+
+        // The frame is only encoded once for each subscription ID
+        WebSocketMessage<?> frame = first.single();
+        WebSocketMessage<?> otherFrame = third.single();
+        assertSame(frame, second.single());
+        assertNotSame(frame, otherFrame);
+
+        assertInstanceOf(TextMessage.class, frame);
+        assertEquals("MESSAGE\n"
+                + "destination:/topic/a/tick\n"
+                + "content-type:application/json\n"
+                + "message-id:tick-0\n"
+                + "content-length:" + PAYLOAD.length + "\n"
+                + "subscription:sub-0\n"
+                + "\n"
+                + "{\"entities\":[]}\u0000", ((TextMessage) frame).getPayload());
+        assertTrue(((TextMessage) otherFrame).getPayload().contains("\nsubscription:sub-1\n\n"));
+    }
+
+    @Test
+    void sendsBinaryFrames() throws InterruptedException {
+        RecordingSession session = connect("1");
+        subscribe(session, "sub-0", DESTINATION + "/binary");
+
+        byte[] payload = {1, 2, 3};
+        assertEquals(1, broadcaster.broadcast(tick(DESTINATION + "/binary", payload, TickEncoding.BINARY)));
+
+        BinaryMessage frame = assertInstanceOf(BinaryMessage.class, session.single());
+        String frameText = new String(frame.getPayload().array(), StandardCharsets.UTF_8);
+        assertTrue(frameText.contains("content-type:application/octet-stream\n"));
+        assertTrue(frameText.endsWith("\n\n\u0001\u0002\u0003\u0000"));
+    }
+
+    @Test
+    void stopsSendingToRemovedSubscriptions() {
+        RecordingSession unsubscribed = connect("1");
+        RecordingSession disconnected = connect("2");
+        subscribe(unsubscribed, "sub-0", DESTINATION);
+        subscribe(disconnected, "sub-0", DESTINATION);
+        assertTrue(broadcaster.hasSubscribers(DESTINATION));
+
+        send(StompCommand.UNSUBSCRIBE, unsubscribed, "sub-0", null);
+        send(StompCommand.DISCONNECT, disconnected, null, null);
+
+        assertFalse(broadcaster.hasSubscribers(DESTINATION));
+        assertEquals(0, broadcaster.broadcast(tick(DESTINATION, PAYLOAD, TickEncoding.JSON)));
+        assertTrue(unsubscribed.sent.isEmpty());
+        assertTrue(disconnected.sent.isEmpty());
+    }
+
+    private static EncodedTick tick(String destination, byte[] payload, TickEncoding encoding) {
+        return new EncodedTick("a", 0, destination, payload, encoding, true, Assertions::fail);
+    }
+
+    private RecordingSession connect(String id) {
+        RecordingSession session = new RecordingSession(id);
+        broadcaster.addSession(session);
+        return session;
+    }
+
+    private void subscribe(RecordingSession session, String subscriptionId, String destination) {
+        send(StompCommand.SUBSCRIBE, session, subscriptionId, destination);
+    }
+
+    /**
+     * Passes a frame from a client through the interceptor.
+     */
+    private void send(StompCommand command, RecordingSession session, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(session.getId());
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setLeaveMutable(true);
+
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        assertSame(message, broadcaster.preSend(message, (m, timeout) -> true));
+    }
+
+    /**
+     * An open session recording the messages sent to it.
+     */
+    private static class RecordingSession implements WebSocketSession {
+        final BlockingQueue<WebSocketMessage<?>> sent = new LinkedBlockingQueue<>();
+        private final String id;
+
+        RecordingSession(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Waits for the only message sent by the outbox.
+         */
+        WebSocketMessage<?> single() throws InterruptedException {
+            WebSocketMessage<?> message = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(message);
+            assertNull(sent.poll(50, TimeUnit.MILLISECONDS));
+            return message;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            sent.add(message);
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return new HashMap<>();
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickOutboxTest {
+    private static final String DELTA = TickProtocol.getDestination("main", TickProtocol.DELTA, TickEncoding.BINARY);
+    private static final String SPECTATE = TickProtocol.getSpectatorDestination("main", TickEncoding.BINARY);
+
+    /**
+     * Runs sends only when asked to, as if the session was busy until then.
+     */
+    private final ArrayDeque<Runnable> executor = new ArrayDeque<>();
+
+    private final List<Long> sent = new ArrayList<>();
+    private final List<CloseStatus> closed = new ArrayList<>();
+    private Consumer<Long> onSend = tick -> {
+    };
+
+    private int keyframeRequests = 0;
+
+    @Test
+    void waitsForAKeyframe() {
+        TickOutbox outbox = newOutbox(DELTA, TimeUnit.SECONDS.toNanos(10));
+        OutboxStats stats = new OutboxStats(DELTA);
+
+        // Only the first skipped tick requests a keyframe
+        assertFalse(offer(outbox, 1, false, stats));
+        assertFalse(offer(outbox, 2, false, stats));
+        assertEquals(1, keyframeRequests);
+
+        assertTrue(offer(outbox, 3, true, stats));
+        runExecutor();
+        assertTrue(offer(outbox, 4, false, stats));
+        runExecutor();
+
+        assertEquals(Arrays.asList(3L, 4L), sent);
+        assertEquals(2, stats.getSentCount());
+        assertEquals(2, stats.getDroppedCount());
+        assertEquals(1, stats.getKeyframeRequestCount());
+    }
+
+    @Test
+    void sendsSpectatorsAnyTick() {
+        TickOutbox outbox = newOutbox(SPECTATE, TimeUnit.SECONDS.toNanos(10));
+        OutboxStats stats = new OutboxStats(SPECTATE);
+
+        // Spectators get full ticks, so there's never a keyframe to wait for
+        assertTrue(offer(outbox, 1, true, stats));
+        runExecutor();
+
+        assertEquals(Arrays.asList(1L), sent);
+        assertEquals(0, keyframeRequests);
+    }
+
+    @Test
+    void replacesUnsentTicksWithKeyframes() {
+        TickOutbox outbox = newOutbox(DELTA, TimeUnit.SECONDS.toNanos(10));
+        OutboxStats stats = new OutboxStats(DELTA);
+
+        assertTrue(offer(outbox, 1, true, stats));
+        assertTrue(offer(outbox, 2, true, stats));
+        assertTrue(offer(outbox, 3, true, stats));
+
+        // Draining is only started once
+        assertEquals(1, executor.size());
+        runExecutor();
+
+        assertEquals(Arrays.asList(3L), sent);
+        assertEquals(2, stats.getCoalescedCount());
+        assertEquals(0, stats.getDroppedCount());
+        assertEquals(0, keyframeRequests);
+    }
+
+    @Test
+    void skipsToTheNextKeyframeWhenBehind() {
+        TickOutbox outbox = newOutbox(DELTA, TimeUnit.SECONDS.toNanos(10));
+        OutboxStats stats = new OutboxStats(DELTA);
+
+        assertTrue(offer(outbox, 1, true, stats));
+        runExecutor();
+
+        // The session is still busy with tick 2 when tick 3 arrives, so neither can be sent
+        assertTrue(offer(outbox, 2, false, stats));
+        assertFalse(offer(outbox, 3, false, stats));
+        assertEquals(1, keyframeRequests);
+        assertFalse(offer(outbox, 4, false, stats));
+        assertEquals(1, keyframeRequests);
+
+        runExecutor();
+        assertEquals(Arrays.asList(1L), sent);
+
+        assertTrue(offer(outbox, 5, true, stats));
+        runExecutor();
+        assertTrue(offer(outbox, 6, false, stats));
+        runExecutor();
+
+        assertEquals(Arrays.asList(1L, 5L, 6L), sent);
+        assertEquals(3, stats.getDroppedCount());
+        assertEquals(1, stats.getKeyframeRequestCount());
+    }
+
+    @Test
+    void closesSessionsThatTakeTooLong() {
+        TickOutbox outbox = newOutbox(DELTA, 0);
+        OutboxStats stats = new OutboxStats(DELTA);
+
+        // Another tick arrives while the first one is stuck sending
+        onSend = tick -> {
+            sleep();
+            assertFalse(offer(outbox, 2, true, stats));
+        };
+
+        assertTrue(offer(outbox, 1, true, stats));
+        runExecutor();
+
+        assertEquals(Arrays.asList(1L), sent);
+        assertEquals(Arrays.asList(CloseStatus.SESSION_NOT_RELIABLE), closed);
+        assertEquals(1, stats.getSlowSessionCount());
+
+        // Nothing else is sent to it
+        onSend = tick -> {
+        };
+        assertFalse(offer(outbox, 3, true, stats));
+        runExecutor();
+        assertEquals(Arrays.asList(1L), sent);
+    }
+
+    private boolean offer(TickOutbox outbox, long tick, boolean keyframe, OutboxStats stats) {
+        byte[] payload = {(byte) tick};
+        EncodedTick encoded = new EncodedTick("main", tick, outbox.getDestination(), payload, TickEncoding.BINARY, keyframe,
+                () -> keyframeRequests++);
+
+        return outbox.offer(new BinaryMessage(payload), encoded, stats);
+    }
+
+    private TickOutbox newOutbox(String destination, long sendTimeLimitNanos) {
+        WebSocketSession session = (WebSocketSession) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{WebSocketSession.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "sendMessage": {
+                            long tick = ((BinaryMessage) args[0]).getPayload().get(0);
+                            sent.add(tick);
+                            onSend.accept(tick);
+                            return null;
+                        }
+                        case "close": {
+                            closed.add((CloseStatus) args[0]);
+                            return null;
+                        }
+                        case "getId": {
+                            return "session";
+                        }
+                        default: {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+
+        return new TickOutbox("session", destination, session, executor::add, sendTimeLimitNanos);
+    }
+
+    private void runExecutor() {
+        Runnable task;
+        while ((task = executor.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package apcs.snakebattlearena.server.websocket;
+
+import apcs.snakebattlearena.models.DeltaTickData;
+import apcs.snakebattlearena.models.TickData;
+import apcs.snakebattlearena.models.TickEncoding;
+import apcs.snakebattlearena.models.TickProtocol;
+import apcs.snakebattlearena.serializers.BinaryTickCodec;
+import apcs.snakebattlearena.server.ServerApplication;
+import apcs.snakebattlearena.server.game.GameConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickPipelineTest {
+    private final ObjectMapper mapper = new ServerApplication().jacksonMapperBuilder().build();
+
+    @Test
+    void dropsTicksWhenFull() {
+        RecordingTransport transport = new RecordingTransport(0);
+        TickPipeline pipeline = new TickPipeline(config(1), mapper, Collections.singletonList(transport));
+        AtomicInteger dropped = new AtomicInteger();
+
+        // Nothing drains the queue until the pipeline is started
+        assertTrue(pipeline.publish("a", delta(1, true), Collections.emptyList(), 0, dropped::incrementAndGet));
+        assertFalse(pipeline.publish("a", delta(2, false), Collections.emptyList(), 0, dropped::incrementAndGet));
+        assertEquals(1, pipeline.getDroppedTickCount());
+        assertEquals(1, dropped.get());
+    }
+
+    @Test
+    void broadcastsTicksInOrder() throws Exception {
+        RecordingTransport transport = new RecordingTransport(6, "a", "b", "c");
+        TickPipeline pipeline = new TickPipeline(config(4), mapper, Collections.singletonList(transport));
+
+        assertTrue(pipeline.publish("a", delta(1, true), Collections.emptyList(), 10, Assertions::fail));
+        assertTrue(pipeline.publish("b", delta(2, true), Collections.emptyList(), 20, Assertions::fail));
+        assertTrue(pipeline.publish("c", delta(3, true), Collections.emptyList(), 30, Assertions::fail));
+
+        pipeline.start();
+        try {
+            assertTrue(transport.await());
+        } finally {
+            pipeline.stop();
+        }
+
+        // Each tick is only encoded for the destinations with subscribers
+        assertEquals(6, transport.ticks.size());
+        for (int i = 0; i < 3; i++) {
+            String arena = String.valueOf((char) ('a' + i));
+
+            assertSent(transport, 2 * i, fullJson(arena), mapper.writeValueAsBytes(tick()), true);
+            assertSent(transport, 2 * i + 1, deltaBinary(arena), BinaryTickCodec.encode(delta(i + 1, true)), true);
+        }
+
+        assertEquals(0, pipeline.getDroppedTickCount());
+        assertEquals(3, pipeline.getSimulateTimer().getCount());
+        assertEquals(30, pipeline.getSimulateTimer().getMaxNanos());
+        assertEquals(3, pipeline.getBroadcastTimer().getCount());
+    }
+
+    @Test
+    void skipsFullTicksUntilAKeyframe() throws Exception {
+        RecordingTransport transport = new RecordingTransport(8, "a");
+        TickPipeline pipeline = new TickPipeline(config(8), mapper, Collections.singletonList(transport));
+
+        // The state of the arena is unknown until its first keyframe, and again after a tick went missing
+        long[] ticks = {5, 6, 7, 9, 10};
+        boolean[] keyframes = {false, true, false, false, true};
+        for (int i = 0; i < ticks.length; i++) {
+            assertTrue(pipeline.publish("a", delta(ticks[i], keyframes[i]), Collections.emptyList(), 0, Assertions::fail));
+        }
+
+        pipeline.start();
+        try {
+            assertTrue(transport.await());
+        } finally {
+            pipeline.stop();
+        }
+
+        byte[] full = mapper.writeValueAsBytes(tick());
+        assertEquals(8, transport.ticks.size());
+        assertSent(transport, 0, deltaBinary("a"), BinaryTickCodec.encode(delta(5, false)), false);
+        assertSent(transport, 1, fullJson("a"), full, true);
+        assertSent(transport, 2, deltaBinary("a"), BinaryTickCodec.encode(delta(6, true)), true);
+        assertSent(transport, 3, fullJson("a"), full, true);
+        assertSent(transport, 4, deltaBinary("a"), BinaryTickCodec.encode(delta(7, false)), false);
+        assertSent(transport, 5, deltaBinary("a"), BinaryTickCodec.encode(delta(9, false)), false);
+        assertSent(transport, 6, fullJson("a"), full, true);
+        assertSent(transport, 7, deltaBinary("a"), BinaryTickCodec.encode(delta(10, true)), true);
+    }
+
+    @Test
+    void onlyEncodesWantedTicks() throws Exception {
+        // Like spectators, only wants the full ticks of every other tick
+        RecordingTransport transport = new RecordingTransport(4, "a") {
+            @Override
+            public boolean wantsTick(String destination, long tick) {
+                return super.wantsTick(destination, tick) && (tick % 2 == 0 || !destination.equals(fullJson("a")));
+            }
+        };
+        TickPipeline pipeline = new TickPipeline(config(4), mapper, Collections.singletonList(transport));
+
+        for (long tick = 1; tick <= 3; tick++) {
+            assertTrue(pipeline.publish("a", delta(tick, true), Collections.emptyList(), 0, Assertions::fail));
+        }
+
+        pipeline.start();
+        try {
+            assertTrue(transport.await());
+        } finally {
+            pipeline.stop();
+        }
+
+        assertEquals(4, transport.ticks.size());
+        assertSent(transport, 0, deltaBinary("a"), BinaryTickCodec.encode(delta(1, true)), true);
+        assertSent(transport, 1, fullJson("a"), mapper.writeValueAsBytes(tick()), true);
+        assertEquals(2, transport.ticks.get(1).getTick());
+        assertSent(transport, 2, deltaBinary("a"), BinaryTickCodec.encode(delta(2, true)), true);
+        assertSent(transport, 3, deltaBinary("a"), BinaryTickCodec.encode(delta(3, true)), true);
+    }
+
+    private static void assertSent(RecordingTransport transport, int index, String destination, byte[] payload, boolean keyframe) {
+        EncodedTick tick = transport.ticks.get(index);
+        assertEquals(destination, tick.getDestination());
+        assertArrayEquals(payload, tick.getPayload());
+        assertEquals(keyframe, tick.isKeyframe());
+    }
+
+    private static GameConfig config(int queueSize) {
+        GameConfig config = new GameConfig();
+        config.setTickQueueSize(queueSize);
+        return config;
+    }
+
+    private static TickData tick() {
+        return TickData.Builder.builder()
+                .setEntities(Collections.emptyList())
+                .setRemovedEntities(Collections.emptyList())
+                .build();
+    }
+
+    private static DeltaTickData delta(long tick, boolean keyframe) {
+        return DeltaTickData.Builder.builder()
+                .setTick(tick)
+                .setKeyframe(keyframe)
+                .build();
+    }
+
+    private static String fullJson(String arena) {
+        return TickProtocol.getDestination(arena, TickProtocol.FULL, TickEncoding.JSON);
+    }
+
+    private static String deltaBinary(String arena) {
+        return TickProtocol.getDestination(arena, TickProtocol.DELTA, TickEncoding.BINARY);
+    }
+
+    /**
+     * Records the ticks sent by the broadcast stage instead of sending them,
+     * with subscribers to full JSON and binary delta ticks of some arenas.
+     */
+    private static class RecordingTransport implements TickTransport {
+        final List<EncodedTick> ticks = Collections.synchronizedList(new ArrayList<>());
+        private final Set<String> subscribed = new HashSet<>();
+        private final CountDownLatch latch;
+
+        RecordingTransport(int count, String... arenas) {
+            this.latch = new CountDownLatch(count);
+            for (String arena : arenas) {
+                subscribed.add(fullJson(arena));
+                subscribed.add(deltaBinary(arena));
+            }
+        }
+
+        @Override
+        public boolean wantsTick(String destination, long tick) {
+            return subscribed.contains(destination);
+        }
+
+        @Override
+        public int sendTick(EncodedTick tick) {
+            ticks.add(tick);
+            latch.countDown();
+            return 1;
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(10, TimeUnit.SECONDS);
+        }
+    }
+}
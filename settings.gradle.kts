@@ -3,3 +3,5 @@ include("common")
 include("server")
 include("client")
 include("client-example")
+include("benchmarks")
+include("loadgen")